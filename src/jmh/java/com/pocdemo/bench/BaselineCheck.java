@@ -0,0 +1,194 @@
+package com.pocdemo.bench;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares a JMH JSON result with the checked-in baseline and exits with 1
+ * when a benchmark got slower, or allocates more per operation, by more than
+ * its allowance: the error margins of the baseline and the result added up,
+ * and at least the tolerance. A noisy benchmark thus needs a larger change to
+ * fail, a steady one fails on the tolerance.
+ * <p>
+ * Arguments: result file, baseline file, tolerance in percent (default 10).
+ * With {@code record} as the first argument the result is written to the
+ * baseline file instead, keeping the scores, error margins and units but not
+ * the JVM paths and raw data of the JMH output.
+ */
+public class BaselineCheck {
+
+    private static final String ALLOC = "gc.alloc.rate.norm";
+    private static final MathContext DIGITS = new MathContext(4);
+
+    private record Score(String mode, double score, double error, String unit, double alloc, double allocError) {
+    }
+
+    private record Run(String jdk, int forks, int warmups, int iterations, Map<String, Score> scores) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && "record".equals(args[0])) {
+            var result = read(Path.of(args.length > 1 ? args[1] : "target/jmh-result.json"));
+            var file = Path.of(args.length > 2 ? args[2] : "src/jmh/baseline.json");
+            write(result, file);
+            System.out.printf("%d benchmarks written to %s%n", result.scores().size(), file);
+            return;
+        }
+        var result = read(Path.of(args.length > 0 ? args[0] : "target/jmh-result.json"));
+        var baseline = read(Path.of(args.length > 1 ? args[1] : "src/jmh/baseline.json"));
+        double tolerance = (args.length > 2 ? Double.parseDouble(args[2]) : 10) / 100;
+        if (!baseline.jdk().equals(result.jdk())) {
+            System.out.printf("baseline recorded on JDK %s, this result on %s%n", baseline.jdk(), result.jdk());
+        }
+
+        int regressions = 0;
+        for (var en : result.scores().entrySet()) {
+            var now = en.getValue();
+            var then = baseline.scores().get(en.getKey());
+            if (null == then) {
+                System.out.printf("%-60s %12.1f %-8s (new)%n", en.getKey(), now.score(), now.unit());
+                continue;
+            }
+            // throughput is better when higher, every other mode when lower
+            double change = "thrpt".equals(now.mode())
+                    ? then.score() / now.score() - 1
+                    : now.score() / then.score() - 1;
+            double allowed = allowance(then.score(), then.error(), now.error(), tolerance);
+            // counted from one byte, as fractions of a byte per op are sampling noise
+            double allocFrom = Math.max(then.alloc(), 1);
+            double allocChange = (now.alloc() - then.alloc()) / allocFrom;
+            double allocAllowed = allowance(allocFrom, then.allocError(), now.allocError(), tolerance);
+            boolean regressed = change > allowed || allocChange > allocAllowed;
+            regressions += regressed ? 1 : 0;
+            System.out.printf("%-60s %12.1f %-8s %+7.1f%% (%4.0f%%)  alloc %8.0f B/op %+7.1f%% (%4.0f%%)%s%n",
+                    en.getKey(), now.score(), now.unit(), change * 100, allowed * 100, now.alloc(),
+                    allocChange * 100, allocAllowed * 100, regressed ? "  REGRESSION" : "");
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than their allowance%n", regressions);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The relative change a benchmark may show, the two error margins taken
+     * relative to the baseline score, and never less than the tolerance.
+     */
+    private static double allowance(double score, double error, double otherError, double tolerance) {
+        if (score <= 0) {
+            return tolerance;
+        }
+        return Math.max(tolerance, (finite(error) + finite(otherError)) / score);
+    }
+
+    /** JMH reports NaN as the error of a single iteration */
+    private static double finite(double error) {
+        return Double.isFinite(error) ? error : 0;
+    }
+
+    /**
+     * Reads either the array of runs written by JMH or a baseline written by
+     * {@link #write}.
+     */
+    private static Run read(Path file) throws IOException {
+        try (Reader r = Files.newBufferedReader(file)) {
+            var root = JsonParser.parseReader(r);
+            return root.isJsonArray() ? fromJmh(root.getAsJsonArray()) : fromBaseline(root.getAsJsonObject());
+        }
+    }
+
+    private static Run fromJmh(JsonArray runs) {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        String jdk = "";
+        int forks = 0;
+        int warmups = 0;
+        int iterations = 0;
+        for (JsonElement el : runs) {
+            JsonObject run = el.getAsJsonObject();
+            JsonObject primary = run.getAsJsonObject("primaryMetric");
+            double alloc = 0;
+            double allocError = 0;
+            var secondary = run.getAsJsonObject("secondaryMetrics");
+            if (null != secondary) {
+                for (var metric : secondary.entrySet()) {
+                    if (metric.getKey().endsWith(ALLOC)) {
+                        alloc = metric.getValue().getAsJsonObject().get("score").getAsDouble();
+                        allocError = metric.getValue().getAsJsonObject().get("scoreError").getAsDouble();
+                    }
+                }
+            }
+            var name = run.get("benchmark").getAsString();
+            if (run.has("params")) {
+                name += run.get("params").toString();
+            }
+            scores.put(name, new Score(run.get("mode").getAsString(), primary.get("score").getAsDouble(),
+                    primary.get("scoreError").getAsDouble(), primary.get("scoreUnit").getAsString(), alloc,
+                    allocError));
+            jdk = run.get("jdkVersion").getAsString();
+            forks = run.get("forks").getAsInt();
+            warmups = run.get("warmupIterations").getAsInt();
+            iterations = run.get("measurementIterations").getAsInt();
+        }
+        return new Run(jdk, forks, warmups, iterations, scores);
+    }
+
+    private static Run fromBaseline(JsonObject root) {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (var en : root.getAsJsonObject("benchmarks").entrySet()) {
+            var b = en.getValue().getAsJsonObject();
+            scores.put(en.getKey(), new Score(b.get("mode").getAsString(), b.get("score").getAsDouble(),
+                    b.get("scoreError").getAsDouble(), b.get("unit").getAsString(), b.get("alloc").getAsDouble(),
+                    b.get("allocError").getAsDouble()));
+        }
+        return new Run(root.get("jdkVersion").getAsString(), root.get("forks").getAsInt(),
+                root.get("warmupIterations").getAsInt(), root.get("measurementIterations").getAsInt(), scores);
+    }
+
+    private static void write(Run run, Path file) throws IOException {
+        var root = new JsonObject();
+        root.addProperty("jdkVersion", run.jdk());
+        root.addProperty("forks", run.forks());
+        root.addProperty("warmupIterations", run.warmups());
+        root.addProperty("measurementIterations", run.iterations());
+        var benchmarks = new JsonObject();
+        for (var en : run.scores().entrySet()) {
+            var s = en.getValue();
+            var b = new JsonObject();
+            b.addProperty("mode", s.mode());
+            b.addProperty("score", round(s.score()));
+            b.addProperty("scoreError", round(s.error()));
+            b.addProperty("unit", s.unit());
+            b.addProperty("alloc", round(s.alloc()));
+            b.addProperty("allocError", round(s.allocError()));
+            benchmarks.add(en.getKey(), b);
+        }
+        root.add("benchmarks", benchmarks);
+        try (Writer w = Files.newBufferedWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(root, w);
+            w.write(System.lineSeparator());
+        }
+    }
+
+    /** four significant digits, well below the error margins */
+    private static BigDecimal round(double value) {
+        if (!Double.isFinite(value)) {
+            return BigDecimal.ZERO;
+        }
+        var rounded = new BigDecimal(value).round(DIGITS).stripTrailingZeros();
+        // a plain 12340 rather than 1.234E+4
+        return rounded.scale() < 0 ? rounded.setScale(0) : rounded;
+    }
+}
@@ -0,0 +1,143 @@
+package com.pocdemo.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.pocdemo.http.web.server.CustomTomcat;
+import com.pocdemo.http.web.servlet.RPCServiceDispatcherServlet;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+
+/**
+ * Concurrency scaling of blocking handlers, such as routes waiting on JDBC:
+ * for each client concurrency, that many requests are kept in flight, each on
+ * its own connection, against a route that sleeps. The default platform pool
+ * of 150 threads caps the handlers running at once, and throughput with it;
+ * on virtual threads both keep growing with the concurrency. The virtual
+ * thread runs need a Java 21 runtime and are skipped on older ones. Each
+ * line prints the throughput reached, the ideal one of
+ * {@code concurrency / millis}, and the most handlers that ran at once.
+ * <p>
+ * Configured through system properties:
+ * <ul>
+ * <li>{@code scaling.concurrency} comma separated requests in flight, default
+ * 100,150,300,600</li>
+ * <li>{@code scaling.millis} time each handler blocks, default 1000</li>
+ * <li>{@code scaling.seconds} measured duration per step, default 10</li>
+ * </ul>
+ */
+public class BlockingScaling {
+
+    @Path("/blocking")
+    public static class BlockingService {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+
+        @GET
+        @Path("/sleep")
+        public Long sleep(@QueryParam("millis") Long millis) throws InterruptedException {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(millis);
+                return millis;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private record Step(int concurrency, long requests, long errors, double seconds, int peak) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var concurrencies = System.getProperty("scaling.concurrency", "100,150,300,600").split(",");
+        int millis = Integer.getInteger("scaling.millis", 1000);
+        int seconds = Integer.getInteger("scaling.seconds", 10);
+
+        List<Boolean> modes = new ArrayList<>(List.of(false));
+        if (Runtime.version().feature() >= 21) {
+            modes.add(true);
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + ": skipping virtual threads, they need 21");
+        }
+        System.out.printf("%-8s %11s %10s %10s %8s%n", "threads", "concurrency", "req/s", "ideal", "peak");
+        for (boolean virtual : modes) {
+            var service = new BlockingService();
+            var tomcat = new CustomTomcat(false, "", 0);
+            if (virtual) {
+                tomcat.useVirtualThreads();
+            }
+            tomcat.addDispatcher("/*", new RPCServiceDispatcherServlet(Set.of(service)));
+            tomcat.start();
+            try {
+                var request = HttpRequest.newBuilder(URI.create("http://localhost:"
+                        + tomcat.getConnector().getLocalPort() + "/blocking/sleep?millis=" + millis))
+                        .timeout(Duration.ofSeconds(60))
+                        .build();
+                var client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+                for (var c : concurrencies) {
+                    service.peak.set(0);
+                    var step = run(client, request, Integer.parseInt(c.trim()), seconds, service);
+                    System.out.printf("%-8s %11d %10.1f %10.1f %8d%s%n", virtual ? "virtual" : "platform",
+                            step.concurrency(), step.requests() / step.seconds(), step.concurrency() * 1000.0 / millis,
+                            step.peak(), step.errors() > 0 ? "  " + step.errors() + " errors" : "");
+                }
+            } finally {
+                tomcat.stop();
+            }
+        }
+    }
+
+    /**
+     * Keeps {@code concurrency} requests outstanding for {@code seconds}, each
+     * completion sending the next, and waits for the last ones.
+     */
+    private static Step run(HttpClient client, HttpRequest request, int concurrency, int seconds,
+            BlockingService service) {
+        var done = new LongAdder();
+        var errors = new LongAdder();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        var loops = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            var loop = new CompletableFuture<Void>();
+            send(client, request, deadline, done, errors, loop);
+            loops[i] = loop;
+        }
+        CompletableFuture.allOf(loops).join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        return new Step(concurrency, done.sum(), errors.sum(), elapsed, service.peak.get());
+    }
+
+    private static void send(HttpClient client, HttpRequest request, long deadline, LongAdder done,
+            LongAdder errors, CompletableFuture<Void> loop) {
+        if (System.nanoTime() >= deadline) {
+            loop.complete(null);
+            return;
+        }
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((rs, err) -> {
+                    if (null != err || rs.statusCode() != 200) {
+                        errors.increment();
+                    } else {
+                        done.increment();
+                    }
+                    send(client, request, deadline, done, errors, loop);
+                });
+    }
+}
@@ -0,0 +1,124 @@
+package com.pocdemo.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.coyote.AbstractProtocol;
+
+import com.pocdemo.http.web.server.ConnectorBuilder;
+import com.pocdemo.http.web.server.CustomTomcat;
+import com.pocdemo.http.web.servlet.RPCServiceDispatcherServlet;
+
+/**
+ * Closed-loop throughput of many concurrent small requests to
+ * {@link LoadGenerator.SampleService} on localhost, over HTTP/1.1 and over
+ * HTTP/2 cleartext, each against a fresh server with an h2c-enabled
+ * connector. Each phase keeps {@code h2.concurrency} requests in flight from
+ * one client: over HTTP/1.1 it opens a connection per outstanding request,
+ * over HTTP/2 it multiplexes them on one upgraded connection.
+ * <p>
+ * Configured through system properties:
+ * <ul>
+ * <li>{@code h2.concurrency} requests in flight, default 64</li>
+ * <li>{@code h2.seconds} measured duration per protocol, default 10</li>
+ * <li>{@code h2.warmupSeconds} discarded warm-up per protocol, default 5</li>
+ * <li>{@code h2.path} GET path, default /sample/ping</li>
+ * <li>{@code h2.protocol} NIO or NIO2, default NIO</li>
+ * </ul>
+ */
+public class Http2Throughput {
+
+    private record Result(long requests, long errors, double seconds, int connections) {
+        double throughput() {
+            return requests / seconds;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("h2.concurrency", 64);
+        int seconds = Integer.getInteger("h2.seconds", 10);
+        int warmupSeconds = Integer.getInteger("h2.warmupSeconds", 5);
+        var path = System.getProperty("h2.path", "/sample/ping");
+        var protocol = ConnectorBuilder.Protocol.valueOf(System.getProperty("h2.protocol", "NIO"));
+
+        System.out.printf("%d requests in flight to %s, %s connector%n", concurrency, path, protocol);
+        for (var version : new HttpClient.Version[] { HttpClient.Version.HTTP_1_1, HttpClient.Version.HTTP_2 }) {
+            var tomcat = new CustomTomcat(false, "", new ConnectorBuilder(0)
+                    .protocol(protocol)
+                    .http2(Math.max(100, concurrency))
+                    .keepAlive(60_000, -1)
+                    .maxConnections(Math.max(8192, 2 * concurrency)));
+            tomcat.addDispatcher("/*", new RPCServiceDispatcherServlet(Set.of(new LoadGenerator.SampleService())));
+            tomcat.start();
+            try {
+                var connector = tomcat.getConnector();
+                var handler = (AbstractProtocol<?>) connector.getProtocolHandler();
+                var client = HttpClient.newBuilder()
+                        .version(version)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+                var request = HttpRequest.newBuilder(URI.create("http://localhost:" + connector.getLocalPort() + path))
+                        .timeout(Duration.ofSeconds(30))
+                        .build();
+                // upgrades the HTTP/2 client before the others start
+                var first = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (first.version() != version) {
+                    throw new IllegalStateException("Expected " + version + ", got " + first.version());
+                }
+                run(client, request, concurrency, warmupSeconds, handler);
+                var res = run(client, request, concurrency, seconds, handler);
+                System.out.printf("%-8s %9.0f req/s  %d requests, %d errors, %d server connections%n", version,
+                        res.throughput(), res.requests(), res.errors(), res.connections());
+            } finally {
+                tomcat.stop();
+            }
+        }
+    }
+
+    /**
+     * Keeps {@code concurrency} requests outstanding for {@code seconds}, each
+     * completion sending the next. Server connections are counted halfway.
+     */
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, int seconds,
+            AbstractProtocol<?> handler) throws InterruptedException {
+        var done = new LongAdder();
+        var errors = new LongAdder();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        var loops = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            var loop = new CompletableFuture<Void>();
+            send(client, request, deadline, done, errors, loop);
+            loops[i] = loop;
+        }
+        TimeUnit.NANOSECONDS.sleep((deadline - start) / 2);
+        int connections = (int) handler.getConnectionCount();
+        CompletableFuture.allOf(loops).join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        return new Result(done.sum(), errors.sum(), elapsed, connections);
+    }
+
+    private static void send(HttpClient client, HttpRequest request, long deadline, LongAdder done,
+            LongAdder errors, CompletableFuture<Void> loop) {
+        if (System.nanoTime() >= deadline) {
+            loop.complete(null);
+            return;
+        }
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((rs, err) -> {
+                    if (null != err || rs.statusCode() != 200) {
+                        errors.increment();
+                    } else {
+                        done.increment();
+                    }
+                    send(client, request, deadline, done, errors, loop);
+                });
+    }
+}
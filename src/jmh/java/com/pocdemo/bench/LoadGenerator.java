@@ -0,0 +1,302 @@
+package com.pocdemo.bench;
+
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.coyote.AbstractProtocol;
+
+import com.google.gson.GsonBuilder;
+import com.pocdemo.http.web.server.CustomTomcat;
+import com.pocdemo.http.web.servlet.RPCServiceDispatcherServlet;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.QueryParam;
+
+/**
+ * Open-loop load test against an embedded CustomTomcat serving
+ * {@link SampleService}. Requests are fired at a constant arrival rate,
+ * whether or not earlier ones have been answered, and each latency is measured
+ * from the time the request was scheduled to be sent. A stalled server
+ * therefore shows up in the percentiles instead of silently lowering the rate
+ * (coordinated omission). Each connection carries one request at a time, so
+ * requests that arrive while their connection is busy wait for it, and that
+ * wait counts toward their latency.
+ * <p>
+ * Configured through system properties:
+ * <ul>
+ * <li>{@code load.rate} requests per second, default 2000</li>
+ * <li>{@code load.seconds} measured duration, default 30</li>
+ * <li>{@code load.warmupSeconds} discarded warm-up, default 10</li>
+ * <li>{@code load.connections} HTTP/1.1 connections, requests are spread
+ * over them round-robin, default 16</li>
+ * <li>{@code load.paths} comma separated GET paths, POST when prefixed with
+ * {@code POST }, default a mix of the sample routes</li>
+ * <li>{@code load.virtualThreads} serve on virtual threads, default false</li>
+ * <li>{@code load.out} result file, default target/load-result.json</li>
+ * </ul>
+ */
+public class LoadGenerator {
+
+    private static final String DEFAULT_PATHS = "/sample/ping,/sample/orders/42,/sample/work?micros=200,"
+            + "POST /sample/echo";
+
+    private static final String ECHO_BODY = "{\"id\":7,\"customer\":\"load\",\"date\":\"2024-03-01\",\"total\":12.5}";
+
+    public static class Order {
+        long id;
+        String customer;
+        LocalDate date;
+        BigDecimal total;
+    }
+
+    @Path("/sample")
+    public static class SampleService {
+        @GET
+        @Path("/ping")
+        public String ping() {
+            return "pong";
+        }
+
+        @GET
+        @Path("/orders/{id}")
+        public Order order(@PathParam("id") Long id) {
+            var o = new Order();
+            o.id = id;
+            o.customer = "customer-" + id;
+            o.date = LocalDate.of(2024, 3, 1);
+            o.total = new BigDecimal("99.95");
+            return o;
+        }
+
+        @GET
+        @Path("/work")
+        public Long work(@QueryParam("micros") Long micros) {
+            long until = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+            long n = 0;
+            while (System.nanoTime() < until) {
+                n++;
+            }
+            return n;
+        }
+
+        @POST
+        @Path("/echo")
+        public Order echo(Order order) {
+            return order;
+        }
+    }
+
+    private record Target(String name, HttpRequest request) {
+    }
+
+    /**
+     * One client whose requests are chained so that only one is in flight,
+     * which keeps its pool at a single kept-alive connection.
+     */
+    private static final class Lane {
+        final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+        CompletableFuture<HttpResponse<Void>> send(HttpRequest request) {
+            var next = tail.handle((rs, err) -> null)
+                    .thenCompose(v -> client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+            tail = next;
+            return next;
+        }
+    }
+
+    /**
+     * Latencies of one phase, indexed by request sequence number.
+     */
+    private static final class Run {
+        final long[] latencies;
+        final int[] targets;
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final LongAdder errors = new LongAdder();
+        long elapsedNanos;
+
+        Run(int requests) {
+            latencies = new long[requests];
+            targets = new int[requests];
+            Arrays.fill(latencies, -1);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("load.rate", 2000);
+        int seconds = Integer.getInteger("load.seconds", 30);
+        int warmupSeconds = Integer.getInteger("load.warmupSeconds", 10);
+        int connections = Integer.getInteger("load.connections", 16);
+        var paths = System.getProperty("load.paths", DEFAULT_PATHS).split(",");
+        boolean virtualThreads = Boolean.getBoolean("load.virtualThreads");
+        var out = java.nio.file.Path.of(System.getProperty("load.out", "target/load-result.json"));
+
+        var tomcat = new CustomTomcat(false, "", 0);
+        if (virtualThreads) {
+            tomcat.useVirtualThreads();
+        }
+        tomcat.addDispatcher("/*", new RPCServiceDispatcherServlet(Set.of(new SampleService())));
+        tomcat.start();
+        try {
+            var connector = tomcat.getConnector();
+            var base = "http://localhost:" + connector.getLocalPort();
+            var lanes = new Lane[connections];
+            for (int i = 0; i < lanes.length; i++) {
+                lanes[i] = new Lane();
+            }
+            List<Target> targets = new ArrayList<>();
+            for (var p : paths) {
+                targets.add(target(base, p.trim()));
+            }
+
+            System.out.printf("Warming up for %ds at %d req/s%n", warmupSeconds, rate);
+            run(lanes, targets, rate, warmupSeconds);
+            System.out.printf("Measuring for %ds at %d req/s over %d connections%n", seconds, rate, connections);
+            var run = run(lanes, targets, rate, seconds);
+            long serverConnections = ((AbstractProtocol<?>) connector.getProtocolHandler()).getConnectionCount();
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("rate", rate);
+            config.put("seconds", seconds);
+            config.put("warmupSeconds", warmupSeconds);
+            config.put("connections", connections);
+            config.put("virtualThreads", virtualThreads);
+            config.put("paths", paths);
+            config.put("java", Runtime.version().toString());
+            result.put("config", config);
+            result.put("serverConnections", serverConnections);
+            result.putAll(summary(run, -1, run.elapsedNanos));
+            Map<String, Object> byTarget = new LinkedHashMap<>();
+            for (int i = 0; i < targets.size(); i++) {
+                byTarget.put(targets.get(i).name(), summary(run, i, run.elapsedNanos));
+            }
+            result.put("targets", byTarget);
+
+            if (null != out.getParent()) {
+                Files.createDirectories(out.getParent());
+            }
+            try (Writer w = Files.newBufferedWriter(out)) {
+                new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(result, w);
+            }
+            System.out.println(new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(result.get("latencyMillis")));
+            System.out.printf("Throughput %.0f req/s, %d errors, written to %s%n", result.get("throughput"),
+                    run.errors.sum(), out);
+        } finally {
+            tomcat.stop();
+        }
+    }
+
+    private static Target target(String base, String spec) {
+        var post = spec.startsWith("POST ");
+        var path = post ? spec.substring(5).trim() : spec;
+        var builder = HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(30));
+        if (post) {
+            builder.header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(ECHO_BODY));
+        }
+        return new Target(spec, builder.build());
+    }
+
+    /**
+     * Sends {@code rate * seconds} requests on a fixed schedule and waits for
+     * all of them to finish.
+     */
+    private static Run run(Lane[] lanes, List<Target> targets, int rate, int seconds) {
+        int total = rate * seconds;
+        var run = new Run(total);
+        long period = TimeUnit.SECONDS.toNanos(1) / rate;
+        List<CompletableFuture<?>> pending = new ArrayList<>(total);
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long intended = start + i * period;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int seq = i;
+            int t = i % targets.size();
+            run.targets[seq] = t;
+            pending.add(lanes[i % lanes.length].send(targets.get(t).request())
+                    .whenComplete((rs, err) -> {
+                        run.latencies[seq] = System.nanoTime() - intended;
+                        if (null != err) {
+                            run.errors.increment();
+                        } else {
+                            run.statuses.computeIfAbsent(rs.statusCode(), s -> new LongAdder()).increment();
+                        }
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null)
+                .join();
+        run.elapsedNanos = System.nanoTime() - start;
+        return run;
+    }
+
+    /**
+     * @param target index of the target to summarize, -1 for all requests
+     */
+    private static Map<String, Object> summary(Run run, int target, long elapsedNanos) {
+        long[] sorted = new long[run.latencies.length];
+        int n = 0;
+        for (int i = 0; i < run.latencies.length; i++) {
+            if (target < 0 || run.targets[i] == target) {
+                sorted[n++] = run.latencies[i];
+            }
+        }
+        sorted = Arrays.copyOf(sorted, n);
+        Arrays.sort(sorted);
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("requests", n);
+        res.put("throughput", n / (elapsedNanos / 1e9));
+        if (target < 0) {
+            res.put("errors", run.errors.sum());
+            Map<Integer, Long> statuses = new TreeMap<>();
+            run.statuses.forEach((s, c) -> statuses.put(s, c.sum()));
+            res.put("statuses", statuses);
+        }
+        Map<String, Double> latency = new LinkedHashMap<>();
+        latency.put("p50", millis(percentile(sorted, 0.50)));
+        latency.put("p90", millis(percentile(sorted, 0.90)));
+        latency.put("p99", millis(percentile(sorted, 0.99)));
+        latency.put("p99.9", millis(percentile(sorted, 0.999)));
+        latency.put("max", millis(n > 0 ? sorted[n - 1] : 0));
+        latency.put("mean", millis((long) Arrays.stream(sorted).average().orElse(0)));
+        res.put("latencyMillis", latency);
+        return res;
+    }
+
+    private static long percentile(long[] sorted, double q) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) Math.ceil(q * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e3) / 1e3;
+    }
+}
@@ -0,0 +1,204 @@
+package com.pocdemo.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.pocdemo.http.web.server.CustomTomcat;
+import com.pocdemo.http.web.servlet.RPCServiceDispatcherServlet;
+import com.pocdemo.http.web.servlet.RouteIndex;
+
+/**
+ * Startup of a server for {@link LoadGenerator.SampleService} in four modes:
+ * loaded from server.xml or configured in code, with a dispatcher that scans
+ * the service or reads its generated {@link RouteIndex}. Every run is a fresh
+ * child JVM, so classes load cold as they do for a short-lived instance, and
+ * the child times itself from its main method: building the server, building
+ * the dispatcher, and on to the first 200, sent over a raw socket so that no
+ * HTTP client is loaded. The time from launching the JVM is printed too.
+ * Medians are printed per mode.
+ * <p>
+ * Configured through system properties:
+ * <ul>
+ * <li>{@code startup.runs} JVMs per mode, default 9</li>
+ * <li>{@code startup.jvmArgs} extra options for the child JVMs</li>
+ * </ul>
+ */
+public class StartupTime {
+
+    private static final String RESULT = "startup ";
+
+    enum Mode {
+        XML_SCAN(true, false),
+        XML_INDEX(true, true),
+        CODE_SCAN(false, false),
+        CODE_INDEX(false, true);
+
+        final boolean xml;
+        final boolean index;
+
+        Mode(boolean xml, boolean index) {
+            this.xml = xml;
+            this.index = index;
+        }
+    }
+
+    /** the phases a child reports, then the time from launch */
+    private static final String[] COLUMNS = { "server", "dispatcher", "first 200", "from launch" };
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && "child".equals(args[0])) {
+            child(Mode.valueOf(args[1]));
+            return;
+        }
+        int runs = Integer.getInteger("startup.runs", 9);
+        var jvmArgs = System.getProperty("startup.jvmArgs", "").trim();
+        var classPath = System.getProperty("java.class.path");
+        var withoutIndex = withoutRouteIndex(classPath);
+
+        Map<Mode, long[][]> results = new LinkedHashMap<>();
+        for (var mode : Mode.values()) {
+            results.put(mode, new long[COLUMNS.length][runs]);
+        }
+        // interleaved so that a noisy moment does not hit a single mode
+        for (int i = 0; i < runs; i++) {
+            for (var mode : Mode.values()) {
+                var times = launch(mode.index ? classPath : withoutIndex, jvmArgs, mode);
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    results.get(mode)[c][i] = times[c];
+                }
+            }
+        }
+        System.out.printf("median ms of %d runs%n%-11s", runs, "");
+        for (var column : COLUMNS) {
+            System.out.printf(" %12s", column);
+        }
+        System.out.println();
+        for (var en : results.entrySet()) {
+            System.out.printf("%-11s", en.getKey());
+            for (var times : en.getValue()) {
+                Arrays.sort(times);
+                System.out.printf(" %12.1f", millis(times[times.length / 2]));
+            }
+            System.out.println();
+        }
+    }
+
+    private static void child(Mode mode) throws Exception {
+        long start = System.nanoTime();
+        var tomcat = mode.xml ? new CustomTomcat(false, "") : new CustomTomcat(false, "", 0);
+        long server = System.nanoTime();
+        var dispatcher = new RPCServiceDispatcherServlet(Set.of(new LoadGenerator.SampleService()));
+        long routes = System.nanoTime();
+        tomcat.addDispatcher("/*", dispatcher);
+        tomcat.start();
+        try {
+            firstRequest(tomcat.getConnector().getLocalPort());
+            long first = System.nanoTime();
+            System.out.println(RESULT + (server - start) + " " + (routes - server) + " " + (first - start));
+        } finally {
+            tomcat.stop();
+        }
+    }
+
+    private static void firstRequest(int port) throws IOException {
+        try (var socket = new Socket("localhost", port)) {
+            socket.getOutputStream().write(("GET /sample/ping HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            var status = reader.readLine();
+            if (null == status || !status.startsWith("HTTP/1.1 200")) {
+                throw new IllegalStateException("First request answered " + status);
+            }
+        }
+    }
+
+    /**
+     * @return the phases reported by the child and the nanoseconds from
+     *         starting it to its report
+     */
+    private static long[] launch(String classPath, String jvmArgs, Mode mode)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (!jvmArgs.isEmpty()) {
+            command.addAll(List.of(jvmArgs.split("\\s+")));
+        }
+        command.addAll(List.of("-cp", classPath, StartupTime.class.getName(), "child", mode.name()));
+
+        long start = System.nanoTime();
+        var process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try (var out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (null != (line = out.readLine())) {
+                if (line.startsWith(RESULT)) {
+                    long launched = System.nanoTime() - start;
+                    var phases = line.substring(RESULT.length()).split(" ");
+                    return new long[] { Long.parseLong(phases[0]), Long.parseLong(phases[1]),
+                            Long.parseLong(phases[2]), launched };
+                }
+            }
+            throw new IllegalStateException(mode + " exited with " + process.waitFor());
+        } finally {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    /**
+     * The class path with each directory replaced by a copy lacking the
+     * generated route indexes, so the dispatcher falls back to scanning.
+     */
+    private static String withoutRouteIndex(String classPath) throws IOException {
+        var tmp = Files.createTempDirectory("startup-");
+        tmp.toFile().deleteOnExit();
+        List<String> entries = new ArrayList<>();
+        int n = 0;
+        for (var entry : classPath.split(java.io.File.pathSeparator)) {
+            var src = Path.of(entry);
+            if (!Files.isDirectory(src)) {
+                entries.add(entry);
+                continue;
+            }
+            var dst = tmp.resolve(Integer.toString(n++));
+            try (var files = Files.walk(src)) {
+                for (var file : files.collect(Collectors.toList())) {
+                    if (file.getFileName().toString().endsWith(RouteIndex.SUFFIX + ".class")) {
+                        continue;
+                    }
+                    var target = dst.resolve(src.relativize(file).toString());
+                    if (Files.isDirectory(file)) {
+                        Files.createDirectories(target);
+                    } else {
+                        Files.copy(file, target);
+                    }
+                    target.toFile().deleteOnExit();
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            entries.add(dst.toString());
+        }
+        return String.join(java.io.File.pathSeparator, entries);
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1e5) / 1e1;
+    }
+}
@@ -0,0 +1,92 @@
+package com.pocdemo.http.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.reflect.TypeToken;
+import com.pocdemo.http.config.JsonBenchmark.Order;
+
+/**
+ * JSON against CBOR through the {@link Codec} interface, on the payloads of
+ * {@link JsonBenchmark}. The encoded sizes are printed once per fork.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    private static final Type ORDERS = new TypeToken<List<Order>>() {
+    }.getType();
+
+    private static final OutputStream NULL = OutputStream.nullOutputStream();
+
+    @Param({ "application/json", "application/cbor" })
+    public String mediaType;
+
+    private Codec codec;
+    private Order small;
+    private List<Order> large;
+    private byte[] smallBytes;
+    private byte[] largeBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        codec = Codecs.forContentType(mediaType);
+        small = JsonBenchmark.order(1);
+        large = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            large.add(JsonBenchmark.order(i));
+        }
+        smallBytes = encode(small);
+        largeBytes = encode(large);
+        System.out.printf("%n%s: small %d bytes, large %d bytes%n", mediaType, smallBytes.length,
+                largeBytes.length);
+    }
+
+    private byte[] encode(Object value) throws IOException {
+        var os = new ByteArrayOutputStream();
+        codec.write(value, os);
+        return os.toByteArray();
+    }
+
+    @Benchmark
+    public void writeSmall() throws IOException {
+        codec.write(small, NULL);
+    }
+
+    @Benchmark
+    public void writeLarge() throws IOException {
+        codec.write(large, NULL);
+    }
+
+    @Benchmark
+    public Object readSmall() throws IOException {
+        return codec.read(new ByteArrayInputStream(smallBytes), Order.class);
+    }
+
+    @Benchmark
+    public Object readLarge() throws IOException {
+        return codec.read(new ByteArrayInputStream(largeBytes), ORDERS);
+    }
+}
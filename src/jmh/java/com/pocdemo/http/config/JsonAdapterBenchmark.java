@@ -0,0 +1,184 @@
+package com.pocdemo.http.config;
+
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+
+/**
+ * Timestamp-heavy payloads through {@link JSONUtil}'s Gson, with the streaming
+ * date adapters and the generated DTO adapters, against the previous
+ * configuration of tree-based date adapters and reflective DTOs. Run with the
+ * gc profiler for the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonAdapterBenchmark {
+
+    public static class Event {
+        long id;
+        String kind;
+        LocalDateTime at;
+        boolean acknowledged;
+    }
+
+    public static class Shipment {
+        long id;
+        String carrier;
+        LocalDate due;
+        LocalDateTime created;
+        LocalDateTime updated;
+        BigDecimal weight;
+        int parcels;
+        List<Event> events;
+    }
+
+    /**
+     * Registers the DTOs, so they get generated adapters.
+     */
+    @Path("/shipments")
+    public static class ShipmentService {
+        @GET
+        public List<Shipment> list() {
+            return List.of();
+        }
+
+        @POST
+        public Shipment save(Shipment shipment) {
+            return shipment;
+        }
+    }
+
+    static class TreeLocalDate implements JsonSerializer<LocalDate>, JsonDeserializer<LocalDate> {
+        @Override
+        public JsonElement serialize(LocalDate src, Type type, JsonSerializationContext context) {
+            return new JsonPrimitive(src.format(DateTimeFormatter.ISO_DATE));
+        }
+
+        @Override
+        public LocalDate deserialize(JsonElement json, Type type, JsonDeserializationContext context) {
+            return LocalDate.parse(json.getAsString(), DateTimeFormatter.ISO_DATE);
+        }
+    }
+
+    static class TreeLocalDateTime implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
+        @Override
+        public JsonElement serialize(LocalDateTime src, Type type, JsonSerializationContext context) {
+            return new JsonPrimitive(DateTimeFormatter.ISO_DATE_TIME.format(src));
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonElement json, Type type, JsonDeserializationContext context) {
+            return LocalDateTime.parse(json.getAsString(), DateTimeFormatter.ISO_DATE_TIME);
+        }
+    }
+
+    private static final Type LIST = new TypeToken<List<Shipment>>() {
+    }.getType();
+
+    @Param({ "previous", "current" })
+    public String config;
+
+    private Gson gson;
+    private Shipment small;
+    private List<Shipment> large;
+    private String smallJson;
+    private String largeJson;
+
+    @Setup
+    public void setup() {
+        gson = "current".equals(config)
+                ? JSONUtil.gson()
+                : new GsonBuilder()
+                        .registerTypeAdapter(LocalDate.class, new TreeLocalDate())
+                        .registerTypeAdapter(LocalDateTime.class, new TreeLocalDateTime())
+                        .create();
+        small = shipment(1);
+        large = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            large.add(shipment(i));
+        }
+        smallJson = gson.toJson(small);
+        largeJson = gson.toJson(large, LIST);
+        if (!smallJson.equals(JSONUtil.toJson(small)) || !largeJson.equals(JSONUtil.toJson(large))) {
+            throw new IllegalStateException("Configurations disagree");
+        }
+    }
+
+    static Shipment shipment(long id) {
+        var base = LocalDateTime.of(2024, 3, 1, 8, 0).plusMinutes(id * 7);
+        var s = new Shipment();
+        s.id = id;
+        s.carrier = "carrier-" + id % 5;
+        s.due = base.toLocalDate().plusDays(3);
+        s.created = base;
+        s.updated = base.plusSeconds(id * 13).plusNanos(id * 1_000_000);
+        s.weight = new BigDecimal("12.500").add(BigDecimal.valueOf(id, 2));
+        s.parcels = (int) (id % 4) + 1;
+        s.events = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            var e = new Event();
+            e.id = id * 10 + i;
+            e.kind = i % 2 == 0 ? "scan" : "transit";
+            e.at = base.plusMinutes(i * 45L).plusNanos(i * 123_000L);
+            e.acknowledged = i % 3 == 0;
+            s.events.add(e);
+        }
+        return s;
+    }
+
+    @Benchmark
+    public void writeSmall() {
+        gson.toJson(small, Shipment.class, Writer.nullWriter());
+    }
+
+    @Benchmark
+    public void writeLarge() {
+        gson.toJson(large, LIST, Writer.nullWriter());
+    }
+
+    @Benchmark
+    public Shipment readSmall() {
+        return gson.fromJson(smallJson, Shipment.class);
+    }
+
+    @Benchmark
+    public List<Shipment> readLarge() {
+        return gson.fromJson(largeJson, LIST);
+    }
+}
@@ -0,0 +1,122 @@
+package com.pocdemo.http.config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON serialization of small and large payloads and the date adapters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    public static class Line {
+        String sku;
+        int quantity;
+        BigDecimal price;
+    }
+
+    public static class Order {
+        long id;
+        String customer;
+        LocalDate date;
+        BigDecimal total;
+        List<Line> lines;
+    }
+
+    public static class Dates {
+        LocalDate date;
+        LocalDateTime timestamp;
+    }
+
+    private static final OutputStream NULL = OutputStream.nullOutputStream();
+
+    private Order small;
+    private List<Order> large;
+    private String smallJson;
+    private Dates dates;
+    private String datesJson;
+
+    @Setup
+    public void setup() {
+        small = order(1);
+        large = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            large.add(order(i));
+        }
+        smallJson = JSONUtil.toJson(small);
+        dates = new Dates();
+        dates.date = LocalDate.of(2024, 3, 1);
+        dates.timestamp = LocalDateTime.of(2024, 3, 1, 12, 34, 56);
+        datesJson = JSONUtil.toJson(dates);
+    }
+
+    static Order order(long id) {
+        var o = new Order();
+        o.id = id;
+        o.customer = "customer-" + id;
+        o.date = LocalDate.of(2024, 1, 1).plusDays(id % 365);
+        o.lines = new ArrayList<>();
+        o.total = BigDecimal.ZERO;
+        for (int i = 0; i < 3; i++) {
+            var l = new Line();
+            l.sku = "SKU-" + id + "-" + i;
+            l.quantity = i + 1;
+            l.price = new BigDecimal("9.95");
+            o.lines.add(l);
+            o.total = o.total.add(l.price.multiply(BigDecimal.valueOf(l.quantity)));
+        }
+        return o;
+    }
+
+    @Benchmark
+    public void writeSmall() throws IOException {
+        JSONUtil.toJson(small, NULL);
+    }
+
+    @Benchmark
+    public void writeLarge() throws IOException {
+        JSONUtil.toJson(large, NULL);
+    }
+
+    @Benchmark
+    public void writeLargeRows() throws IOException {
+        JSONUtil.toJsonArray(large.iterator(), NULL);
+    }
+
+    @Benchmark
+    public Order readSmall() {
+        return JSONUtil.fromJson(smallJson, Order.class);
+    }
+
+    @Benchmark
+    public String writeDates() {
+        return JSONUtil.toJson(dates);
+    }
+
+    @Benchmark
+    public Dates readDates() {
+        return JSONUtil.fromJson(datesJson, Dates.class);
+    }
+}
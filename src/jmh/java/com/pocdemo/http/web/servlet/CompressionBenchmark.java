@@ -0,0 +1,82 @@
+package com.pocdemo.http.web.servlet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jakarta.servlet.ServletException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+
+/**
+ * CPU cost of response compression against the bytes it saves, for a list
+ * endpoint. Level 0 is the uncompressed reference; the compressed size of each
+ * configuration is printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+	@Path("/bench")
+	public static class ListService {
+		@GET
+		@Path("/list")
+		public List<Map<String, Object>> list(@QueryParam("n") Integer n) {
+			List<Map<String, Object>> rows = new ArrayList<>(n);
+			for (int i = 0; i < n; i++) {
+				rows.add(Map.of("id", i, "name", "customer-" + i, "city", i % 2 == 0 ? "Lisbon" : "Porto",
+						"balance", i * 17.25));
+			}
+			return rows;
+		}
+	}
+
+	@Param({ "0", "1", "4", "6", "9" })
+	public int level;
+
+	@Param({ "100", "5000" })
+	public int rows;
+
+	@Param({ "gzip" })
+	public String coding;
+
+	private RPCServiceDispatcherServlet servlet;
+	private FakeRequest request;
+	private final FakeResponse response = new FakeResponse();
+
+	@Setup
+	public void setup() throws ServletException {
+		servlet = new RPCServiceDispatcherServlet(Set.of(new ListService()));
+		if (level > 0) {
+			servlet.setCompression(new ResponseCompression(1024, level, ResponseCompression.DEFAULT_EXCLUDED_TYPES));
+		}
+		request = new FakeRequest("GET", "/bench/list?n=" + rows).header(HttpHeaders.ACCEPT_ENCODING, coding);
+		System.out.printf("%n%s level %d, %d rows: %d bytes%n", coding, level, rows, dispatch());
+	}
+
+	@Benchmark
+	public long dispatch() throws ServletException {
+		servlet.service(request.reset(), response.clear());
+		return response.written();
+	}
+}
@@ -0,0 +1,59 @@
+package com.pocdemo.http.web.servlet;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of query, path and header values to parameter types.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+	private String number = "123456";
+	private String decimal = "98765.4321";
+	private String date = "2024-03-01";
+	private String dateTime = "2024-03-01T12:34:56";
+	private Class<?> type = LocalDateTime.class;
+
+	@Benchmark
+	public Integer castInteger() {
+		return RPCServiceDispatcherServlet.cast(number, Integer.class);
+	}
+
+	@Benchmark
+	public BigDecimal castBigDecimal() {
+		return RPCServiceDispatcherServlet.cast(decimal, BigDecimal.class);
+	}
+
+	@Benchmark
+	public LocalDate castLocalDate() {
+		return RPCServiceDispatcherServlet.cast(date, LocalDate.class);
+	}
+
+	@Benchmark
+	public LocalDateTime castLocalDateTime() {
+		return RPCServiceDispatcherServlet.cast(dateTime, LocalDateTime.class);
+	}
+
+	@Benchmark
+	public Boolean isBasicType() {
+		return RPCServiceDispatcherServlet.isBasicType(type);
+	}
+}
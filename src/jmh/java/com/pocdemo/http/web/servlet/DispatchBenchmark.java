@@ -0,0 +1,133 @@
+package com.pocdemo.http.web.servlet;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jakarta.servlet.ServletException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Full in-memory dispatch, from route lookup to the serialized response, for
+ * each way the dispatcher reads its arguments.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+	public static class Form {
+		public String name;
+		public Integer quantity;
+		public BigDecimal price;
+		public LocalDate date;
+	}
+
+	@Path("/bench")
+	public static class BenchService {
+		@GET
+		@Path("/add")
+		public Integer add(@QueryParam("a") Integer a, @QueryParam("b") Integer b) {
+			return a + b;
+		}
+
+		@GET
+		@Path("/orders/{id}")
+		public Long order(@PathParam("id") Long id) {
+			return id;
+		}
+
+		@POST
+		@Path("/text")
+		@Produces(MediaType.TEXT_PLAIN)
+		public String text(String body) {
+			return body;
+		}
+
+		@POST
+		@Path("/form")
+		public Form form(Form form) {
+			return form;
+		}
+	}
+
+	private RPCServiceDispatcherServlet servlet;
+	private FakeRequest query;
+	private FakeRequest path;
+	private FakeRequest text;
+	private FakeRequest json;
+	private FakeRequest form;
+	private FakeRequest multipart;
+	private final FakeResponse response = new FakeResponse();
+
+	@Setup
+	public void setup() {
+		servlet = new RPCServiceDispatcherServlet(Set.of(new BenchService()));
+		query = new FakeRequest("GET", "/bench/add?a=1&b=2");
+		path = new FakeRequest("GET", "/bench/orders/42");
+		text = new FakeRequest("POST", "/bench/text").body(MediaType.TEXT_PLAIN, "hello dispatcher");
+		json = new FakeRequest("POST", "/bench/form").body(MediaType.APPLICATION_JSON,
+				"{\"name\":\"widget\",\"quantity\":3,\"price\":9.95,\"date\":\"2024-03-01\"}");
+		form = new FakeRequest("POST", "/bench/form").body(MediaType.APPLICATION_FORM_URLENCODED, "")
+				.parameter("name", "widget").parameter("quantity", "3").parameter("price", "9.95")
+				.parameter("date", "2024-03-01");
+		multipart = new FakeRequest("POST", "/bench/form").part("name", "widget").part("quantity", "3")
+				.part("price", "9.95").part("date", "2024-03-01");
+	}
+
+	private long dispatch(FakeRequest rq) throws ServletException {
+		servlet.service(rq.reset(), response.clear());
+		return response.written();
+	}
+
+	@Benchmark
+	public long queryParams() throws ServletException {
+		return dispatch(query);
+	}
+
+	@Benchmark
+	public long pathParam() throws ServletException {
+		return dispatch(path);
+	}
+
+	@Benchmark
+	public long textBody() throws ServletException {
+		return dispatch(text);
+	}
+
+	@Benchmark
+	public long jsonBody() throws ServletException {
+		return dispatch(json);
+	}
+
+	@Benchmark
+	public long formBody() throws ServletException {
+		return dispatch(form);
+	}
+
+	@Benchmark
+	public long multipartBody() throws ServletException {
+		return dispatch(multipart);
+	}
+}
@@ -0,0 +1,69 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+
+import jakarta.servlet.http.Part;
+
+final class FakePart implements Part {
+
+	private final String name;
+	private final byte[] content;
+
+	FakePart(String name, byte[] content) {
+		this.name = name;
+		this.content = content;
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return new ByteArrayInputStream(content);
+	}
+
+	@Override
+	public String getContentType() {
+		return null;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public String getSubmittedFileName() {
+		return null;
+	}
+
+	@Override
+	public long getSize() {
+		return content.length;
+	}
+
+	@Override
+	public void write(String fileName) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void delete() {
+		// nothing stored
+	}
+
+	@Override
+	public String getHeader(String name) {
+		return null;
+	}
+
+	@Override
+	public Collection<String> getHeaders(String name) {
+		return List.of();
+	}
+
+	@Override
+	public Collection<String> getHeaderNames() {
+		return List.of();
+	}
+}
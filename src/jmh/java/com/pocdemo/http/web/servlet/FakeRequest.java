@@ -0,0 +1,479 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletConnection;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpUpgradeHandler;
+import jakarta.servlet.http.Part;
+
+/**
+ * In-memory request for benchmarks: just what the dispatcher reads. The body
+ * can be read again after {@link #reset()}.
+ */
+final class FakeRequest implements HttpServletRequest {
+
+	private final String method;
+	private final String uri;
+	private final Map<String, String> headers = new HashMap<>();
+	private final Map<String, String[]> parameters = new HashMap<>();
+	private final Map<String, Object> attributes = new HashMap<>();
+	private final List<Part> parts = new ArrayList<>();
+	private byte[] body = new byte[0];
+	private String contentType;
+	private Body stream;
+
+	FakeRequest(String method, String uri) {
+		this.method = method;
+		this.uri = uri;
+		int q = uri.indexOf('?');
+		if (q >= 0) {
+			for (var pair : uri.substring(q + 1).split("&")) {
+				int eq = pair.indexOf('=');
+				parameters.put(pair.substring(0, eq), new String[] { pair.substring(eq + 1) });
+			}
+		}
+	}
+
+	FakeRequest header(String name, String value) {
+		headers.put(name.toLowerCase(Locale.ROOT), value);
+		return this;
+	}
+
+	FakeRequest parameter(String name, String value) {
+		parameters.put(name, new String[] { value });
+		return this;
+	}
+
+	FakeRequest body(String contentType, String body) {
+		this.contentType = contentType;
+		this.body = body.getBytes(StandardCharsets.UTF_8);
+		return this;
+	}
+
+	FakeRequest part(String name, String value) {
+		contentType = "multipart/form-data";
+		parts.add(new FakePart(name, value.getBytes(StandardCharsets.UTF_8)));
+		return this;
+	}
+
+	FakeRequest reset() {
+		stream = null;
+		attributes.clear();
+		return this;
+	}
+
+	private static final class Body extends ServletInputStream {
+		private final ByteArrayInputStream in;
+
+		Body(byte[] bytes) {
+			in = new ByteArrayInputStream(bytes);
+		}
+
+		@Override
+		public int read() {
+			return in.read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			return in.read(b, off, len);
+		}
+
+		@Override
+		public boolean isFinished() {
+			return in.available() == 0;
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	@Override
+	public ServletInputStream getInputStream() {
+		if (null == stream) {
+			stream = new Body(body);
+		}
+		return stream;
+	}
+
+	@Override
+	public BufferedReader getReader() {
+		return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public String getMethod() {
+		return method;
+	}
+
+	@Override
+	public String getRequestURI() {
+		int q = uri.indexOf('?');
+		return q >= 0 ? uri.substring(0, q) : uri;
+	}
+
+	@Override
+	public String getQueryString() {
+		int q = uri.indexOf('?');
+		return q >= 0 ? uri.substring(q + 1) : null;
+	}
+
+	@Override
+	public StringBuffer getRequestURL() {
+		return new StringBuffer("http://localhost").append(getRequestURI());
+	}
+
+	@Override
+	public String getContextPath() {
+		return "";
+	}
+
+	@Override
+	public String getServletPath() {
+		return "";
+	}
+
+	@Override
+	public String getPathInfo() {
+		return getRequestURI();
+	}
+
+	@Override
+	public String getPathTranslated() {
+		return null;
+	}
+
+	@Override
+	public String getHeader(String name) {
+		return headers.get(name.toLowerCase(Locale.ROOT));
+	}
+
+	@Override
+	public Enumeration<String> getHeaders(String name) {
+		var value = getHeader(name);
+		return Collections.enumeration(null != value ? List.of(value) : List.of());
+	}
+
+	@Override
+	public Enumeration<String> getHeaderNames() {
+		return Collections.enumeration(headers.keySet());
+	}
+
+	@Override
+	public long getDateHeader(String name) {
+		return -1;
+	}
+
+	@Override
+	public int getIntHeader(String name) {
+		var value = getHeader(name);
+		return null != value ? Integer.parseInt(value) : -1;
+	}
+
+	@Override
+	public String getParameter(String name) {
+		var values = parameters.get(name);
+		return null != values ? values[0] : null;
+	}
+
+	@Override
+	public Enumeration<String> getParameterNames() {
+		return Collections.enumeration(parameters.keySet());
+	}
+
+	@Override
+	public String[] getParameterValues(String name) {
+		return parameters.get(name);
+	}
+
+	@Override
+	public Map<String, String[]> getParameterMap() {
+		return parameters;
+	}
+
+	@Override
+	public Collection<Part> getParts() {
+		return parts;
+	}
+
+	@Override
+	public Part getPart(String name) {
+		return parts.stream().filter(p -> p.getName().equals(name)).findFirst().orElse(null);
+	}
+
+	@Override
+	public String getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public int getContentLength() {
+		return body.length;
+	}
+
+	@Override
+	public long getContentLengthLong() {
+		return body.length;
+	}
+
+	@Override
+	public String getCharacterEncoding() {
+		return StandardCharsets.UTF_8.name();
+	}
+
+	@Override
+	public void setCharacterEncoding(String env) {
+		// always UTF-8
+	}
+
+	@Override
+	public Object getAttribute(String name) {
+		return attributes.get(name);
+	}
+
+	@Override
+	public Enumeration<String> getAttributeNames() {
+		return Collections.enumeration(attributes.keySet());
+	}
+
+	@Override
+	public void setAttribute(String name, Object o) {
+		attributes.put(name, o);
+	}
+
+	@Override
+	public void removeAttribute(String name) {
+		attributes.remove(name);
+	}
+
+	@Override
+	public boolean isAsyncStarted() {
+		return false;
+	}
+
+	@Override
+	public boolean isAsyncSupported() {
+		return false;
+	}
+
+	@Override
+	public AsyncContext startAsync() {
+		throw new IllegalStateException("Not supported by the fake request");
+	}
+
+	@Override
+	public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+		throw new IllegalStateException("Not supported by the fake request");
+	}
+
+	@Override
+	public AsyncContext getAsyncContext() {
+		throw new IllegalStateException("Not supported by the fake request");
+	}
+
+	@Override
+	public DispatcherType getDispatcherType() {
+		return DispatcherType.REQUEST;
+	}
+
+	@Override
+	public String getProtocol() {
+		return "HTTP/1.1";
+	}
+
+	@Override
+	public String getScheme() {
+		return "http";
+	}
+
+	@Override
+	public String getServerName() {
+		return "localhost";
+	}
+
+	@Override
+	public int getServerPort() {
+		return 8080;
+	}
+
+	@Override
+	public String getRemoteAddr() {
+		return "127.0.0.1";
+	}
+
+	@Override
+	public String getRemoteHost() {
+		return "localhost";
+	}
+
+	@Override
+	public int getRemotePort() {
+		return 50000;
+	}
+
+	@Override
+	public String getLocalName() {
+		return "localhost";
+	}
+
+	@Override
+	public String getLocalAddr() {
+		return "127.0.0.1";
+	}
+
+	@Override
+	public int getLocalPort() {
+		return 8080;
+	}
+
+	@Override
+	public Locale getLocale() {
+		return Locale.ROOT;
+	}
+
+	@Override
+	public Enumeration<Locale> getLocales() {
+		return Collections.enumeration(List.of(Locale.ROOT));
+	}
+
+	@Override
+	public boolean isSecure() {
+		return false;
+	}
+
+	@Override
+	public RequestDispatcher getRequestDispatcher(String path) {
+		return null;
+	}
+
+	@Override
+	public ServletContext getServletContext() {
+		return null;
+	}
+
+	@Override
+	public String getRequestId() {
+		return "0";
+	}
+
+	@Override
+	public String getProtocolRequestId() {
+		return "";
+	}
+
+	@Override
+	public ServletConnection getServletConnection() {
+		return null;
+	}
+
+	@Override
+	public String getAuthType() {
+		return null;
+	}
+
+	@Override
+	public Cookie[] getCookies() {
+		return new Cookie[0];
+	}
+
+	@Override
+	public String getRemoteUser() {
+		return null;
+	}
+
+	@Override
+	public boolean isUserInRole(String role) {
+		return false;
+	}
+
+	@Override
+	public Principal getUserPrincipal() {
+		return null;
+	}
+
+	@Override
+	public String getRequestedSessionId() {
+		return null;
+	}
+
+	@Override
+	public HttpSession getSession(boolean create) {
+		return null;
+	}
+
+	@Override
+	public HttpSession getSession() {
+		return null;
+	}
+
+	@Override
+	public String changeSessionId() {
+		throw new IllegalStateException("No session");
+	}
+
+	@Override
+	public boolean isRequestedSessionIdValid() {
+		return false;
+	}
+
+	@Override
+	public boolean isRequestedSessionIdFromCookie() {
+		return false;
+	}
+
+	@Override
+	public boolean isRequestedSessionIdFromURL() {
+		return false;
+	}
+
+	@Override
+	public boolean authenticate(HttpServletResponse response) {
+		return false;
+	}
+
+	@Override
+	public void login(String username, String password) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void logout() {
+		// no session
+	}
+
+	@Override
+	public <T extends HttpUpgradeHandler> T upgrade(Class<T> handlerClass) {
+		throw new UnsupportedOperationException();
+	}
+}
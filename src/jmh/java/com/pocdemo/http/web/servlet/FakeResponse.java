@@ -0,0 +1,271 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Response that counts the bytes written and drops them, so that benchmarks
+ * measure serialization rather than buffering. A {@link #capturing()} response
+ * keeps them for checks.
+ */
+final class FakeResponse implements HttpServletResponse {
+
+	private final Map<String, String> headers = new HashMap<>();
+	private final Sink sink = new Sink();
+	private int status = SC_OK;
+	private String contentType;
+	private String characterEncoding;
+	private PrintWriter writer;
+
+	static final class Sink extends ServletOutputStream {
+		long written;
+		ByteArrayOutputStream copy;
+
+		@Override
+		public void write(int b) {
+			written++;
+			if (null != copy) {
+				copy.write(b);
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			written += len;
+			if (null != copy) {
+				copy.write(b, off, len);
+			}
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	FakeResponse clear() {
+		headers.clear();
+		status = SC_OK;
+		contentType = null;
+		characterEncoding = null;
+		writer = null;
+		sink.written = 0;
+		if (null != sink.copy) {
+			sink.copy.reset();
+		}
+		return this;
+	}
+
+	FakeResponse capturing() {
+		sink.copy = new ByteArrayOutputStream();
+		return this;
+	}
+
+	long written() {
+		return sink.written;
+	}
+
+	/**
+	 * @return what was written since {@link #clear()}, if capturing
+	 */
+	String body() {
+		if (null != writer) {
+			writer.flush();
+		}
+		return sink.copy.toString(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() {
+		return sink;
+	}
+
+	@Override
+	public PrintWriter getWriter() {
+		if (null == writer) {
+			writer = new PrintWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8));
+		}
+		return writer;
+	}
+
+	@Override
+	public void setStatus(int sc) {
+		status = sc;
+	}
+
+	@Override
+	public int getStatus() {
+		return status;
+	}
+
+	@Override
+	public void sendError(int sc, String msg) {
+		status = sc;
+	}
+
+	@Override
+	public void sendError(int sc) {
+		status = sc;
+	}
+
+	@Override
+	public void sendRedirect(String location) {
+		status = SC_FOUND;
+		headers.put("location", location);
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		headers.put(name.toLowerCase(Locale.ROOT), value);
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		headers.merge(name.toLowerCase(Locale.ROOT), value, (a, b) -> a + ", " + b);
+	}
+
+	@Override
+	public void setIntHeader(String name, int value) {
+		setHeader(name, Integer.toString(value));
+	}
+
+	@Override
+	public void addIntHeader(String name, int value) {
+		addHeader(name, Integer.toString(value));
+	}
+
+	@Override
+	public void setDateHeader(String name, long date) {
+		setHeader(name, Long.toString(date));
+	}
+
+	@Override
+	public void addDateHeader(String name, long date) {
+		addHeader(name, Long.toString(date));
+	}
+
+	@Override
+	public boolean containsHeader(String name) {
+		return headers.containsKey(name.toLowerCase(Locale.ROOT));
+	}
+
+	@Override
+	public String getHeader(String name) {
+		return headers.get(name.toLowerCase(Locale.ROOT));
+	}
+
+	@Override
+	public Collection<String> getHeaders(String name) {
+		var value = getHeader(name);
+		return null != value ? List.of(value) : List.of();
+	}
+
+	@Override
+	public Collection<String> getHeaderNames() {
+		return headers.keySet();
+	}
+
+	@Override
+	public void addCookie(Cookie cookie) {
+		// ignored
+	}
+
+	@Override
+	public String encodeURL(String url) {
+		return url;
+	}
+
+	@Override
+	public String encodeRedirectURL(String url) {
+		return url;
+	}
+
+	@Override
+	public String getCharacterEncoding() {
+		return null != characterEncoding ? characterEncoding : StandardCharsets.ISO_8859_1.name();
+	}
+
+	@Override
+	public void setCharacterEncoding(String charset) {
+		characterEncoding = charset;
+	}
+
+	@Override
+	public String getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public void setContentType(String type) {
+		contentType = type;
+	}
+
+	@Override
+	public void setContentLength(int len) {
+		setContentLengthLong(len);
+	}
+
+	@Override
+	public void setContentLengthLong(long len) {
+		setHeader("content-length", Long.toString(len));
+	}
+
+	@Override
+	public void setBufferSize(int size) {
+		// unbuffered
+	}
+
+	@Override
+	public int getBufferSize() {
+		return 0;
+	}
+
+	@Override
+	public void flushBuffer() {
+		if (null != writer) {
+			writer.flush();
+		}
+	}
+
+	@Override
+	public void resetBuffer() {
+		sink.written = 0;
+	}
+
+	@Override
+	public boolean isCommitted() {
+		return sink.written > 0;
+	}
+
+	@Override
+	public void reset() {
+		clear();
+	}
+
+	@Override
+	public void setLocale(Locale loc) {
+		// ignored
+	}
+
+	@Override
+	public Locale getLocale() {
+		return Locale.ROOT;
+	}
+}
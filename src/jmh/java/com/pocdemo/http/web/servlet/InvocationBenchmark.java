@@ -0,0 +1,109 @@
+package com.pocdemo.http.web.servlet;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jakarta.servlet.ServletException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Route invocation: the compiled MethodHandle invoker against
+ * {@link Method#invoke}, each with a fresh argument frame, and a stress run of
+ * 256 threads dispatching through one servlet in which every caller checks
+ * that its response echoes its own arguments. A frame shared between requests
+ * fails that run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvocationBenchmark {
+
+	@Path("/bench")
+	public static class BenchService {
+		@GET
+		@Path("/add")
+		public Integer add(@QueryParam("a") Integer a, @QueryParam("b") Integer b) {
+			return a + b;
+		}
+
+		@GET
+		@Path("/echo")
+		@Produces(MediaType.TEXT_PLAIN)
+		public String echo(@QueryParam("caller") Integer caller, @QueryParam("seq") Long seq,
+				@QueryParam("tag") String tag) {
+			return caller + ":" + seq + ":" + tag;
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Caller {
+		private static final AtomicInteger ids = new AtomicInteger();
+
+		final int id = ids.incrementAndGet();
+		final FakeRequest request = new FakeRequest("GET", "/bench/echo");
+		final FakeResponse response = new FakeResponse().capturing();
+		Integer a = id;
+		Integer b = 7;
+		long seq;
+	}
+
+	private final BenchService service = new BenchService();
+	private RPCServiceDispatcherServlet servlet;
+	private Method add;
+	private Function<Object[], Object> compiled;
+
+	@Setup
+	public void setup() throws NoSuchMethodException {
+		servlet = new RPCServiceDispatcherServlet(Set.of(service));
+		add = BenchService.class.getMethod("add", Integer.class, Integer.class);
+		compiled = RPCServiceDispatcherServlet.createMethodInvokerFn(service, add);
+	}
+
+	@Benchmark
+	public Object reflective(Caller c) throws ReflectiveOperationException {
+		return add.invoke(service, new Object[] { c.a, c.b });
+	}
+
+	@Benchmark
+	public Object compiled(Caller c) {
+		return compiled.apply(new Object[] { c.a, c.b });
+	}
+
+	@Benchmark
+	@Threads(256)
+	public long concurrentDispatch(Caller c) throws ServletException {
+		long seq = ++c.seq;
+		var tag = Long.toString(seq * 31 + c.id, 36);
+		c.request.parameter("caller", Integer.toString(c.id)).parameter("seq", Long.toString(seq))
+				.parameter("tag", tag);
+		servlet.service(c.request.reset(), c.response.clear());
+		var expected = c.id + ":" + seq + ":" + tag;
+		var actual = c.response.body().strip();
+		if (!expected.equals(actual)) {
+			throw new IllegalStateException("Caller " + c.id + " expected " + expected + " but got " + actual);
+		}
+		return c.response.written();
+	}
+}
@@ -0,0 +1,102 @@
+package com.pocdemo.http.web.servlet;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pocdemo.http.config.JSONUtil;
+
+import jakarta.servlet.ServletException;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Allocation per JSON response of a list of orders, a few hundred KB to a few
+ * MB of text: dispatched through the servlet, which streams into the output
+ * stream, against the former path that built the JSON String and wrote it
+ * through the response writer. Run with {@code -prof gc}, the default of the
+ * jmh profile; {@code gc.alloc.rate.norm} is the bytes allocated per response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseAllocationBenchmark {
+
+	public static class Order {
+		long id;
+		String customer;
+		LocalDate date;
+		BigDecimal total;
+		String status;
+	}
+
+	@Path("/bench")
+	public static class BenchService {
+		List<Order> orders;
+
+		@GET
+		@Path("/orders")
+		public List<Order> orders() {
+			return orders;
+		}
+	}
+
+	@Param({ "2000", "20000" })
+	public int orders;
+
+	private final BenchService service = new BenchService();
+	private RPCServiceDispatcherServlet servlet;
+	private final FakeRequest request = new FakeRequest("GET", "/bench/orders");
+	private final FakeResponse response = new FakeResponse();
+
+	@Setup
+	public void setup() {
+		service.orders = new ArrayList<>(orders);
+		for (int i = 0; i < orders; i++) {
+			var o = new Order();
+			o.id = i;
+			o.customer = "customer-" + i;
+			o.date = LocalDate.of(2024, 1, 1).plusDays(i % 365);
+			o.total = BigDecimal.valueOf(1995 + i, 2);
+			o.status = i % 3 == 0 ? "shipped" : "open";
+			service.orders.add(o);
+		}
+		servlet = new RPCServiceDispatcherServlet(Set.of(service));
+	}
+
+	@Benchmark
+	public long streamed() throws ServletException {
+		servlet.service(request.reset(), response.clear());
+		return response.written();
+	}
+
+	@Benchmark
+	public long buffered() {
+		var rs = response.clear();
+		rs.setContentType(MediaType.APPLICATION_JSON);
+		var json = JSONUtil.toJson(service.orders());
+		try (var w = rs.getWriter()) {
+			w.write(json);
+		}
+		return rs.written();
+	}
+}
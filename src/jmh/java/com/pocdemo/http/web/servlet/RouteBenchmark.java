@@ -0,0 +1,95 @@
+package com.pocdemo.http.web.servlet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pocdemo.http.web.servlet.RPCServiceDispatcherServlet.ActionKey;
+
+/**
+ * Route lookup with a few thousand registered routes, {@code /svcN/resM},
+ * {@code /svcN/resM/{id}} and {@code /svcN/resM/{id}/items}, for a rotating
+ * set of request URIs: {@link RouteTrie} against the former split of the
+ * first two segments into an {@link ActionKey} for a HashMap, which could only
+ * resolve the literal routes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteBenchmark {
+
+	@Param({ "3000" })
+	public int routes;
+
+	private final RouteTrie<Integer> trie = new RouteTrie<>();
+	private final Map<ActionKey, Integer> byKey = new HashMap<>();
+	private final String[] literals = new String[1024];
+	private final String[] templates = new String[1024];
+	private final String[] misses = new String[1024];
+	private int next;
+
+	@Setup
+	public void setup() {
+		int resources = routes / 3;
+		for (int i = 0; i < resources; i++) {
+			var base = "/svc" + i % 50 + "/res" + i;
+			trie.computeIfAbsent(base, () -> 1);
+			trie.computeIfAbsent(base + "/{id}", () -> 2);
+			trie.computeIfAbsent(base + "/{id}/items", () -> 3);
+			byKey.put(new ActionKey(base, "GET"), 1);
+		}
+		var random = new Random(42);
+		for (int i = 0; i < literals.length; i++) {
+			int res = random.nextInt(resources);
+			var base = "/svc" + res % 50 + "/res" + res;
+			literals[i] = base;
+			templates[i] = base + "/" + random.nextInt(1_000_000) + "/items";
+			misses[i] = base + "x/" + random.nextInt(1_000_000);
+		}
+	}
+
+	private int next() {
+		return next++ & 1023;
+	}
+
+	@Benchmark
+	public Integer trieLiteral() {
+		return trie.find(literals[next()], 0);
+	}
+
+	@Benchmark
+	public Integer trieTemplate() {
+		return trie.find(templates[next()], 0);
+	}
+
+	@Benchmark
+	public Integer trieMiss() {
+		return trie.find(misses[next()], 0);
+	}
+
+	@Benchmark
+	public Integer splitLiteral() {
+		var toks = literals[next()].split("\\/");
+		var servicePath = "/" + toks[1];
+		if (toks.length > 2) {
+			servicePath += "/" + toks[2];
+		}
+		return byKey.get(new ActionKey(servicePath, "GET"));
+	}
+}
@@ -0,0 +1,75 @@
+package com.pocdemo.jdbc.orm;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Small writes from 16 concurrent callers against a {@link StubDriver} with a
+ * 1ms commit and 100us round trips, through a pool of 4 connections: each
+ * statement in its own auto-committed transaction, against
+ * {@link BatchingExecutor} sharing one executeBatch and commit per window.
+ * Every iteration checks that nothing was left open.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class BatchingExecutorBenchmark {
+
+    private static final String URL = StubDriver.PREFIX + "executeMicros=100;commitMicros=1000";
+
+    private static final String SQL = "insert into audit_log (order_id, action) values (?, ?)";
+
+    private ConnectionPool pool;
+
+    private BatchingExecutor executor;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        StubDriver.register();
+        StubDriver.resetCounters();
+        pool = new ConnectionPool(URL, "bench", "bench", 4);
+        executor = new BatchingExecutor(pool, 500, 64);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        executor.close();
+        pool.close();
+        if (StubDriver.openConnections() != 0 || StubDriver.openStatements() != 0) {
+            throw new IllegalStateException(StubDriver.openConnections() + " connections and "
+                    + StubDriver.openStatements() + " statements left open");
+        }
+    }
+
+    @Benchmark
+    public int autoCommit() throws SQLException {
+        try (var c = pool.getConnection(); var ps = c.prepareStatement(SQL)) {
+            ps.setLong(1, 42);
+            ps.setString(2, "shipped");
+            return ps.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public int groupCommit() {
+        return executor.submit(SQL, 42L, "shipped").join();
+    }
+}
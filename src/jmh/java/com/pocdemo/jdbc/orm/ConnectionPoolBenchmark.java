@@ -0,0 +1,81 @@
+package com.pocdemo.jdbc.orm;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One statement per request against a {@link StubDriver} that takes 2ms to
+ * connect and 50us per round trip: a new DriverManager connection per call,
+ * as ORMHelper used to open, against a {@link ConnectionPool} lease with its
+ * cached prepared statement. Every iteration checks that nothing was left
+ * open.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConnectionPoolBenchmark {
+
+    private static final String URL = StubDriver.PREFIX + "connectMicros=2000;executeMicros=50";
+
+    private static final String SQL = "update orders set status = ? where id = ?";
+
+    private ConnectionPool pool;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        StubDriver.register();
+        StubDriver.resetCounters();
+        pool = new ConnectionPool(URL, "bench", "bench", 4);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        pool.close();
+        if (StubDriver.openConnections() != 0 || StubDriver.openStatements() != 0) {
+            throw new IllegalStateException(StubDriver.openConnections() + " connections and "
+                    + StubDriver.openStatements() + " statements left open");
+        }
+    }
+
+    @Benchmark
+    public int driverManager() throws SQLException {
+        try (var c = DriverManager.getConnection(URL, "bench", "bench")) {
+            return update(c);
+        }
+    }
+
+    @Benchmark
+    public int pooled() throws SQLException {
+        try (var c = pool.getConnection()) {
+            return update(c);
+        }
+    }
+
+    private static int update(Connection c) throws SQLException {
+        try (var ps = c.prepareStatement(SQL)) {
+            ps.setString(1, "shipped");
+            ps.setLong(2, 42);
+            return ps.executeUpdate();
+        }
+    }
+}
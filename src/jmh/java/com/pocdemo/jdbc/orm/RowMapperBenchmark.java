@@ -0,0 +1,116 @@
+package com.pocdemo.jdbc.orm;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Maps 1000 rows of the {@link StubDriver} query columns per operation: with
+ * {@link BeanRowMapper} into a class and into a record, against naive
+ * reflection that looks up each column's field by name and sets it with
+ * {@link Field#set} on every row. The stub driver has no latency, so the
+ * difference is the mapping.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    public static class Order {
+        Long id;
+        String customerName;
+        BigDecimal amount;
+        LocalDate createdOn;
+        LocalDateTime updatedAt;
+        Boolean active;
+        Integer quantity;
+        String note;
+    }
+
+    public record OrderRecord(long id, String customerName, BigDecimal amount, LocalDate createdOn,
+            LocalDateTime updatedAt, boolean active, int quantity, String note) {
+    }
+
+    private static final String SQL = "select * from orders";
+
+    private Connection connection;
+
+    @Setup
+    public void setup() throws SQLException {
+        StubDriver.register();
+        connection = DriverManager.getConnection(StubDriver.PREFIX + "rows=1000", "bench", "bench");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void beanRowMapper(Blackhole bh) throws SQLException {
+        var mapper = BeanRowMapper.of(Order.class);
+        try (var ps = connection.prepareStatement(SQL); var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(mapper.map(rs));
+            }
+        }
+    }
+
+    @Benchmark
+    public void recordRowMapper(Blackhole bh) throws SQLException {
+        var mapper = BeanRowMapper.of(OrderRecord.class);
+        try (var ps = connection.prepareStatement(SQL); var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(mapper.map(rs));
+            }
+        }
+    }
+
+    @Benchmark
+    public void naiveReflection(Blackhole bh) throws SQLException, ReflectiveOperationException {
+        try (var ps = connection.prepareStatement(SQL); var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(reflect(rs, Order.class));
+            }
+        }
+    }
+
+    private static <T> T reflect(ResultSet rs, Class<T> type) throws SQLException, ReflectiveOperationException {
+        var md = rs.getMetaData();
+        var obj = type.getDeclaredConstructor().newInstance();
+        for (int i = 1; i <= md.getColumnCount(); i++) {
+            var label = md.getColumnLabel(i);
+            for (Field f : type.getDeclaredFields()) {
+                if (f.getName().equalsIgnoreCase(label.replace("_", "").toLowerCase(Locale.ROOT))) {
+                    f.setAccessible(true);
+                    f.set(obj, rs.getObject(label));
+                    break;
+                }
+            }
+        }
+        return obj;
+    }
+}
@@ -0,0 +1,480 @@
+package com.pocdemo.jdbc.orm;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * In-memory JDBC driver for {@code jdbc:stub:} URLs that simulates the latency
+ * of a remote database instead of talking to one. Settings follow the prefix
+ * as {@code name=value} pairs separated by {@code ;}, all optional:
+ * <ul>
+ * <li>{@code connectMicros} time to open a connection</li>
+ * <li>{@code executeMicros} round trip of an execute, or of a whole
+ * executeBatch</li>
+ * <li>{@code commitMicros} time to commit, paid by every statement in
+ * auto-commit mode</li>
+ * <li>{@code rows} rows returned by every query, see {@link #COLUMNS}</li>
+ * </ul>
+ * Statements whose SQL contains {@code FAIL} throw on execution. Latency is
+ * spent parked, like a thread waiting on a socket, and the counters record
+ * what the driver was asked to do.
+ */
+public final class StubDriver implements Driver {
+
+    public static final String PREFIX = "jdbc:stub:";
+
+    /** labels and JDBC types of the query columns */
+    public static final String[] COLUMNS = { "id", "customer_name", "amount", "created_on", "updated_at", "active",
+            "quantity", "note" };
+
+    private static final int[] TYPES = { Types.BIGINT, Types.VARCHAR, Types.DECIMAL, Types.DATE, Types.TIMESTAMP,
+            Types.BOOLEAN, Types.INTEGER, Types.VARCHAR };
+
+    public static final LongAdder connects = new LongAdder();
+    public static final LongAdder closes = new LongAdder();
+    public static final LongAdder executes = new LongAdder();
+    public static final LongAdder commits = new LongAdder();
+    public static final LongAdder statementsOpened = new LongAdder();
+    public static final LongAdder statementsClosed = new LongAdder();
+
+    private static final Map<Integer, Table> tables = new ConcurrentHashMap<>();
+
+    static {
+        try {
+            DriverManager.registerDriver(new StubDriver());
+        } catch (SQLException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Registers the driver with DriverManager.
+     */
+    public static void register() {
+        // done by the static initializer
+    }
+
+    public static void resetCounters() {
+        for (var c : new LongAdder[] { connects, closes, executes, commits, statementsOpened, statementsClosed }) {
+            c.reset();
+        }
+    }
+
+    /**
+     * @return connections opened and not yet closed
+     */
+    public static long openConnections() {
+        return connects.sum() - closes.sum();
+    }
+
+    public static long openStatements() {
+        return statementsOpened.sum() - statementsClosed.sum();
+    }
+
+    private record Settings(long connectNanos, long executeNanos, long commitNanos, int rows) {
+        static Settings parse(String url) throws SQLException {
+            long connect = 0;
+            long execute = 0;
+            long commit = 0;
+            int rows = 0;
+            for (var pair : url.substring(PREFIX.length()).split(";")) {
+                if (pair.isBlank()) {
+                    continue;
+                }
+                var kv = pair.split("=", 2);
+                if (kv.length != 2) {
+                    throw new SQLException("Malformed stub setting " + pair);
+                }
+                long value = Long.parseLong(kv[1].trim());
+                switch (kv[0].trim()) {
+                    case "connectMicros" -> connect = TimeUnit.MICROSECONDS.toNanos(value);
+                    case "executeMicros" -> execute = TimeUnit.MICROSECONDS.toNanos(value);
+                    case "commitMicros" -> commit = TimeUnit.MICROSECONDS.toNanos(value);
+                    case "rows" -> rows = (int) value;
+                    default -> throw new SQLException("Unknown stub setting " + kv[0]);
+                }
+            }
+            return new Settings(connect, execute, commit, rows);
+        }
+    }
+
+    /**
+     * Column values of every row, built once per row count so that reading
+     * them costs the mapper nothing but the ResultSet calls.
+     */
+    private record Table(Object[][] columns) {
+        static Table of(int rows) {
+            var cols = new Object[COLUMNS.length][rows];
+            var date = LocalDate.of(2024, 1, 1);
+            var time = LocalDateTime.of(2024, 1, 1, 8, 0);
+            for (int r = 0; r < rows; r++) {
+                cols[0][r] = (long) r + 1;
+                cols[1][r] = "customer-" + r % 97;
+                cols[2][r] = BigDecimal.valueOf(1000 + r % 5000, 2);
+                cols[3][r] = date.plusDays(r % 365);
+                cols[4][r] = time.plusSeconds(r * 37L);
+                cols[5][r] = r % 3 != 0;
+                cols[6][r] = r % 50;
+                cols[7][r] = r % 2 == 0 ? "note " + r % 11 : null;
+            }
+            return new Table(cols);
+        }
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        var settings = Settings.parse(url);
+        pause(settings.connectNanos());
+        connects.increment();
+        return (Connection) proxy(Connection.class, new StubConnection(settings));
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return null != url && url.startsWith(PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    private static void pause(long nanos) {
+        for (long until = System.nanoTime() + nanos, left = nanos; left > 0; left = until - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    private static Object proxy(Class<?> type, InvocationHandler handler) {
+        return Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    private static Object unsupported(Method method) throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("Stub driver does not support " + method.getName());
+    }
+
+    private static final class StubConnection implements InvocationHandler {
+        final Settings settings;
+        boolean autoCommit = true;
+        boolean closed;
+
+        StubConnection(Settings settings) {
+            this.settings = settings;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        closes.increment();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    return !closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "StubConnection@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+            switch (method.getName()) {
+                case "createStatement":
+                    return statement(Statement.class, null, proxy);
+                case "prepareStatement":
+                    return statement(PreparedStatement.class, (String) args[0], proxy);
+                case "prepareCall":
+                    return statement(CallableStatement.class, (String) args[0], proxy);
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setAutoCommit":
+                    if (!autoCommit && (boolean) args[0]) {
+                        commit();
+                    }
+                    autoCommit = (boolean) args[0];
+                    return null;
+                case "commit":
+                    commit();
+                    return null;
+                case "rollback":
+                case "clearWarnings":
+                case "setReadOnly":
+                case "setTransactionIsolation":
+                    return null;
+                case "getWarnings":
+                    return null;
+                default:
+                    return unsupported(method);
+            }
+        }
+
+        void commit() {
+            pause(settings.commitNanos());
+            commits.increment();
+        }
+
+        private Object statement(Class<? extends Statement> type, String sql, Object connection) {
+            statementsOpened.increment();
+            return proxy(type, new StubStatement(this, sql, connection));
+        }
+    }
+
+    private static final class StubStatement implements InvocationHandler {
+        final StubConnection conn;
+        final String sql;
+        final Object connection;
+        int batched;
+        Object resultSet;
+        boolean closed;
+
+        StubStatement(StubConnection conn, String sql, Object connection) {
+            this.conn = conn;
+            this.sql = sql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        statementsClosed.increment();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed || conn.closed) {
+                throw new SQLException("Statement is closed");
+            }
+            if (name.startsWith("set")) {
+                // parameters and hints are accepted and ignored
+                return null;
+            }
+            switch (name) {
+                case "clearParameters":
+                case "clearWarnings":
+                    return null;
+                case "clearBatch":
+                    batched = 0;
+                    return null;
+                case "addBatch":
+                    batched++;
+                    return null;
+                case "getConnection":
+                    return connection;
+                case "getResultSet":
+                    return resultSet;
+                case "getUpdateCount":
+                    return -1;
+                case "getWarnings":
+                    return null;
+                case "executeBatch": {
+                    run(args);
+                    var counts = new int[batched];
+                    Arrays.fill(counts, 1);
+                    batched = 0;
+                    return counts;
+                }
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    run(args);
+                    return "executeLargeUpdate".equals(name) ? (Object) 1L : (Object) 1;
+                case "execute":
+                    run(args);
+                    return false;
+                case "executeQuery":
+                    run(args);
+                    int rows = conn.settings.rows();
+                    resultSet = proxy(ResultSet.class,
+                            new StubResultSet(tables.computeIfAbsent(rows, Table::of), rows, proxy));
+                    return resultSet;
+                default:
+                    return unsupported(method);
+            }
+        }
+
+        private void run(Object[] args) throws SQLException {
+            var text = null != args && args.length > 0 && args[0] instanceof String s ? s : sql;
+            pause(conn.settings.executeNanos());
+            executes.increment();
+            if (null != text && text.contains("FAIL")) {
+                throw new SQLException("Stub failure for " + text);
+            }
+            if (conn.autoCommit) {
+                conn.commit();
+            }
+        }
+    }
+
+    private static final class StubResultSet implements InvocationHandler {
+        final Table table;
+        final int rows;
+        final Object statement;
+        int row = -1;
+        boolean wasNull;
+        boolean closed;
+
+        StubResultSet(Table table, int rows, Object statement) {
+            this.table = table;
+            this.rows = rows;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var name = method.getName();
+            switch (name) {
+                case "next":
+                    return ++row < rows;
+                case "wasNull":
+                    return wasNull;
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getMetaData":
+                    return proxy(ResultSetMetaData.class, (InvocationHandler) (p, m, a) -> metaData(m, a));
+                case "getStatement":
+                    return statement;
+                case "setFetchSize":
+                case "setFetchDirection":
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (!name.startsWith("get") || null == args || args.length == 0) {
+                return unsupported(method);
+            }
+            int column = args[0] instanceof Integer i ? i : findColumn((String) args[0]);
+            if (row < 0 || row >= rows) {
+                throw new SQLException("No current row");
+            }
+            var value = table.columns()[column - 1][row];
+            wasNull = null == value;
+            return convert(value, name, args.length > 1 ? (Class<?>) args[1] : null, method.getReturnType());
+        }
+
+        private static Object convert(Object value, String getter, Class<?> type, Class<?> returnType)
+                throws SQLException {
+            if ("getObject".equals(getter)) {
+                if (null == value || null == type || type.isInstance(value)) {
+                    return value;
+                }
+                throw new SQLException("Cannot convert " + value.getClass().getSimpleName() + " to " + type);
+            }
+            if (null == value) {
+                return returnType.isPrimitive() ? Array.get(Array.newInstance(returnType, 1), 0) : null;
+            }
+            switch (getter) {
+                case "getString":
+                    return value.toString();
+                case "getLong":
+                    return ((Number) value).longValue();
+                case "getInt":
+                    return ((Number) value).intValue();
+                case "getDouble":
+                    return ((Number) value).doubleValue();
+                case "getBoolean":
+                    return value;
+                case "getBigDecimal":
+                    return value instanceof BigDecimal d ? d : BigDecimal.valueOf(((Number) value).longValue());
+                default:
+                    throw new SQLFeatureNotSupportedException("Stub driver does not support " + getter);
+            }
+        }
+
+        private static int findColumn(String label) throws SQLException {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (COLUMNS[i].equalsIgnoreCase(label)) {
+                    return i + 1;
+                }
+            }
+            throw new SQLException("No column " + label);
+        }
+
+        private static Object metaData(Method method, Object[] args) throws SQLException {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return COLUMNS.length;
+                case "getColumnLabel":
+                case "getColumnName":
+                    return COLUMNS[(int) args[0] - 1];
+                case "getColumnType":
+                    return TYPES[(int) args[0] - 1];
+                default:
+                    return unsupported(method);
+            }
+        }
+    }
+}
@@ -11,7 +11,6 @@ public class Test {
     @Path("/invoke")
     @Consumes(MediaType.TEXT_PLAIN)
     public void generatetDslScript(String sql) throws Exception {
-        var c = ORMHelper.conn();
         ORMHelper.exec(sql);
     }
 }
@@ -0,0 +1,932 @@
+package com.pocdemo.http.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * CBOR (RFC 8949) for service-to-service traffic. Objects are encoded the way
+ * Gson sees them: a map of non-static, non-transient fields with nulls left
+ * out. Dates use the same ISO text as {@link LocalDateTypeAdapter} and
+ * {@link LocalDateTimeTypeAdapter}, LocalDate tagged as an RFC 8943 full-date.
+ * BigDecimal is a decimal fraction (tag 4) and BigInteger a bignum (tags 2/3).
+ * <p>
+ * Field access is planned once per class with MethodHandles.
+ * <p>
+ * Decoding is bounded for untrusted bodies: strings are read in chunks as
+ * their bytes arrive, up to a maximum length, and nesting is limited. Register
+ * an instance with other limits to replace the default one.
+ */
+public final class CborCodec implements Codec {
+
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    private static final int UNSIGNED = 0;
+    private static final int NEGATIVE = 1;
+    private static final int BYTES = 2;
+    private static final int TEXT = 3;
+    private static final int ARRAY = 4;
+    private static final int MAP = 5;
+    private static final int TAG = 6;
+    private static final int SIMPLE = 7;
+
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+    private static final int UNDEFINED = 0xf7;
+    private static final int HALF = 0xf9;
+    private static final int FLOAT = 0xfa;
+    private static final int DOUBLE = 0xfb;
+    private static final int BREAK = 0xff;
+    private static final int INDEFINITE = 31;
+
+    private static final int TAG_POSITIVE_BIGNUM = 2;
+    private static final int TAG_NEGATIVE_BIGNUM = 3;
+    private static final int TAG_DECIMAL = 4;
+    private static final int TAG_FULL_DATE = 1004;
+
+    private static final int BUFFER_SIZE = 1024;
+
+    /** largest step by which a string being read grows */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    public static final int DEFAULT_MAX_DEPTH = 64;
+    public static final int DEFAULT_MAX_STRING_BYTES = 16 * 1024 * 1024;
+
+    private static final BigInteger MAX_UNSIGNED = BigInteger.ONE.shiftLeft(64);
+
+    private static final ClassValue<Plan> plans = new ClassValue<>() {
+        @Override
+        protected Plan computeValue(Class<?> type) {
+            return plan(type);
+        }
+    };
+
+    private record Property(String name, byte[] key, Type type, MethodHandle getter, MethodHandle setter) {
+    }
+
+    /**
+     * For records {@code ctor} takes the components as an Object[], for classes
+     * it takes nothing and the setters assign the fields.
+     */
+    private record Plan(MethodHandle ctor, boolean record, Property[] properties, Map<String, Integer> byName,
+            Object[] defaults) {
+    }
+
+    private final int maxDepth;
+    private final int maxStringBytes;
+
+    public CborCodec() {
+        this(DEFAULT_MAX_DEPTH, DEFAULT_MAX_STRING_BYTES);
+    }
+
+    /**
+     * @param maxDepth       arrays, maps and tags that may enclose an item
+     * @param maxStringBytes longest text or byte string, including all chunks
+     *                       of an indefinite one
+     */
+    public CborCodec(int maxDepth, int maxStringBytes) {
+        if (maxDepth < 1 || maxStringBytes < 0) {
+            throw new IllegalArgumentException("Invalid CBOR limits");
+        }
+        this.maxDepth = maxDepth;
+        this.maxStringBytes = maxStringBytes;
+    }
+
+    @Override
+    public String mediaType() {
+        return APPLICATION_CBOR;
+    }
+
+    @Override
+    public Object read(InputStream is, Type type) throws IOException {
+        return new Decoder(is, maxDepth, maxStringBytes).read(type);
+    }
+
+    @Override
+    public void write(Object value, OutputStream os) throws IOException {
+        var encoder = new Encoder(os);
+        encoder.write(value);
+        encoder.flush();
+    }
+
+    private static final class Encoder {
+        private final OutputStream os;
+        private final byte[] buf = new byte[BUFFER_SIZE];
+        private int pos;
+
+        Encoder(OutputStream os) {
+            this.os = os;
+        }
+
+        void flush() throws IOException {
+            if (pos > 0) {
+                os.write(buf, 0, pos);
+                pos = 0;
+            }
+        }
+
+        private void ensure(int n) throws IOException {
+            if (pos + n > buf.length) {
+                flush();
+            }
+        }
+
+        private void put(int b) throws IOException {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        private void head(int major, long value) throws IOException {
+            ensure(9);
+            int mt = major << 5;
+            if (value >= 0 && value < 24) {
+                buf[pos++] = (byte) (mt | value);
+            } else if (value >= 0 && value <= 0xff) {
+                buf[pos++] = (byte) (mt | 24);
+                buf[pos++] = (byte) value;
+            } else if (value >= 0 && value <= 0xffff) {
+                buf[pos++] = (byte) (mt | 25);
+                buf[pos++] = (byte) (value >> 8);
+                buf[pos++] = (byte) value;
+            } else if (value >= 0 && value <= 0xffffffffL) {
+                buf[pos++] = (byte) (mt | 26);
+                putBits(value, 4);
+            } else {
+                // a negative value here is an unsigned 64-bit one
+                buf[pos++] = (byte) (mt | 27);
+                putBits(value, 8);
+            }
+        }
+
+        private void putBits(long bits, int bytes) {
+            for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (bits >> shift);
+            }
+        }
+
+        private void bytes(int major, byte[] b) throws IOException {
+            head(major, b.length);
+            if (b.length > buf.length - pos) {
+                flush();
+                os.write(b);
+            } else {
+                System.arraycopy(b, 0, buf, pos, b.length);
+                pos += b.length;
+            }
+        }
+
+        private void text(String s) throws IOException {
+            int len = s.length();
+            if (len <= buf.length - 9) {
+                // ASCII goes straight into the buffer, anything else is re-encoded
+                ensure(9 + len);
+                int start = pos;
+                head(TEXT, len);
+                for (int i = 0; i < len; i++) {
+                    char c = s.charAt(i);
+                    if (c >= 0x80) {
+                        pos = start;
+                        bytes(TEXT, s.getBytes(StandardCharsets.UTF_8));
+                        return;
+                    }
+                    buf[pos++] = (byte) c;
+                }
+                return;
+            }
+            bytes(TEXT, s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void integer(long v) throws IOException {
+            if (v >= 0) {
+                head(UNSIGNED, v);
+            } else {
+                head(NEGATIVE, -1 - v);
+            }
+        }
+
+        private void bigInteger(BigInteger v) throws IOException {
+            if (v.bitLength() < 64) {
+                integer(v.longValue());
+            } else if (v.signum() >= 0) {
+                head(TAG, TAG_POSITIVE_BIGNUM);
+                bytes(BYTES, magnitude(v));
+            } else {
+                head(TAG, TAG_NEGATIVE_BIGNUM);
+                bytes(BYTES, magnitude(BigInteger.ONE.negate().subtract(v)));
+            }
+        }
+
+        private static byte[] magnitude(BigInteger v) {
+            var b = v.toByteArray();
+            return b[0] == 0 && b.length > 1 ? Arrays.copyOfRange(b, 1, b.length) : b;
+        }
+
+        void write(Object value) throws IOException {
+            if (null == value) {
+                put(NULL);
+            } else if (value instanceof String s) {
+                text(s);
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                    || value instanceof Byte) {
+                integer(((Number) value).longValue());
+            } else if (value instanceof Double d) {
+                ensure(9);
+                buf[pos++] = (byte) DOUBLE;
+                putBits(Double.doubleToLongBits(d), 8);
+            } else if (value instanceof Float f) {
+                ensure(5);
+                buf[pos++] = (byte) FLOAT;
+                putBits(Float.floatToIntBits(f) & 0xffffffffL, 4);
+            } else if (value instanceof Boolean b) {
+                put(b ? TRUE : FALSE);
+            } else if (value instanceof BigDecimal d) {
+                head(TAG, TAG_DECIMAL);
+                head(ARRAY, 2);
+                integer(-(long) d.scale());
+                bigInteger(d.unscaledValue());
+            } else if (value instanceof BigInteger b) {
+                bigInteger(b);
+            } else if (value instanceof LocalDate d) {
+                head(TAG, TAG_FULL_DATE);
+                text(d.format(DateTimeFormatter.ISO_DATE));
+            } else if (value instanceof LocalDateTime d) {
+                text(d.format(DateTimeFormatter.ISO_DATE_TIME));
+            } else if (value instanceof Character c) {
+                text(c.toString());
+            } else if (value instanceof Enum<?> e) {
+                text(e.name());
+            } else if (value instanceof byte[] b) {
+                bytes(BYTES, b);
+            } else if (value instanceof Collection<?> c) {
+                head(ARRAY, c.size());
+                for (var item : c) {
+                    write(item);
+                }
+            } else if (value instanceof Map<?, ?> m) {
+                head(MAP, m.size());
+                for (var en : m.entrySet()) {
+                    write(en.getKey() instanceof String ? en.getKey() : String.valueOf(en.getKey()));
+                    write(en.getValue());
+                }
+            } else if (value.getClass().isArray()) {
+                int n = Array.getLength(value);
+                head(ARRAY, n);
+                for (int i = 0; i < n; i++) {
+                    write(Array.get(value, i));
+                }
+            } else {
+                object(value);
+            }
+        }
+
+        private void object(Object value) throws IOException {
+            var plan = plans.get(value.getClass());
+            var props = plan.properties();
+            var values = new Object[props.length];
+            int present = 0;
+            for (int i = 0; i < props.length; i++) {
+                try {
+                    values[i] = (Object) props[i].getter().invokeExact(value);
+                } catch (Throwable e) {
+                    throw new IOException("Cannot read " + props[i].name() + " of " + value.getClass().getName(), e);
+                }
+                present += null != values[i] ? 1 : 0;
+            }
+            head(MAP, present);
+            for (int i = 0; i < props.length; i++) {
+                if (null != values[i]) {
+                    text(props[i].name());
+                    write(values[i]);
+                }
+            }
+        }
+    }
+
+    private static final class Decoder {
+        private final InputStream is;
+        private final int maxDepth;
+        private final int maxStringBytes;
+        private final byte[] buf = new byte[BUFFER_SIZE];
+        private int pos;
+        private int limit;
+        private int depth;
+
+        Decoder(InputStream is, int maxDepth, int maxStringBytes) {
+            this.is = is;
+            this.maxDepth = maxDepth;
+            this.maxStringBytes = maxStringBytes;
+        }
+
+        private void enter() throws IOException {
+            if (++depth > maxDepth) {
+                throw new IOException("CBOR nested deeper than " + maxDepth);
+            }
+        }
+
+        private int next() throws IOException {
+            if (pos == limit) {
+                limit = is.read(buf, 0, buf.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    throw new EOFException("Truncated CBOR");
+                }
+            }
+            return buf[pos++] & 0xff;
+        }
+
+        /**
+         * Makes at least {@code n} bytes, no more than the buffer holds,
+         * available from {@code pos}.
+         */
+        private void fill(int n) throws IOException {
+            if (limit - pos >= n) {
+                return;
+            }
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+            while (limit < n) {
+                int r = is.read(buf, limit, buf.length - limit);
+                if (r <= 0) {
+                    throw new EOFException("Truncated CBOR");
+                }
+                limit += r;
+            }
+        }
+
+        private int peek() throws IOException {
+            int b = next();
+            pos--;
+            return b;
+        }
+
+        private long argument(int initial) throws IOException {
+            int info = initial & 0x1f;
+            if (info < 24) {
+                return info;
+            }
+            int n = switch (info) {
+                case 24 -> 1;
+                case 25 -> 2;
+                case 26 -> 4;
+                case 27 -> 8;
+                default -> throw new IOException("Unsupported CBOR argument " + info);
+            };
+            long v = 0;
+            for (int i = 0; i < n; i++) {
+                v = (v << 8) | next();
+            }
+            return v;
+        }
+
+        private byte[] string(int initial) throws IOException {
+            if ((initial & 0x1f) == INDEFINITE) {
+                var out = new ByteArrayOutputStream();
+                for (int b = next(); b != BREAK; b = next()) {
+                    // chunks are definite strings of the same major type
+                    if (b >> 5 != initial >> 5 || (b & 0x1f) == INDEFINITE) {
+                        throw new IOException("Malformed CBOR string chunk");
+                    }
+                    long len = argument(b);
+                    if (len > maxStringBytes - out.size()) {
+                        throw new IOException("CBOR string longer than " + maxStringBytes + " bytes");
+                    }
+                    out.writeBytes(stringOf(len));
+                }
+                return out.toByteArray();
+            }
+            return stringOf(argument(initial));
+        }
+
+        private void checkLength(long len) throws IOException {
+            if (len < 0 || len > maxStringBytes) {
+                throw new IOException("CBOR string longer than " + maxStringBytes + " bytes");
+            }
+        }
+
+        /**
+         * Reads a string of {@code len} bytes, growing the result as the bytes
+         * arrive so that a forged length costs no more than the bytes sent.
+         */
+        private byte[] stringOf(long len) throws IOException {
+            checkLength(len);
+            var b = new byte[(int) Math.min(len, CHUNK_SIZE)];
+            for (int off = 0; off < len;) {
+                if (off == b.length) {
+                    b = Arrays.copyOf(b, (int) Math.min(len, off + Math.max(CHUNK_SIZE, off)));
+                }
+                if (pos == limit) {
+                    if (b.length - off >= buf.length) {
+                        int n = is.read(b, off, b.length - off);
+                        if (n <= 0) {
+                            throw new EOFException("Truncated CBOR");
+                        }
+                        off += n;
+                        continue;
+                    }
+                    next();
+                    pos--;
+                }
+                int n = Math.min(limit - pos, b.length - off);
+                System.arraycopy(buf, pos, b, off, n);
+                pos += n;
+                off += n;
+            }
+            return b;
+        }
+
+        private String text(int initial) throws IOException {
+            if ((initial & 0x1f) != INDEFINITE) {
+                long len = argument(initial);
+                checkLength(len);
+                if (len <= buf.length) {
+                    fill((int) len);
+                    var s = new String(buf, pos, (int) len, StandardCharsets.UTF_8);
+                    pos += (int) len;
+                    return s;
+                }
+                return new String(stringOf(len), StandardCharsets.UTF_8);
+            }
+            return new String(string(initial), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return the index of the property named by the next key, or -1
+         */
+        private int key(Plan plan) throws IOException {
+            int initial = next();
+            if (initial >> 5 == TEXT && (initial & 0x1f) != INDEFINITE) {
+                long len = argument(initial);
+                checkLength(len);
+                if (len <= buf.length) {
+                    // compare the UTF-8 bytes in place instead of building a String
+                    fill((int) len);
+                    int from = pos;
+                    pos += (int) len;
+                    var props = plan.properties();
+                    for (int i = 0; i < props.length; i++) {
+                        if (Arrays.equals(props[i].key(), 0, props[i].key().length, buf, from, pos)) {
+                            return i;
+                        }
+                    }
+                    return -1;
+                }
+                return plan.byName().getOrDefault(new String(stringOf(len), StandardCharsets.UTF_8), -1);
+            }
+            pos--;
+            return plan.byName().getOrDefault(String.valueOf(read(Object.class)), -1);
+        }
+
+        /**
+         * @return the item count, or -1 for an indefinite length
+         */
+        private long count(int initial) throws IOException {
+            return (initial & 0x1f) == INDEFINITE ? -1 : argument(initial);
+        }
+
+        private boolean more(long count, long read) throws IOException {
+            if (count >= 0) {
+                return read < count;
+            }
+            if (peek() == BREAK) {
+                next();
+                return false;
+            }
+            return true;
+        }
+
+        Object read(Type type) throws IOException {
+            int initial = next();
+            for (int tags = 0; initial >> 5 == TAG; tags++) {
+                if (tags == maxDepth) {
+                    throw new IOException("CBOR nested deeper than " + maxDepth);
+                }
+                long tag = argument(initial);
+                if (tag == TAG_DECIMAL || tag == TAG_POSITIVE_BIGNUM || tag == TAG_NEGATIVE_BIGNUM) {
+                    return convert(tagged(tag), type);
+                }
+                // other tags, such as full-date, only annotate the item
+                initial = next();
+            }
+            if (initial == NULL || initial == UNDEFINED) {
+                var raw = raw(type);
+                return raw.isPrimitive() ? Array.get(Array.newInstance(raw, 1), 0) : null;
+            }
+            var raw = raw(type);
+            int major = initial >> 5;
+            if (Object.class == raw) {
+                return natural(initial);
+            }
+            if (major == ARRAY) {
+                return array(initial, type, raw);
+            }
+            if (major == MAP) {
+                return Map.class.isAssignableFrom(raw) ? map(initial, type, raw) : object(initial, raw);
+            }
+            if (byte[].class == raw && major == BYTES) {
+                return string(initial);
+            }
+            return convert(natural(initial), type);
+        }
+
+        private Object tagged(long tag) throws IOException {
+            if (tag == TAG_DECIMAL) {
+                int initial = next();
+                if (initial >> 5 != ARRAY || count(initial) != 2) {
+                    throw new IOException("Malformed CBOR decimal fraction");
+                }
+                enter();
+                try {
+                    long exponent = ((Number) read(Long.class)).longValue();
+                    var mantissa = (BigInteger) read(BigInteger.class);
+                    return new BigDecimal(mantissa, Math.toIntExact(-exponent));
+                } finally {
+                    depth--;
+                }
+            }
+            int initial = next();
+            if (initial >> 5 != BYTES) {
+                throw new IOException("Malformed CBOR bignum");
+            }
+            var magnitude = new BigInteger(1, string(initial));
+            return tag == TAG_POSITIVE_BIGNUM ? magnitude : BigInteger.ONE.negate().subtract(magnitude);
+        }
+
+        /**
+         * Decodes without a target type: integers become Long (or BigInteger
+         * beyond its range), floats Double, arrays ArrayList and maps
+         * LinkedHashMap.
+         */
+        private Object natural(int initial) throws IOException {
+            int major = initial >> 5;
+            switch (major) {
+                case UNSIGNED -> {
+                    long v = argument(initial);
+                    return v >= 0 ? (Object) v : new BigInteger(Long.toUnsignedString(v));
+                }
+                case NEGATIVE -> {
+                    long v = argument(initial);
+                    return v >= 0 ? (Object) (-1 - v)
+                            : BigInteger.ONE.negate().subtract(new BigInteger(Long.toUnsignedString(v)));
+                }
+                case BYTES -> {
+                    return string(initial);
+                }
+                case TEXT -> {
+                    return text(initial);
+                }
+                case ARRAY -> {
+                    return array(initial, Object.class, List.class);
+                }
+                case MAP -> {
+                    return map(initial, Object.class, Map.class);
+                }
+                case TAG -> {
+                    long tag = argument(initial);
+                    if (tag == TAG_DECIMAL || tag == TAG_POSITIVE_BIGNUM || tag == TAG_NEGATIVE_BIGNUM) {
+                        return tagged(tag);
+                    }
+                    enter();
+                    try {
+                        return natural(next());
+                    } finally {
+                        depth--;
+                    }
+                }
+                default -> {
+                    return simple(initial);
+                }
+            }
+        }
+
+        private Object simple(int initial) throws IOException {
+            switch (initial) {
+                case FALSE -> {
+                    return Boolean.FALSE;
+                }
+                case TRUE -> {
+                    return Boolean.TRUE;
+                }
+                case NULL, UNDEFINED -> {
+                    return null;
+                }
+                case HALF -> {
+                    return half((int) argument(initial));
+                }
+                case FLOAT -> {
+                    return (double) Float.intBitsToFloat((int) argument(initial));
+                }
+                case DOUBLE -> {
+                    return Double.longBitsToDouble(argument(initial));
+                }
+                default -> throw new IOException("Unsupported CBOR simple value " + initial);
+            }
+        }
+
+        private static double half(int bits) {
+            int exp = (bits >> 10) & 0x1f;
+            int mant = bits & 0x3ff;
+            double v = exp == 0 ? Math.scalb((double) mant, -24)
+                    : exp == 31 ? (mant == 0 ? Double.POSITIVE_INFINITY : Double.NaN)
+                            : Math.scalb((double) (mant + 1024), exp - 25);
+            return (bits & 0x8000) != 0 ? -v : v;
+        }
+
+        private Object array(int initial, Type type, Class<?> raw) throws IOException {
+            if (initial >> 5 != ARRAY) {
+                throw new IOException("Expected a CBOR array for " + type.getTypeName());
+            }
+            enter();
+            try {
+                return items(count(initial), type, raw);
+            } finally {
+                depth--;
+            }
+        }
+
+        private Object items(long count, Type type, Class<?> raw) throws IOException {
+            if (raw.isArray()) {
+                var component = type instanceof GenericArrayType g ? g.getGenericComponentType()
+                        : raw.getComponentType();
+                List<Object> items = new ArrayList<>();
+                for (long i = 0; more(count, i); i++) {
+                    items.add(read(component));
+                }
+                var arr = Array.newInstance(raw.getComponentType(), items.size());
+                for (int i = 0; i < items.size(); i++) {
+                    Array.set(arr, i, items.get(i));
+                }
+                return arr;
+            }
+            var element = typeArgument(type, 0);
+            Collection<Object> items = Set.class.isAssignableFrom(raw)
+                    ? (SortedSet.class.isAssignableFrom(raw) ? new TreeSet<>() : new LinkedHashSet<>())
+                    : new ArrayList<>(count >= 0 ? (int) Math.min(count, 1024) : 16);
+            for (long i = 0; more(count, i); i++) {
+                items.add(read(element));
+            }
+            return items;
+        }
+
+        private Object map(int initial, Type type, Class<?> raw) throws IOException {
+            enter();
+            try {
+                return entries(count(initial), type, raw);
+            } finally {
+                depth--;
+            }
+        }
+
+        private Object entries(long count, Type type, Class<?> raw) throws IOException {
+            var keyType = typeArgument(type, 0);
+            var valueType = typeArgument(type, 1);
+            Map<Object, Object> map = SortedMap.class.isAssignableFrom(raw) ? new TreeMap<>()
+                    : new LinkedHashMap<>();
+            for (long i = 0; more(count, i); i++) {
+                var key = read(Object.class);
+                map.put(Object.class == raw(keyType) ? key : convert(key, keyType), read(valueType));
+            }
+            return map;
+        }
+
+        private Object object(int initial, Class<?> raw) throws IOException {
+            enter();
+            try {
+                return fields(count(initial), raw);
+            } finally {
+                depth--;
+            }
+        }
+
+        private Object fields(long count, Class<?> raw) throws IOException {
+            var plan = plans.get(raw);
+            var props = plan.properties();
+            Object target = null;
+            Object[] args = null;
+            try {
+                if (plan.record()) {
+                    args = plan.defaults().clone();
+                } else if (null == plan.ctor()) {
+                    throw new IOException(raw.getName() + " has no no-arg constructor");
+                } else {
+                    target = (Object) plan.ctor().invokeExact();
+                }
+                for (long i = 0; more(count, i); i++) {
+                    int idx = key(plan);
+                    if (idx < 0) {
+                        skip();
+                        continue;
+                    }
+                    var value = read(props[idx].type());
+                    if (plan.record()) {
+                        if (null != value) {
+                            args[idx] = value;
+                        }
+                    } else if (null != props[idx].setter()
+                            && (null != value || !raw(props[idx].type()).isPrimitive())) {
+                        props[idx].setter().invokeExact(target, value);
+                    }
+                }
+                return plan.record() ? (Object) plan.ctor().invokeExact(args) : target;
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IOException("Cannot decode " + raw.getName(), e);
+            }
+        }
+
+        private void skip() throws IOException {
+            read(Object.class);
+        }
+    }
+
+    /**
+     * Scalar conversions between what was on the wire and the declared type.
+     */
+    private static Object convert(Object value, Type type) throws IOException {
+        var raw = raw(type);
+        if (null == value || raw.isInstance(value) && !raw.isPrimitive()) {
+            return value;
+        }
+        var target = raw.isPrimitive() ? boxed(raw) : raw;
+        if (target.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof Number n) {
+            if (Integer.class == target) {
+                return Math.toIntExact(n.longValue());
+            } else if (Long.class == target) {
+                return n instanceof BigInteger b ? b.longValueExact() : n.longValue();
+            } else if (Double.class == target) {
+                return n.doubleValue();
+            } else if (Float.class == target) {
+                return n.floatValue();
+            } else if (Short.class == target) {
+                return (short) n.longValue();
+            } else if (Byte.class == target) {
+                return (byte) n.longValue();
+            } else if (BigDecimal.class == target) {
+                return n instanceof BigInteger b ? new BigDecimal(b)
+                        : n instanceof Double || n instanceof Float ? BigDecimal.valueOf(n.doubleValue())
+                                : BigDecimal.valueOf(n.longValue());
+            } else if (BigInteger.class == target) {
+                return BigInteger.valueOf(n.longValue());
+            } else if (String.class == target) {
+                return n.toString();
+            }
+        } else if (value instanceof String s) {
+            if (LocalDate.class == target) {
+                return LocalDate.parse(s, DateTimeFormatter.ISO_DATE);
+            } else if (LocalDateTime.class == target) {
+                return LocalDateTime.parse(s, DateTimeFormatter.ISO_DATE_TIME);
+            } else if (target.isEnum()) {
+                return enumValue(target, s);
+            } else if (Character.class == target && s.length() == 1) {
+                return s.charAt(0);
+            } else if (Long.class == target) {
+                return Long.valueOf(s);
+            } else if (Integer.class == target) {
+                return Integer.valueOf(s);
+            } else if (BigDecimal.class == target) {
+                return new BigDecimal(s);
+            }
+        }
+        throw new IOException("Cannot convert " + value.getClass().getSimpleName() + " to " + type.getTypeName());
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object enumValue(Class<?> type, String name) {
+        return Enum.valueOf((Class<? extends Enum>) type, name);
+    }
+
+    private static Class<?> boxed(Class<?> primitive) {
+        if (long.class == primitive) {
+            return Long.class;
+        } else if (int.class == primitive) {
+            return Integer.class;
+        } else if (double.class == primitive) {
+            return Double.class;
+        } else if (boolean.class == primitive) {
+            return Boolean.class;
+        } else if (float.class == primitive) {
+            return Float.class;
+        } else if (short.class == primitive) {
+            return Short.class;
+        } else if (byte.class == primitive) {
+            return Byte.class;
+        }
+        return Character.class;
+    }
+
+    private static Class<?> raw(Type type) {
+        if (type instanceof Class<?> c) {
+            return c;
+        } else if (type instanceof ParameterizedType p) {
+            return (Class<?>) p.getRawType();
+        } else if (type instanceof GenericArrayType g) {
+            return Array.newInstance(raw(g.getGenericComponentType()), 0).getClass();
+        } else if (type instanceof WildcardType w) {
+            return raw(w.getUpperBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        return type instanceof ParameterizedType p && p.getActualTypeArguments().length > index
+                ? p.getActualTypeArguments()[index]
+                : Object.class;
+    }
+
+    private static Plan plan(Class<?> type) {
+        var lookup = MethodHandles.lookup();
+        var getterType = MethodType.methodType(Object.class, Object.class);
+        var setterType = MethodType.methodType(void.class, Object.class, Object.class);
+        try {
+            List<Property> props = new ArrayList<>();
+            if (type.isRecord()) {
+                var components = type.getRecordComponents();
+                var types = new Class<?>[components.length];
+                var defaults = new Object[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    var accessor = components[i].getAccessor();
+                    accessor.setAccessible(true);
+                    types[i] = components[i].getType();
+                    defaults[i] = types[i].isPrimitive() ? Array.get(Array.newInstance(types[i], 1), 0) : null;
+                    props.add(new Property(components[i].getName(),
+                            components[i].getName().getBytes(StandardCharsets.UTF_8), components[i].getGenericType(),
+                            lookup.unreflect(accessor).asType(getterType), null));
+                }
+                var ctor = type.getDeclaredConstructor(types);
+                ctor.setAccessible(true);
+                var handle = lookup.unreflectConstructor(ctor)
+                        .asSpreader(Object[].class, components.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+                return new Plan(handle, true, props.toArray(Property[]::new), index(props), defaults);
+            }
+            for (Class<?> c = type; null != c && Object.class != c; c = c.getSuperclass()) {
+                for (Field f : c.getDeclaredFields()) {
+                    int mod = f.getModifiers();
+                    if (Modifier.isStatic(mod) || Modifier.isTransient(mod) || f.isSynthetic()) {
+                        continue;
+                    }
+                    f.setAccessible(true);
+                    props.add(new Property(f.getName(), f.getName().getBytes(StandardCharsets.UTF_8), f.getGenericType(),
+                            lookup.unreflectGetter(f).asType(getterType),
+                            Modifier.isFinal(mod) ? null : lookup.unreflectSetter(f).asType(setterType)));
+                }
+            }
+            MethodHandle ctor = null;
+            try {
+                var noArgs = type.getDeclaredConstructor();
+                noArgs.setAccessible(true);
+                ctor = lookup.unreflectConstructor(noArgs).asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException e) {
+                // encode only
+            }
+            return new Plan(ctor, false, props.toArray(Property[]::new), index(props), null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalStateException("Cannot map " + type.getName() + " to CBOR", e);
+        }
+    }
+
+    private static Map<String, Integer> index(List<Property> props) {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < props.size(); i++) {
+            byName.putIfAbsent(props.get(i).name(), i);
+        }
+        return byName;
+    }
+}
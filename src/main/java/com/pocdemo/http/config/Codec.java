@@ -0,0 +1,33 @@
+package com.pocdemo.http.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Reads and writes request and response bodies of one media type. The
+ * dispatcher picks a codec by Content-Type for arguments and by Accept for
+ * results; JSON is used when nothing else matches.
+ * <p>
+ * Implementations are registered with {@link Codecs#register(Codec)} or listed
+ * in {@code META-INF/services/com.pocdemo.http.config.Codec}, and must be
+ * thread safe.
+ */
+public interface Codec {
+
+    /**
+     * @return the media type without parameters, e.g. {@code application/cbor}
+     */
+    String mediaType();
+
+    /**
+     * Reads one value of the given type. The stream is left open.
+     */
+    Object read(InputStream is, Type type) throws IOException;
+
+    /**
+     * Writes the value. The stream is left open.
+     */
+    void write(Object value, OutputStream os) throws IOException;
+}
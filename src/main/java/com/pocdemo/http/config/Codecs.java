@@ -0,0 +1,122 @@
+package com.pocdemo.http.config;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of body codecs by media type. JSON and CBOR are built in; others
+ * come from {@link ServiceLoader} or {@link #register(Codec)}.
+ */
+public final class Codecs {
+
+    public static final Codec JSON = new JsonCodec();
+
+    private static final Map<String, Codec> codecs = new ConcurrentHashMap<>();
+
+    private static volatile Codec[] alternatives = new Codec[0];
+
+    static {
+        register(JSON);
+        register(new CborCodec());
+        ServiceLoader.load(Codec.class).forEach(Codecs::register);
+    }
+
+    private Codecs() {
+    }
+
+    public static void register(Codec codec) {
+        codecs.put(codec.mediaType().toLowerCase(Locale.ROOT), codec);
+        alternatives = codecs.values().stream().filter(c -> JSON != c).toArray(Codec[]::new);
+    }
+
+    /**
+     * @return the codec for a Content-Type header, ignoring parameters such as
+     *         charset, or null if none is registered
+     */
+    public static Codec forContentType(String contentType) {
+        if (null == contentType) {
+            return null;
+        }
+        int semi = contentType.indexOf(';');
+        var type = (semi >= 0 ? contentType.substring(0, semi) : contentType).trim().toLowerCase(Locale.ROOT);
+        return codecs.get(type);
+    }
+
+    /**
+     * @return the codec the Accept header prefers over JSON, or null when the
+     *         response should be JSON. Each media type takes the weight of its
+     *         most specific matching range; at equal weight an exact range beats
+     *         a wildcard, and JSON beats the others. {@code q=0} excludes a type.
+     */
+    public static Codec forAccept(String accept) {
+        if (null == accept) {
+            return null;
+        }
+        var header = accept.toLowerCase(Locale.ROOT);
+        Codec best = null;
+        int bestScore = -1;
+        for (var codec : alternatives) {
+            var type = codec.mediaType().toLowerCase(Locale.ROOT);
+            // a wildcard matches JSON as well as this type, so only a named type can win
+            if (header.contains(type)) {
+                int score = score(header, type);
+                if (score > bestScore) {
+                    best = codec;
+                    bestScore = score;
+                }
+            }
+        }
+        if (null == best || bestScore < 3 || bestScore <= score(header, JSON.mediaType())) {
+            return null;
+        }
+        return best;
+    }
+
+    /**
+     * @return the weight in thousandths of the most specific range matching
+     *         {@code type}, times 3 plus its specificity (0 for the full
+     *         wildcard, 1 for a subtype wildcard, 2 for an exact match), or -1
+     *         if none matches
+     */
+    static int score(String header, String type) {
+        int slash = type.indexOf('/');
+        int best = -1;
+        int bestSpecificity = -1;
+        for (var element : header.split(",")) {
+            var params = element.split(";");
+            var range = params[0].trim();
+            int specificity;
+            if (range.equals(type)) {
+                specificity = 2;
+            } else if (range.length() == slash + 2 && range.endsWith("/*") && range.regionMatches(0, type, 0, slash)) {
+                specificity = 1;
+            } else if (range.equals("*/*")) {
+                specificity = 0;
+            } else {
+                continue;
+            }
+            if (specificity > bestSpecificity) {
+                bestSpecificity = specificity;
+                best = quality(params) * 3 + specificity;
+            }
+        }
+        return best;
+    }
+
+    private static int quality(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            var param = params[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    double q = Double.parseDouble(param.substring(2).trim());
+                    return (int) Math.round(Math.max(0, Math.min(1, q)) * 1000);
+                } catch (NumberFormatException e) {
+                    // malformed weights count as 1
+                }
+            }
+        }
+        return 1000;
+    }
+}
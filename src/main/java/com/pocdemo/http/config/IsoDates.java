@@ -0,0 +1,154 @@
+package com.pocdemo.http.config;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * ISO-8601 text of dates without going through DateTimeFormatter for the
+ * usual shapes: years 0 to 9999, {@code yyyy-MM-dd} and
+ * {@code yyyy-MM-ddTHH:mm:ss[.fraction]}. Output is the same as
+ * {@link DateTimeFormatter#ISO_DATE} and {@link DateTimeFormatter#ISO_DATE_TIME}
+ * and anything else, including malformed input, is left to those formatters.
+ */
+final class IsoDates {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ISO_DATE;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ISO_DATE_TIME;
+
+    /** yyyy-MM-ddTHH:mm:ss.nnnnnnnnn */
+    private static final int MAX_LENGTH = 29;
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[MAX_LENGTH]);
+
+    private IsoDates() {
+    }
+
+    static String format(LocalDate date) {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            return DATE.format(date);
+        }
+        var b = BUFFER.get();
+        return new String(b, 0, date(b, year, date.getMonthValue(), date.getDayOfMonth()));
+    }
+
+    static String format(LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            return DATE_TIME.format(dateTime);
+        }
+        var b = BUFFER.get();
+        int n = date(b, year, dateTime.getMonthValue(), dateTime.getDayOfMonth());
+        b[n++] = 'T';
+        n = two(b, n, dateTime.getHour());
+        b[n++] = ':';
+        n = two(b, n, dateTime.getMinute());
+        b[n++] = ':';
+        n = two(b, n, dateTime.getSecond());
+        int nano = dateTime.getNano();
+        if (nano > 0) {
+            // as few digits as needed, like appendFraction(NANO_OF_SECOND, 0, 9, true)
+            b[n++] = '.';
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            for (int i = n + digits - 1; i >= n; i--) {
+                b[i] = (char) ('0' + nano % 10);
+                nano /= 10;
+            }
+            n += digits;
+        }
+        return new String(b, 0, n);
+    }
+
+    static LocalDate parseDate(String s) {
+        if (s.length() == 10) {
+            try {
+                var date = date(s);
+                if (null != date) {
+                    return date;
+                }
+            } catch (DateTimeException e) {
+                // out of range, the formatter reports it
+            }
+        }
+        return LocalDate.parse(s, DATE);
+    }
+
+    static LocalDateTime parseDateTime(String s) {
+        int len = s.length();
+        if ((len == 19 || (len > 20 && len <= MAX_LENGTH && s.charAt(19) == '.')) && s.charAt(10) == 'T'
+                && s.charAt(13) == ':' && s.charAt(16) == ':') {
+            try {
+                var date = date(s);
+                int hour = digits(s, 11, 13);
+                int minute = digits(s, 14, 16);
+                int second = digits(s, 17, 19);
+                int nano = 0;
+                if (len > 20) {
+                    nano = digits(s, 20, len);
+                    for (int i = len; i < MAX_LENGTH; i++) {
+                        nano *= 10;
+                    }
+                }
+                if (null != date && (hour | minute | second | nano) >= 0) {
+                    return date.atTime(hour, minute, second, nano);
+                }
+            } catch (DateTimeException e) {
+                // out of range, the formatter reports it
+            }
+        }
+        return LocalDateTime.parse(s, DATE_TIME);
+    }
+
+    private static int date(char[] b, int year, int month, int day) {
+        b[0] = (char) ('0' + year / 1000);
+        b[1] = (char) ('0' + year / 100 % 10);
+        b[2] = (char) ('0' + year / 10 % 10);
+        b[3] = (char) ('0' + year % 10);
+        b[4] = '-';
+        two(b, 5, month);
+        b[7] = '-';
+        two(b, 8, day);
+        return 10;
+    }
+
+    private static int two(char[] b, int at, int value) {
+        b[at] = (char) ('0' + value / 10);
+        b[at + 1] = (char) ('0' + value % 10);
+        return at + 2;
+    }
+
+    /**
+     * @return the date of {@code yyyy-MM-dd} at the start of s, null if it has
+     *         another shape
+     */
+    private static LocalDate date(String s) {
+        if (s.charAt(4) != '-' || s.charAt(7) != '-') {
+            return null;
+        }
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 7);
+        int day = digits(s, 8, 10);
+        return (year | month | day) >= 0 ? LocalDate.of(year, month, day) : null;
+    }
+
+    /**
+     * @return the decimal value of s[from, to), -1 unless all are ASCII digits
+     */
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+}
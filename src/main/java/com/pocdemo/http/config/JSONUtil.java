@@ -4,30 +4,54 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.pocdemo.http.common.lambda.Lambdas.UncheckedConsumer;
 
 public class JSONUtil {
 
     private static final Gson g = new GsonBuilder()
             .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+            .registerTypeAdapterFactory(new JsonAdapters())
             .create();
 
+    private static final int ENCODE_BUFFER_SIZE = 8192;
+
+    private static final BlockingQueue<Utf8StreamWriter> writers = new ArrayBlockingQueue<>(64);
+
+    static Gson gson() {
+        return g;
+    }
+
     public static <T> T fromJson(InputStream is, Class<T> type) {
-        try (Reader r = new InputStreamReader(is)) {
+        try (Reader r = new InputStreamReader(is, StandardCharsets.UTF_8)) {
             return g.fromJson(r, type);
         } catch (Exception e) {
             throw asUnchecked(e);
         }
     }
 
+    /**
+     * Reads a possibly generic type from UTF-8 JSON. The stream is left open.
+     */
+    public static Object fromJson(InputStream is, Type type) {
+        return g.fromJson(new InputStreamReader(is, StandardCharsets.UTF_8), type);
+    }
+
     public static <T> T fromJson(Reader reader, Class<T> type) {
         return g.fromJson(reader, type);
     }
@@ -40,6 +64,58 @@ public class JSONUtil {
         return g.toJson(obj);
     }
 
+    /**
+     * Serializes straight into the stream as UTF-8, without building the JSON
+     * text first. The stream is left open.
+     */
+    public static void toJson(Object obj, OutputStream os) throws IOException {
+        withWriter(os, w -> g.toJson(obj, w));
+    }
+
+    /**
+     * Writes the items as one JSON array, serializing one item at a time.
+     */
+    public static void toJsonArray(Iterator<?> items, OutputStream os) throws IOException {
+        withWriter(os, w -> {
+            w.write('[');
+            for (boolean first = true; items.hasNext(); first = false) {
+                if (!first) {
+                    w.write(',');
+                }
+                g.toJson(items.next(), w);
+            }
+            w.write(']');
+        });
+    }
+
+    /**
+     * Writes the items as newline-delimited JSON, one item per line.
+     */
+    public static void toJsonLines(Iterator<?> items, OutputStream os) throws IOException {
+        withWriter(os, w -> {
+            while (items.hasNext()) {
+                g.toJson(items.next(), w);
+                w.write('\n');
+            }
+        });
+    }
+
+    private static void withWriter(OutputStream os, UncheckedConsumer<Writer> action) throws IOException {
+        var w = writers.poll();
+        if (null == w) {
+            w = new Utf8StreamWriter(ENCODE_BUFFER_SIZE);
+        }
+        try (var writer = w.reset(os)) {
+            action.tryToAccept(writer);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw asUnchecked(e);
+        } finally {
+            writers.offer(w.reset(null));
+        }
+    }
+
     public static void writeTo(Object obj, Path path) throws IOException {
         Files.createDirectories(path.getParent());
         try (var w = new FileWriter(path.toFile())) {
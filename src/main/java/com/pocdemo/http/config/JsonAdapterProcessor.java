@@ -0,0 +1,384 @@
+package com.pocdemo.http.config;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Writes a Gson TypeAdapter next to every DTO that a {@code @Path} service
+ * takes or returns, and to the DTOs those reach through their fields, as
+ * {@code <DTO binary name>_JsonAdapter}. {@link JsonAdapters} picks them up at
+ * runtime. The JSON is the same as from Gson's reflective adapter, but fields
+ * are accessed directly and strings, ints, longs, doubles and booleans are
+ * read and written without boxing.
+ * <p>
+ * Only DTOs compiled in the same build get an adapter, and only those Gson
+ * would treat as plain beans: non-generic, static, with a non-private no-arg
+ * constructor and non-private, non-final fields, none of them using Gson
+ * annotations. Everything else stays with Gson.
+ */
+@SupportedAnnotationTypes(JsonAdapterProcessor.PATH)
+public class JsonAdapterProcessor extends AbstractProcessor {
+
+    static final String PATH = "jakarta.ws.rs.Path";
+
+    private static final List<String> HTTP_METHODS = List.of("GET", "POST", "PUT", "DELETE");
+
+    private record Field(String name, TypeMirror type) {
+    }
+
+    private final Set<String> visited = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        var path = processingEnv.getElementUtils().getTypeElement(PATH);
+        if (null == path) {
+            return false;
+        }
+        Set<TypeElement> sources = new HashSet<>();
+        for (var root : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            addWithNested(root, sources);
+        }
+        var pending = new ArrayDeque<TypeMirror>();
+        for (var service : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(path))) {
+            for (var mthd : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(service))) {
+                if (mthd.getModifiers().contains(Modifier.PUBLIC) && isWebMethod(mthd)) {
+                    pending.add(mthd.getReturnType());
+                    mthd.getParameters().forEach(p -> pending.add(p.asType()));
+                }
+            }
+        }
+        while (!pending.isEmpty()) {
+            var type = pending.poll();
+            switch (type.getKind()) {
+                case ARRAY -> pending.add(((ArrayType) type).getComponentType());
+                case WILDCARD -> {
+                    var wildcard = (WildcardType) type;
+                    if (null != wildcard.getExtendsBound()) {
+                        pending.add(wildcard.getExtendsBound());
+                    }
+                }
+                case DECLARED -> {
+                    var declared = (DeclaredType) type;
+                    pending.addAll(declared.getTypeArguments());
+                    var element = (TypeElement) declared.asElement();
+                    if (sources.contains(element) && visited.add(element.getQualifiedName().toString())) {
+                        var fields = fields(element);
+                        if (null != fields) {
+                            fields.forEach(f -> pending.add(f.type()));
+                            if (isBean(element) && fields.stream().allMatch(f -> isAccessible(f.type(), element))) {
+                                write(element, fields);
+                            }
+                        }
+                    }
+                }
+                default -> {
+                    // primitives, type variables
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void addWithNested(TypeElement type, Set<TypeElement> into) {
+        into.add(type);
+        for (var nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            addWithNested(nested, into);
+        }
+    }
+
+    private static boolean isWebMethod(ExecutableElement mthd) {
+        for (var mirror : mthd.getAnnotationMirrors()) {
+            var name = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (name.startsWith("jakarta.ws.rs.") && HTTP_METHODS.contains(name.substring(14))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the serialized fields in Gson's order, subclass first, or null if
+     *         the class has one Gson would not set plainly
+     */
+    private List<Field> fields(TypeElement type) {
+        var types = processingEnv.getTypeUtils();
+        var self = (DeclaredType) type.asType();
+        var pkg = processingEnv.getElementUtils().getPackageOf(type);
+        List<Field> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (var t = type; null != t && !t.getQualifiedName().contentEquals("java.lang.Object");
+                t = (TypeElement) types.asElement(t.getSuperclass())) {
+            boolean samePackage = processingEnv.getElementUtils().getPackageOf(t).equals(pkg);
+            if (!samePackage && !t.getModifiers().contains(Modifier.PUBLIC)) {
+                return null;
+            }
+            for (VariableElement field : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                var modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)
+                        || (!samePackage && !modifiers.contains(Modifier.PUBLIC)) || usesGson(field)
+                        || !names.add(field.getSimpleName().toString())) {
+                    return null;
+                }
+                fields.add(new Field(field.getSimpleName().toString(), types.asMemberOf(self, field)));
+            }
+        }
+        return fields;
+    }
+
+    private boolean isBean(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)
+                || !type.getTypeParameters().isEmpty() || usesGson(type)) {
+            return false;
+        }
+        for (Element e = type; e instanceof TypeElement t; e = e.getEnclosingElement()) {
+            if (t.getNestingKind() == NestingKind.LOCAL || t.getNestingKind() == NestingKind.ANONYMOUS
+                    || t.getModifiers().contains(Modifier.PRIVATE)
+                    || (t.getNestingKind() == NestingKind.MEMBER && !t.getModifiers().contains(Modifier.STATIC))) {
+                return false;
+            }
+        }
+        return ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .anyMatch(c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE));
+    }
+
+    private static boolean usesGson(Element element) {
+        return element.getAnnotationMirrors().stream()
+                .anyMatch(m -> m.getAnnotationType().toString().startsWith("com.google.gson.annotations."));
+    }
+
+    /**
+     * @return whether generated code in the package of {@code from} can name
+     *         the type
+     */
+    private boolean isAccessible(TypeMirror type, TypeElement from) {
+        switch (type.getKind()) {
+            case BOOLEAN, BYTE, SHORT, INT, LONG, CHAR, FLOAT, DOUBLE:
+                return true;
+            case ARRAY:
+                return isAccessible(((ArrayType) type).getComponentType(), from);
+            case WILDCARD: {
+                var wildcard = (WildcardType) type;
+                return (null == wildcard.getExtendsBound() || isAccessible(wildcard.getExtendsBound(), from))
+                        && (null == wildcard.getSuperBound() || isAccessible(wildcard.getSuperBound(), from));
+            }
+            case DECLARED: {
+                var elements = processingEnv.getElementUtils();
+                var pkg = elements.getPackageOf(from);
+                for (Element e = ((DeclaredType) type).asElement(); e instanceof TypeElement t;
+                        e = e.getEnclosingElement()) {
+                    if (t.getModifiers().contains(Modifier.PRIVATE)
+                            || (!t.getModifiers().contains(Modifier.PUBLIC) && !elements.getPackageOf(t).equals(pkg))
+                            || t.getNestingKind() == NestingKind.LOCAL
+                            || t.getNestingKind() == NestingKind.ANONYMOUS) {
+                        return false;
+                    }
+                }
+                return ((DeclaredType) type).getTypeArguments().stream().allMatch(a -> isAccessible(a, from));
+            }
+            default:
+                return false;
+        }
+    }
+
+    private void write(TypeElement type, List<Field> fields) {
+        var elements = processingEnv.getElementUtils();
+        var types = processingEnv.getTypeUtils();
+        var pkg = elements.getPackageOf(type);
+        var packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        var binaryName = elements.getBinaryName(type).toString();
+        var simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + JsonAdapters.SUFFIX;
+        var dto = type.getQualifiedName().toString();
+
+        List<String> adapters = new ArrayList<>();
+        List<String> writes = new ArrayList<>();
+        List<String> reads = new ArrayList<>();
+        for (var field : fields) {
+            var name = field.name();
+            var fieldType = field.type();
+            var key = literal(name);
+            switch (fieldType.getKind()) {
+                case INT, LONG -> {
+                    var next = fieldType.getKind() == TypeKind.INT ? "nextInt" : "nextLong";
+                    writes.add("out.name(" + key + ").value(value." + name + ");");
+                    reads.add("if (!JsonAdapters.skipNull(in)) {\n" + indent(1) + "value." + name
+                            + " = JsonAdapters." + next + "(in);\n}");
+                }
+                case BOOLEAN -> {
+                    writes.add("out.name(" + key + ").value(value." + name + ");");
+                    reads.add("if (!JsonAdapters.skipNull(in)) {\n" + indent(1) + "value." + name
+                            + " = JsonAdapters.nextBoolean(in);\n}");
+                }
+                case DOUBLE -> {
+                    writes.add("out.name(" + key + ").value(JsonAdapters.finite(value." + name + "));");
+                    reads.add("if (!JsonAdapters.skipNull(in)) {\n" + indent(1) + "value." + name
+                            + " = in.nextDouble();\n}");
+                }
+                case BYTE, SHORT, CHAR, FLOAT -> {
+                    var boxed = types.boxedClass(types.getPrimitiveType(fieldType.getKind())).getQualifiedName();
+                    var adapter = "a" + adapters.size();
+                    adapters.add("TypeAdapter<" + boxed + "> " + adapter + " = gson.getAdapter(" + boxed + ".class);");
+                    writes.add("out.name(" + key + ");\n" + indent(2) + adapter + ".write(out, value." + name + ");");
+                    reads.add("var v = " + adapter + ".read(in);\nif (null != v) {\n" + indent(1)
+                            + "value." + name + " = v;\n}");
+                }
+                default -> {
+                    if (isString(fieldType)) {
+                        writes.add("out.name(" + key + ").value(value." + name + ");");
+                        reads.add("value." + name + " = JsonAdapters.nextString(in);");
+                        continue;
+                    }
+                    var adapter = "a" + adapters.size();
+                    var typeName = fieldType.toString();
+                    boolean parameterized = typeName.indexOf('<') >= 0;
+                    adapters.add("TypeAdapter<" + typeName + "> " + adapter + " = gson.getAdapter("
+                            + (parameterized ? "new TypeToken<" + typeName + ">() {}" : typeName + ".class") + ");");
+                    if (parameterized || isFinal(fieldType)) {
+                        writes.add("out.name(" + key + ");\n" + indent(2) + adapter + ".write(out, value." + name + ");");
+                    } else {
+                        // a subclass instance may be written with its own adapter
+                        writes.add("out.name(" + key + ");\n" + indent(2) + "JsonAdapters.write(gson, " + adapter
+                                + ", " + typeName + ".class, out, value." + name + ");");
+                    }
+                    reads.add("value." + name + " = " + adapter + ".read(in);");
+                }
+            }
+        }
+
+        try (var out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(packageName.isEmpty() ? simpleName : packageName + "." + simpleName, type)
+                .openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("import java.io.IOException;");
+            out.println();
+            out.println("import com.google.gson.Gson;");
+            out.println("import com.google.gson.JsonSyntaxException;");
+            out.println("import com.google.gson.TypeAdapter;");
+            out.println("import com.google.gson.reflect.TypeToken;");
+            out.println("import com.google.gson.stream.JsonReader;");
+            out.println("import com.google.gson.stream.JsonWriter;");
+            out.println("import " + JsonAdapters.class.getName() + ";");
+            out.println();
+            out.println("/**");
+            out.println(" * JSON of {@link " + dto + "}.");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + JsonAdapterProcessor.class.getName() + "\")");
+            out.println("public final class " + simpleName + " extends TypeAdapter<" + dto + "> {");
+            out.println();
+            out.println(indent(1) + "private final Gson gson;");
+            for (var adapter : adapters) {
+                out.println(indent(1) + "private final " + adapter.substring(0, adapter.indexOf(" = ")) + ";");
+            }
+            out.println();
+            out.println(indent(1) + "public " + simpleName + "(Gson gson) {");
+            out.println(indent(2) + "this.gson = gson;");
+            for (var adapter : adapters) {
+                out.println(indent(2) + adapter.substring(adapter.indexOf("> ") + 2));
+            }
+            out.println(indent(1) + "}");
+            out.println();
+            out.println(indent(1) + "@Override");
+            out.println(indent(1) + "public void write(JsonWriter out, " + dto + " value) throws IOException {");
+            out.println(indent(2) + "if (null == value) {");
+            out.println(indent(3) + "out.nullValue();");
+            out.println(indent(3) + "return;");
+            out.println(indent(2) + "}");
+            out.println(indent(2) + "out.beginObject();");
+            for (var w : writes) {
+                out.println(indent(2) + w);
+            }
+            out.println(indent(2) + "out.endObject();");
+            out.println(indent(1) + "}");
+            out.println();
+            out.println(indent(1) + "@Override");
+            out.println(indent(1) + "public " + dto + " read(JsonReader in) throws IOException {");
+            out.println(indent(2) + "if (JsonAdapters.skipNull(in)) {");
+            out.println(indent(3) + "return null;");
+            out.println(indent(2) + "}");
+            out.println(indent(2) + "var value = new " + dto + "();");
+            out.println(indent(2) + "try {");
+            out.println(indent(3) + "in.beginObject();");
+            out.println(indent(3) + "while (in.hasNext()) {");
+            out.println(indent(4) + "switch (in.nextName()) {");
+            for (int i = 0; i < fields.size(); i++) {
+                out.println(indent(5) + "case " + literal(fields.get(i).name()) + " -> {");
+                out.println(indent(6) + reads.get(i).replace("\n", "\n" + indent(6)));
+                out.println(indent(5) + "}");
+            }
+            out.println(indent(5) + "default -> in.skipValue();");
+            out.println(indent(4) + "}");
+            out.println(indent(3) + "}");
+            out.println(indent(3) + "in.endObject();");
+            out.println(indent(2) + "} catch (IllegalStateException e) {");
+            out.println(indent(3) + "throw new JsonSyntaxException(e);");
+            out.println(indent(2) + "}");
+            out.println(indent(2) + "return value;");
+            out.println(indent(1) + "}");
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write JSON adapter: " + e.getMessage(), type);
+        }
+    }
+
+    private static boolean isString(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals("java.lang.String");
+    }
+
+    private static boolean isFinal(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((DeclaredType) type).asElement().getModifiers().contains(Modifier.FINAL);
+    }
+
+    private static String indent(int level) {
+        return "    ".repeat(level);
+    }
+
+    private static String literal(String s) {
+        var sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,135 @@
+package com.pocdemo.http.config;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Finds the adapters {@link JsonAdapterProcessor} generated at build time,
+ * {@code <DTO binary name>_JsonAdapter}, which read and write the fields
+ * directly instead of through Gson's reflective adapter. Types without one are
+ * left to Gson. The static helpers are used by the generated code and behave
+ * like Gson's built-in adapters of the same types.
+ */
+public final class JsonAdapters implements TypeAdapterFactory {
+
+    public static final String SUFFIX = "_JsonAdapter";
+
+    private static final ClassValue<Constructor<?>> GENERATED = new ClassValue<>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            if (null == type.getClassLoader() || type.isArray() || type.isPrimitive()
+                    || type.getName().startsWith("java.")) {
+                return null;
+            }
+            try {
+                var adapter = Class.forName(type.getName() + SUFFIX, false, type.getClassLoader());
+                return TypeAdapter.class.isAssignableFrom(adapter) ? adapter.getConstructor(Gson.class) : null;
+            } catch (ClassNotFoundException | NoSuchMethodException e) {
+                return null;
+            }
+        }
+    };
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        // generated adapters exist for non-generic classes only
+        if (type.getType() != type.getRawType()) {
+            return null;
+        }
+        var constructor = GENERATED.get(type.getRawType());
+        if (null == constructor) {
+            return null;
+        }
+        try {
+            return (TypeAdapter<T>) constructor.newInstance(gson);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unusable JSON adapter " + constructor.getDeclaringClass().getName(), e);
+        }
+    }
+
+    /**
+     * Consumes a null.
+     *
+     * @return whether the next value was null
+     */
+    public static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    public static String nextString(JsonReader in) throws IOException {
+        var token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return token == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString();
+    }
+
+    public static int nextInt(JsonReader in) throws IOException {
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    public static long nextLong(JsonReader in) throws IOException {
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    public static boolean nextBoolean(JsonReader in) throws IOException {
+        return in.peek() == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean();
+    }
+
+    /**
+     * Writes a field declared as the non-final class {@code type} like Gson's
+     * reflective adapter does: an instance of a subclass goes through the
+     * adapter of its runtime class, unless that one is reflective and the
+     * declared type has a custom adapter.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T> void write(Gson gson, TypeAdapter<T> adapter, Class<T> type, JsonWriter out, T value)
+            throws IOException {
+        if (null == value || value.getClass() == type) {
+            adapter.write(out, value);
+            return;
+        }
+        TypeAdapter runtime = gson.getAdapter(value.getClass());
+        if (isReflective(runtime) && !isReflective(gson.getAdapter(type))) {
+            runtime = adapter;
+        }
+        runtime.write(out, value);
+    }
+
+    private static boolean isReflective(TypeAdapter<?> adapter) {
+        var name = adapter.getClass().getName();
+        return name.endsWith(SUFFIX) || name.startsWith("com.google.gson.internal.bind.ReflectiveTypeAdapterFactory");
+    }
+
+    public static double finite(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(value
+                    + " is not a valid double value as per JSON specification. To override this behavior,"
+                    + " use GsonBuilder.serializeSpecialFloatingPointValues() method.");
+        }
+        return value;
+    }
+}
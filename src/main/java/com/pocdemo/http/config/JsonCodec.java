@@ -0,0 +1,29 @@
+package com.pocdemo.http.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * The default codec, backed by {@link JSONUtil}.
+ */
+public final class JsonCodec implements Codec {
+
+    @Override
+    public String mediaType() {
+        return MediaType.APPLICATION_JSON;
+    }
+
+    @Override
+    public Object read(InputStream is, Type type) throws IOException {
+        return JSONUtil.fromJson(is, type);
+    }
+
+    @Override
+    public void write(Object value, OutputStream os) throws IOException {
+        JSONUtil.toJson(value, os);
+    }
+}
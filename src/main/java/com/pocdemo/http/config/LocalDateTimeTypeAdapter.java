@@ -1,33 +1,34 @@
 package com.pocdemo.http.config;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-public class LocalDateTimeTypeAdapter implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
-
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
+/**
+ * ISO date-time, read and written on the stream without a JsonElement per
+ * value.
+ */
+public class LocalDateTimeTypeAdapter extends TypeAdapter<LocalDateTime> {
 
     @Override
-    public JsonElement serialize(LocalDateTime localDateTime, Type srcType,
-            JsonSerializationContext context) {
-
-        return new JsonPrimitive(formatter.format(localDateTime));
+    public void write(JsonWriter out, LocalDateTime localDateTime) throws IOException {
+        if (null == localDateTime) {
+            out.nullValue();
+        } else {
+            out.value(IsoDates.format(localDateTime));
+        }
     }
 
     @Override
-    public LocalDateTime deserialize(JsonElement json, Type typeOfT,
-            JsonDeserializationContext context) throws JsonParseException {
-
-        return LocalDateTime.parse(json.getAsString(), formatter);
+    public LocalDateTime read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return IsoDates.parseDateTime(in.nextString());
     }
-
 }
@@ -1,30 +1,33 @@
 package com.pocdemo.http.config;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-public class LocalDateTypeAdapter implements JsonSerializer<LocalDate>, JsonDeserializer<LocalDate> {
-
-    private final DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE;
+/**
+ * ISO date, read and written on the stream without a JsonElement per value.
+ */
+public class LocalDateTypeAdapter extends TypeAdapter<LocalDate> {
 
     @Override
-    public JsonElement serialize(final LocalDate date, final Type typeOfSrc,
-            final JsonSerializationContext context) {
-        return new JsonPrimitive(date.format(formatter));
+    public void write(JsonWriter out, LocalDate date) throws IOException {
+        if (null == date) {
+            out.nullValue();
+        } else {
+            out.value(IsoDates.format(date));
+        }
     }
 
     @Override
-    public LocalDate deserialize(final JsonElement json, final Type typeOfT,
-            final JsonDeserializationContext context) throws JsonParseException {
-        return LocalDate.parse(json.getAsString(), formatter);
+    public LocalDate read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return IsoDates.parseDate(in.nextString());
     }
 }
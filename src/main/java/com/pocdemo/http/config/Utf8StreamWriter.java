@@ -0,0 +1,103 @@
+package com.pocdemo.http.config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Reusable UTF-8 writer over a fixed byte buffer. Unlike OutputStreamWriter it
+ * can be re-pointed at another stream, so its buffer survives across responses.
+ * Closing it flushes the buffer but leaves the target stream open.
+ */
+final class Utf8StreamWriter extends Writer {
+
+    private final byte[] buf;
+    private int pos;
+    private OutputStream out;
+    private char highSurrogate;
+
+    Utf8StreamWriter(int size) {
+        this.buf = new byte[size];
+    }
+
+    Utf8StreamWriter reset(OutputStream out) {
+        this.out = out;
+        this.pos = 0;
+        this.highSurrogate = 0;
+        return this;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        put((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            put(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            put(str.charAt(i));
+        }
+    }
+
+    private void put(char c) throws IOException {
+        if (pos + 4 > buf.length) {
+            drain();
+        }
+        if (0 != highSurrogate) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int cp = Character.toCodePoint(high, c);
+                buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+                return;
+            }
+            buf[pos++] = '?';
+            put(c);
+        } else if (c < 0x80) {
+            buf[pos++] = (byte) c;
+        } else if (c < 0x800) {
+            buf[pos++] = (byte) (0xC0 | (c >> 6));
+            buf[pos++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buf[pos++] = '?';
+        } else {
+            buf[pos++] = (byte) (0xE0 | (c >> 12));
+            buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    private void drain() throws IOException {
+        if (pos > 0) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (0 != highSurrogate) {
+            highSurrogate = 0;
+            buf[pos++] = '?';
+        }
+        drain();
+    }
+}
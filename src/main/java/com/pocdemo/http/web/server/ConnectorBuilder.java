@@ -0,0 +1,181 @@
+package com.pocdemo.http.web.server;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.http2.Http2Protocol;
+
+/**
+ * Connector settings in code instead of server.xml. The defaults are those of
+ * the bundled server.xml connector: HTTP/1.1 over NIO, 20s connection timeout,
+ * no HTTP/2.
+ *
+ * <pre>
+ * new CustomTomcat(false, "", new ConnectorBuilder(8080)
+ *         .http2()
+ *         .keepAlive(60_000, 1000)
+ *         .maxConnections(20_000));
+ * </pre>
+ */
+public final class ConnectorBuilder {
+
+    public enum Protocol {
+        NIO("org.apache.coyote.http11.Http11NioProtocol"),
+        NIO2("org.apache.coyote.http11.Http11Nio2Protocol");
+
+        private final String className;
+
+        Protocol(String className) {
+            this.className = className;
+        }
+    }
+
+    private final int port;
+    private Protocol protocol = Protocol.NIO;
+    private boolean http2;
+    // null keeps Tomcat's default
+    private Integer maxConcurrentStreams;
+    private int connectionTimeout = 20000;
+    private Integer keepAliveTimeout;
+    private Integer maxKeepAliveRequests;
+    private Integer maxConnections;
+    private Integer acceptCount;
+    private int receiveBuffer = -1;
+    private int sendBuffer = -1;
+    private int redirectPort = 8443;
+
+    /**
+     * @param port 0 for any free port, see {@link Connector#getLocalPort()}
+     */
+    public ConnectorBuilder(int port) {
+        this.port = port;
+    }
+
+    public ConnectorBuilder protocol(Protocol protocol) {
+        this.protocol = protocol;
+        return this;
+    }
+
+    /**
+     * Serves HTTP/2 over cleartext next to HTTP/1.1, both to clients that
+     * upgrade with {@code Upgrade: h2c} and to clients that start with the
+     * HTTP/2 preface (prior knowledge). Many small calls then share one
+     * connection instead of queueing behind each other.
+     */
+    public ConnectorBuilder http2() {
+        this.http2 = true;
+        return this;
+    }
+
+    /**
+     * Enables HTTP/2 with at most {@code maxConcurrentStreams} requests in
+     * flight per connection, Tomcat's default is 100.
+     */
+    public ConnectorBuilder http2(int maxConcurrentStreams) {
+        this.maxConcurrentStreams = positive(maxConcurrentStreams, "maxConcurrentStreams");
+        return http2();
+    }
+
+    /**
+     * Time to wait for the request line after a connection is accepted.
+     */
+    public ConnectorBuilder connectionTimeout(int millis) {
+        this.connectionTimeout = millis;
+        return this;
+    }
+
+    /**
+     * @param timeoutMillis idle time before a kept-alive connection, HTTP/1.1
+     *                      or HTTP/2, is closed, -1 for no limit
+     * @param maxRequests   HTTP/1.1 requests per connection before it is
+     *                      closed, -1 for no limit
+     */
+    public ConnectorBuilder keepAlive(int timeoutMillis, int maxRequests) {
+        this.keepAliveTimeout = timeoutMillis;
+        this.maxKeepAliveRequests = maxRequests;
+        return this;
+    }
+
+    /**
+     * Open connections, Tomcat's default is 8192 for NIO and NIO2.
+     */
+    public ConnectorBuilder maxConnections(int maxConnections) {
+        this.maxConnections = positive(maxConnections, "maxConnections");
+        return this;
+    }
+
+    /**
+     * Backlog of connections waiting to be accepted once
+     * {@code maxConnections} is reached.
+     */
+    public ConnectorBuilder acceptCount(int acceptCount) {
+        this.acceptCount = positive(acceptCount, "acceptCount");
+        return this;
+    }
+
+    /**
+     * SO_RCVBUF and SO_SNDBUF of accepted sockets in bytes, -1 to keep the OS
+     * default.
+     */
+    public ConnectorBuilder socketBuffers(int receive, int send) {
+        this.receiveBuffer = receive;
+        this.sendBuffer = send;
+        return this;
+    }
+
+    public ConnectorBuilder redirectPort(int redirectPort) {
+        this.redirectPort = redirectPort;
+        return this;
+    }
+
+    public int port() {
+        return port;
+    }
+
+    public Connector build() {
+        var connector = new Connector(protocol.className);
+        connector.setPort(port);
+        connector.setRedirectPort(redirectPort);
+        set(connector, "connectionTimeout", connectionTimeout);
+        if (null != keepAliveTimeout) {
+            set(connector, "keepAliveTimeout", keepAliveTimeout);
+        }
+        if (null != maxKeepAliveRequests) {
+            set(connector, "maxKeepAliveRequests", maxKeepAliveRequests);
+        }
+        if (null != maxConnections) {
+            set(connector, "maxConnections", maxConnections);
+        }
+        if (null != acceptCount) {
+            set(connector, "acceptCount", acceptCount);
+        }
+        if (receiveBuffer > 0) {
+            set(connector, "socket.rxBufSize", receiveBuffer);
+        }
+        if (sendBuffer > 0) {
+            set(connector, "socket.txBufSize", sendBuffer);
+        }
+        if (http2) {
+            var h2 = new Http2Protocol();
+            if (null != keepAliveTimeout) {
+                h2.setKeepAliveTimeout(keepAliveTimeout);
+            }
+            if (null != maxConcurrentStreams) {
+                h2.setMaxConcurrentStreams(maxConcurrentStreams);
+            }
+            connector.addUpgradeProtocol(h2);
+        }
+        return connector;
+    }
+
+    private static void set(Connector connector, String name, int value) {
+        if (!connector.setProperty(name, Integer.toString(value))) {
+            throw new IllegalStateException("Unsupported connector property " + name);
+        }
+    }
+
+    private static int positive(int value, String name) {
+        if (value < 1) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return value;
+    }
+}
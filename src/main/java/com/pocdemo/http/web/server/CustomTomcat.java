@@ -11,9 +11,15 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.UUID;
 
+import org.apache.catalina.Executor;
 import org.apache.catalina.WebResourceRoot;
 import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.core.JreMemoryLeakPreventionListener;
 import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.core.StandardThreadExecutor;
+import org.apache.catalina.core.StandardVirtualThreadExecutor;
+import org.apache.catalina.core.ThreadLocalLeakPreventionListener;
 import org.apache.catalina.startup.Catalina;
 import org.apache.catalina.startup.Constants;
 import org.apache.catalina.startup.ContextConfig;
@@ -22,6 +28,11 @@ import org.apache.catalina.webresources.StandardRoot;
 import org.apache.tomcat.util.http.fileupload.FileUtils;
 import org.apache.tomcat.util.http.fileupload.IOUtils;
 
+import com.pocdemo.http.web.servlet.MetricsServlet;
+import com.pocdemo.http.web.servlet.RPCServiceDispatcherServlet;
+import com.pocdemo.http.web.servlet.ResponseCompression;
+import com.pocdemo.http.web.servlet.StaticAssets;
+
 import jakarta.servlet.MultipartConfigElement;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -29,23 +40,56 @@ import jakarta.servlet.http.HttpServletResponse;
 
 public class CustomTomcat extends Tomcat {
     private static final Logger LOGGER = System.getLogger(CustomTomcat.class.getName());
+
+    public static final int DEFAULT_FILE_SIZE_THRESHOLD = 64 * 1024;
+    public static final long DEFAULT_MAX_PART_SIZE = 32L * 1024 * 1024;
+    public static final long DEFAULT_MAX_REQUEST_SIZE = 64L * 1024 * 1024;
+
     private final StandardContext myContext;
     private final Path appDir;
     private final String tmpUploadDir;
+    private MultipartConfigElement multipart;
 
+    /**
+     * Creates the server of a CustomTomcat once its directories exist.
+     */
+    @FunctionalInterface
+    private interface ServerSetup {
+        void apply(CustomTomcat tomcat) throws IOException;
+    }
+
+    /**
+     * Server configured by the bundled server.xml.
+     */
     public CustomTomcat(Boolean enableAutoScanning, String contextPath) throws IOException {
+        this(enableAutoScanning, contextPath, CustomTomcat::loadServerXml);
+    }
+
+    /**
+     * Server configured in code like the bundled server.xml, without parsing
+     * it, and listening on {@code port}, 0 for any free port. Unlike the XML
+     * server it has no shutdown port.
+     */
+    public CustomTomcat(Boolean enableAutoScanning, String contextPath, int port) throws IOException {
+        this(enableAutoScanning, contextPath, new ConnectorBuilder(port));
+    }
+
+    /**
+     * Server configured in code like the bundled server.xml, with the given
+     * connector, e.g. one serving HTTP/2 over cleartext.
+     */
+    public CustomTomcat(Boolean enableAutoScanning, String contextPath, ConnectorBuilder connector)
+            throws IOException {
+        this(enableAutoScanning, contextPath, tomcat -> tomcat.configure(connector));
+    }
+
+    private CustomTomcat(Boolean enableAutoScanning, String contextPath, ServerSetup setup) throws IOException {
         super();
 
-        Path serverXmlPath = getResourceAsPath("server.xml");
         appDir = Files.createTempDirectory(UUID.randomUUID().toString());
         tmpUploadDir = Files.createDirectories(Paths.get(appDir.toString(), "tmpUpload")).toString();
-        System.setProperty(Constants.CATALINA_HOME_PROP, appDir.toFile().getAbsolutePath());
-
-        Catalina catalina = new Catalina();
-        catalina.setConfigFile(serverXmlPath.toString());
-        catalina.load();
-        this.server = catalina.getServer();
-        Files.delete(serverXmlPath);
+        setMultipartLimits(DEFAULT_FILE_SIZE_THRESHOLD, DEFAULT_MAX_PART_SIZE, DEFAULT_MAX_REQUEST_SIZE);
+        setup.apply(this);
 
         Path rootPath = Paths.get(".").toAbsolutePath();
         this.myContext = (StandardContext) this.addContext(contextPath, rootPath.toString());
@@ -58,6 +102,45 @@ public class CustomTomcat extends Tomcat {
         }
     }
 
+    private void loadServerXml() throws IOException {
+        Path serverXmlPath = getResourceAsPath("server.xml");
+        System.setProperty(Constants.CATALINA_HOME_PROP, appDir.toFile().getAbsolutePath());
+
+        Catalina catalina = new Catalina();
+        catalina.setConfigFile(serverXmlPath.toString());
+        catalina.load();
+        this.server = catalina.getServer();
+        Files.delete(serverXmlPath);
+    }
+
+    private void configure(ConnectorBuilder connector) {
+        setBaseDir(appDir.toFile().getAbsolutePath());
+        getServer().addLifecycleListener(new JreMemoryLeakPreventionListener());
+        getServer().addLifecycleListener(new ThreadLocalLeakPreventionListener());
+
+        var executor = new StandardThreadExecutor();
+        executor.setName("tomcatThreadPool");
+        executor.setNamePrefix("catalina-exec-");
+        executor.setMaxThreads(150);
+        executor.setMinSpareThreads(4);
+        getService().addExecutor(executor);
+        setConnector(addConnector(connector));
+    }
+
+    /**
+     * Adds a connector sharing the request executor of the existing ones, e.g.
+     * an HTTP/2 port next to the server.xml one. Must be called before start().
+     */
+    public Connector addConnector(ConnectorBuilder builder) {
+        var connector = builder.build();
+        Executor[] executors = getService().findExecutors();
+        if (executors.length > 0) {
+            connector.getProtocolHandler().setExecutor(executors[0]);
+        }
+        getService().addConnector(connector);
+        return connector;
+    }
+
     @Override
     public void stop() {
         try {
@@ -69,10 +152,68 @@ public class CustomTomcat extends Tomcat {
         }
     }
 
+    /**
+     * Replaces the executor of every connector, by default the platform
+     * {@code tomcatThreadPool} from server.xml. Must be called before start().
+     */
+    public void setRequestExecutor(Executor executor) {
+        var service = getService();
+        for (Executor old : service.findExecutors()) {
+            service.removeExecutor(old);
+        }
+        service.addExecutor(executor);
+        for (Connector connector : service.findConnectors()) {
+            connector.getProtocolHandler().setExecutor(executor);
+        }
+    }
+
+    /**
+     * Runs request processing on virtual threads. Requires a Java 21 runtime.
+     */
+    public void useVirtualThreads() {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads require Java 21, running on " + Runtime.version());
+        }
+        var executor = new StandardVirtualThreadExecutor();
+        executor.setName("tomcatVirtualThreadExecutor");
+        executor.setNamePrefix("catalina-vt-");
+        setRequestExecutor(executor);
+    }
+
     public <T extends HttpServlet> void addDispatcher(String path, T servlet) {
         Wrapper wrapper = Tomcat.addServlet(myContext, servlet.getClass().getName(), servlet);
         wrapper.addMapping(path);
-        wrapper.setMultipartConfigElement(new MultipartConfigElement(tmpUploadDir));
+        wrapper.setAsyncSupported(true);
+        wrapper.setMultipartConfigElement(multipart);
+    }
+
+    /**
+     * Multipart settings for dispatchers added afterwards. Parts up to
+     * {@code fileSizeThreshold} bytes are kept in memory, larger ones are
+     * written to a temp file as they arrive. A part over {@code maxPartSize}
+     * or a request over {@code maxRequestSize}, checked against Content-Length
+     * before anything is read, is answered with 413. -1 means no limit.
+     */
+    public void setMultipartLimits(int fileSizeThreshold, long maxPartSize, long maxRequestSize) {
+        multipart = new MultipartConfigElement(tmpUploadDir, maxPartSize, maxRequestSize, fileSizeThreshold);
+    }
+
+    /**
+     * Adds the dispatcher with negotiated gzip/deflate compression of its
+     * responses.
+     */
+    public void addDispatcher(String path, RPCServiceDispatcherServlet servlet, ResponseCompression compression) {
+        servlet.setCompression(compression);
+        addDispatcher(path, servlet);
+    }
+
+    /**
+     * Mounts the Prometheus endpoint of a dispatcher, e.g. on {@code /metrics}.
+     */
+    public void addMetrics(String path, RPCServiceDispatcherServlet dispatcher) {
+        Wrapper wrapper = Tomcat.addServlet(myContext, MetricsServlet.class.getName() + path,
+                new MetricsServlet(dispatcher.metrics()));
+        wrapper.addMapping(path);
     }
 
     private static Path getResourceAsPath(String name) throws IOException {
@@ -89,12 +230,14 @@ public class CustomTomcat extends Tomcat {
     }
 
     public static HttpServlet createResourceServlet(String path) {
+        var assets = new StaticAssets(path);
         return new HttpServlet() {
             @Override
             public void service(HttpServletRequest request, HttpServletResponse response) {
-                try (var is = getClass().getResourceAsStream(path + request.getPathInfo());
-                        var os = response.getOutputStream()) {
-                    IOUtils.copy(is, os);
+                try {
+                    if (null == request.getPathInfo() || !assets.serve(request.getPathInfo(), request, response)) {
+                        response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                    }
                 } catch (Exception ex) {
                     // ex.printStackTrace();
                     response.setStatus(HttpServletResponse.SC_NOT_FOUND);
@@ -0,0 +1,45 @@
+package com.pocdemo.http.web.servlet;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.pocdemo.http.web.servlet.AdmissionControl.Priority;
+
+/**
+ * Caps the concurrent requests of a route so that a slow one, e.g. blocked on
+ * the database, cannot take every container thread. Requests over the limit
+ * wait in a bounded queue for up to {@code maxWaitMillis}, the rest are
+ * answered at once with 503 and Retry-After. An adaptive limit starts at
+ * {@code limit} and moves between 1 and {@code maxLimit} with the route's
+ * latency: it grows by one per round of calls while latency holds and backs off
+ * by a tenth when it doubles. The priority applies to the dispatcher's
+ * {@link AdmissionControl}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Admission {
+	/**
+	 * Concurrent requests, 0 for no route limit.
+	 */
+	int limit() default 0;
+
+	/**
+	 * Requests that may wait for a slot.
+	 */
+	int queue() default 0;
+
+	long maxWaitMillis() default 100;
+
+	boolean adaptive() default false;
+
+	/**
+	 * Upper bound of an adaptive limit, 0 for four times {@code limit}.
+	 */
+	int maxLimit() default 0;
+
+	Priority priority() default Priority.NORMAL;
+
+	int retryAfterSeconds() default 1;
+}
@@ -0,0 +1,89 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.PrintWriter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatcher-wide cap on concurrent requests, below the container's thread
+ * count, shared by priority class. Normal routes may fill 80% of it and
+ * sheddable ones 50%, so the rest stays available to critical routes when the
+ * others pile up. Requests over their share are answered at once with 503.
+ * Routes are classified with {@link Admission#priority()}, NORMAL by default.
+ */
+public final class AdmissionControl {
+
+	public enum Priority {
+		CRITICAL(100), NORMAL(80), SHEDDABLE(50);
+
+		private final int percent;
+
+		Priority(int percent) {
+			this.percent = percent;
+		}
+
+		int share(int limit) {
+			return Math.max(1, limit * percent / 100);
+		}
+	}
+
+	private final int limit;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final Map<Priority, LongAdder> rejected = new EnumMap<>(Priority.class);
+
+	/**
+	 * @param limit concurrent requests of all routes, e.g. 120 for the 150
+	 *              threads of the default {@code tomcatThreadPool}
+	 */
+	public AdmissionControl(int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("limit must be positive");
+		}
+		this.limit = limit;
+		for (var p : Priority.values()) {
+			rejected.put(p, new LongAdder());
+		}
+	}
+
+	boolean tryAcquire(Priority priority) {
+		int share = priority.share(limit);
+		for (int n = inFlight.get(); n < share; n = inFlight.get()) {
+			if (inFlight.compareAndSet(n, n + 1)) {
+				return true;
+			}
+		}
+		rejected.get(priority).increment();
+		return false;
+	}
+
+	void release() {
+		inFlight.decrementAndGet();
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public long getRejected(Priority priority) {
+		return rejected.get(priority).sum();
+	}
+
+	void writePrometheus(PrintWriter out) {
+		out.println("# HELP pocdemo_admission_limit Concurrent requests admitted by the dispatcher.");
+		out.println("# TYPE pocdemo_admission_limit gauge");
+		out.append("pocdemo_admission_limit ").println(limit);
+		out.println("# HELP pocdemo_admission_in_flight Requests holding a dispatcher slot.");
+		out.println("# TYPE pocdemo_admission_in_flight gauge");
+		out.append("pocdemo_admission_in_flight ").println(getInFlight());
+		out.println("# HELP pocdemo_admission_rejected_total Requests shed by the dispatcher limit.");
+		out.println("# TYPE pocdemo_admission_rejected_total counter");
+		rejected.forEach((p, n) -> out.append("pocdemo_admission_rejected_total{priority=\"").append(p.name())
+				.append("\"} ").println(n.sum()));
+	}
+}
@@ -0,0 +1,16 @@
+package com.pocdemo.http.web.servlet;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Timeout in milliseconds for a service method returning a CompletionStage.
+ * Without it the container's async timeout applies; 0 means no timeout.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface AsyncTimeout {
+	long value();
+}
@@ -0,0 +1,348 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.catalina.Globals;
+import org.apache.tomcat.util.http.FastHttpDateFormat;
+
+import com.google.gson.JsonElement;
+import com.pocdemo.http.config.JSONUtil;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.Part;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * One entry of a {@link RequestBatching} POST, seen as a request of its own.
+ * Method, URI, parameters and a JSON body come from the entry; the other
+ * headers are a snapshot of the enclosing request, without the ones that
+ * describe its body or negotiate its encoding, and the session, principal and
+ * context path are the enclosing request's. Entries always ask for JSON and
+ * cannot go async, so async routes are awaited on the entry's thread.
+ */
+final class BatchEntryRequest extends HttpServletRequestWrapper {
+
+	private static final Set<String> NOT_INHERITED = Set.of("content-type", "content-length", "content-encoding",
+			"transfer-encoding", "accept", "accept-encoding", "range", "expect");
+
+	/** prefix of Tomcat's sendfile request attributes, see {@link Globals} */
+	private static final String SENDFILE = "org.apache.tomcat.sendfile.";
+
+	private final Map<String, List<String>> headers;
+	private final String method;
+	private final String uri;
+	private final String query;
+	private final Map<String, String[]> parameters = new LinkedHashMap<>();
+	private final Map<String, Object> attributes = new HashMap<>();
+	private final byte[] body;
+	private ServletInputStream stream;
+
+	BatchEntryRequest(HttpServletRequest request, Map<String, List<String>> headers, RequestBatching.Entry entry) {
+		super(request);
+		this.headers = headers;
+		this.method = null != entry.method() ? entry.method().toUpperCase(Locale.ROOT) : "GET";
+		var path = entry.path();
+		int q = path.indexOf('?');
+		this.uri = request.getContextPath() + (q >= 0 ? path.substring(0, q) : path);
+		this.query = q >= 0 ? path.substring(q + 1) : null;
+		if (null != query) {
+			for (var pair : query.split("&")) {
+				if (!pair.isEmpty()) {
+					int eq = pair.indexOf('=');
+					var name = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+					var value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+					add(name, value);
+				}
+			}
+		}
+		if (null != entry.params()) {
+			entry.params().forEach((name, value) -> {
+				if (null != value && value.isJsonArray()) {
+					value.getAsJsonArray().forEach(v -> add(name, text(v)));
+				} else if (null != value && !value.isJsonNull()) {
+					add(name, text(value));
+				}
+			});
+		}
+		this.body = null != entry.body() && !entry.body().isJsonNull()
+				? JSONUtil.toJson(entry.body()).getBytes(StandardCharsets.UTF_8)
+				: null;
+	}
+
+	/**
+	 * Headers entries inherit, read once on the request thread.
+	 */
+	static Map<String, List<String>> headers(HttpServletRequest rq) {
+		Map<String, List<String>> headers = new HashMap<>();
+		for (var names = rq.getHeaderNames(); names.hasMoreElements();) {
+			var name = names.nextElement().toLowerCase(Locale.ROOT);
+			if (!NOT_INHERITED.contains(name) && !name.startsWith("if-")) {
+				headers.put(name, Collections.list(rq.getHeaders(name)));
+			}
+		}
+		headers.put("accept", List.of(MediaType.APPLICATION_JSON));
+		return headers;
+	}
+
+	private static String text(JsonElement value) {
+		return value.isJsonPrimitive() ? value.getAsString() : value.toString();
+	}
+
+	private void add(String name, String value) {
+		parameters.merge(name, new String[] { value }, (a, b) -> {
+			var all = new String[a.length + 1];
+			System.arraycopy(a, 0, all, 0, a.length);
+			all[a.length] = b[0];
+			return all;
+		});
+	}
+
+	@Override
+	public String getMethod() {
+		return method;
+	}
+
+	@Override
+	public String getRequestURI() {
+		return uri;
+	}
+
+	@Override
+	public StringBuffer getRequestURL() {
+		var outer = super.getRequestURL();
+		return outer.replace(outer.length() - super.getRequestURI().length(), outer.length(), uri);
+	}
+
+	@Override
+	public String getQueryString() {
+		return query;
+	}
+
+	@Override
+	public String getParameter(String name) {
+		var values = parameters.get(name);
+		return null != values ? values[0] : null;
+	}
+
+	@Override
+	public String[] getParameterValues(String name) {
+		return parameters.get(name);
+	}
+
+	@Override
+	public Map<String, String[]> getParameterMap() {
+		return Collections.unmodifiableMap(parameters);
+	}
+
+	@Override
+	public Enumeration<String> getParameterNames() {
+		return Collections.enumeration(parameters.keySet());
+	}
+
+	@Override
+	public String getContentType() {
+		return null != body ? MediaType.APPLICATION_JSON : null;
+	}
+
+	@Override
+	public int getContentLength() {
+		return null != body ? body.length : -1;
+	}
+
+	@Override
+	public long getContentLengthLong() {
+		return getContentLength();
+	}
+
+	@Override
+	public String getCharacterEncoding() {
+		return null != body ? StandardCharsets.UTF_8.name() : null;
+	}
+
+	@Override
+	public void setCharacterEncoding(String env) {
+		// always UTF-8
+	}
+
+	@Override
+	public ServletInputStream getInputStream() {
+		if (null == stream) {
+			var in = new ByteArrayInputStream(null != body ? body : new byte[0]);
+			stream = new ServletInputStream() {
+				@Override
+				public int read() {
+					return in.read();
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) {
+					return in.read(b, off, len);
+				}
+
+				@Override
+				public boolean isFinished() {
+					return in.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(ReadListener readListener) {
+					throw new UnsupportedOperationException("Batch entries are read blocking");
+				}
+			};
+		}
+		return stream;
+	}
+
+	@Override
+	public BufferedReader getReader() {
+		return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public String getHeader(String name) {
+		var values = getHeaderList(name);
+		return values.isEmpty() ? null : values.get(0);
+	}
+
+	private List<String> getHeaderList(String name) {
+		var key = name.toLowerCase(Locale.ROOT);
+		if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(key)) {
+			return null != body ? List.of(getContentType()) : List.of();
+		} else if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(key)) {
+			return null != body ? List.of(Integer.toString(body.length)) : List.of();
+		}
+		return headers.getOrDefault(key, List.of());
+	}
+
+	@Override
+	public Enumeration<String> getHeaders(String name) {
+		return Collections.enumeration(getHeaderList(name));
+	}
+
+	@Override
+	public Enumeration<String> getHeaderNames() {
+		Collection<String> names = new ArrayList<>(headers.keySet());
+		if (null != body) {
+			names.add("content-type");
+			names.add("content-length");
+		}
+		return Collections.enumeration(names);
+	}
+
+	@Override
+	public int getIntHeader(String name) {
+		var value = getHeader(name);
+		return null != value ? Integer.parseInt(value) : -1;
+	}
+
+	@Override
+	public long getDateHeader(String name) {
+		var value = getHeader(name);
+		if (null == value) {
+			return -1;
+		}
+		long date = FastHttpDateFormat.parseDate(value);
+		if (date < 0) {
+			throw new IllegalArgumentException(value);
+		}
+		return date;
+	}
+
+	/**
+	 * The enclosing request's attributes show through, except sendfile
+	 * support: the connector only reads the sendfile attributes set on its own
+	 * request, so an entry has to write its file into the batch reply.
+	 */
+	@Override
+	public Object getAttribute(String name) {
+		var value = attributes.get(name);
+		if (null != value || name.startsWith(SENDFILE)) {
+			return value;
+		}
+		return super.getAttribute(name);
+	}
+
+	@Override
+	public Enumeration<String> getAttributeNames() {
+		var names = new ArrayList<>(attributes.keySet());
+		for (var outer = super.getAttributeNames(); outer.hasMoreElements();) {
+			var name = outer.nextElement();
+			if (!attributes.containsKey(name) && !name.startsWith(SENDFILE)) {
+				names.add(name);
+			}
+		}
+		return Collections.enumeration(names);
+	}
+
+	@Override
+	public void setAttribute(String name, Object o) {
+		attributes.put(name, o);
+	}
+
+	@Override
+	public void removeAttribute(String name) {
+		attributes.remove(name);
+	}
+
+	@Override
+	public Collection<Part> getParts() throws ServletException {
+		throw new ServletException("Batch entries have no multipart body");
+	}
+
+	@Override
+	public Part getPart(String name) throws ServletException {
+		throw new ServletException("Batch entries have no multipart body");
+	}
+
+	@Override
+	public boolean isAsyncSupported() {
+		return false;
+	}
+
+	@Override
+	public boolean isAsyncStarted() {
+		return false;
+	}
+
+	@Override
+	public AsyncContext startAsync() {
+		throw new IllegalStateException("Batch entries cannot go async");
+	}
+
+	@Override
+	public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+		throw new IllegalStateException("Batch entries cannot go async");
+	}
+
+	@Override
+	public AsyncContext getAsyncContext() {
+		throw new IllegalStateException("Batch entries cannot go async");
+	}
+}
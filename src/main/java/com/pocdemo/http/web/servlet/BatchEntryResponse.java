@@ -0,0 +1,262 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.core.HttpHeaders;
+
+/**
+ * Collects the status and body of one batch entry in memory. Headers are kept
+ * for the route's own use but not sent, and cookies are dropped.
+ */
+final class BatchEntryResponse implements HttpServletResponse {
+
+	private final Map<String, List<String>> headers = new LinkedHashMap<>();
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	private final ServletOutputStream stream = new ServletOutputStream() {
+		@Override
+		public void write(int b) {
+			buffer.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			buffer.write(b, off, len);
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			throw new UnsupportedOperationException("Batch entries are written blocking");
+		}
+	};
+	private int status = SC_OK;
+	private String contentType;
+	private String characterEncoding = StandardCharsets.UTF_8.name();
+	private PrintWriter writer;
+
+	int size() {
+		if (null != writer) {
+			writer.flush();
+		}
+		return buffer.size();
+	}
+
+	String text() {
+		return buffer.toString(Charset.forName(characterEncoding));
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() {
+		return stream;
+	}
+
+	@Override
+	public PrintWriter getWriter() {
+		if (null == writer) {
+			writer = new PrintWriter(new OutputStreamWriter(stream, Charset.forName(characterEncoding)));
+		}
+		return writer;
+	}
+
+	@Override
+	public void setStatus(int sc) {
+		status = sc;
+	}
+
+	@Override
+	public int getStatus() {
+		return status;
+	}
+
+	@Override
+	public void sendError(int sc, String msg) {
+		reset();
+		status = sc;
+		if (null != msg) {
+			contentType = "text/plain";
+			buffer.writeBytes(msg.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	@Override
+	public void sendError(int sc) {
+		sendError(sc, null);
+	}
+
+	@Override
+	public void sendRedirect(String location) {
+		reset();
+		status = SC_FOUND;
+		setHeader(HttpHeaders.LOCATION, location);
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		var key = name.toLowerCase(Locale.ROOT);
+		if (null == value) {
+			headers.remove(key);
+		} else {
+			headers.put(key, new ArrayList<>(List.of(value)));
+		}
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		if (null != value) {
+			headers.computeIfAbsent(name.toLowerCase(Locale.ROOT), k -> new ArrayList<>()).add(value);
+		}
+	}
+
+	@Override
+	public void setIntHeader(String name, int value) {
+		setHeader(name, Integer.toString(value));
+	}
+
+	@Override
+	public void addIntHeader(String name, int value) {
+		addHeader(name, Integer.toString(value));
+	}
+
+	@Override
+	public void setDateHeader(String name, long date) {
+		setHeader(name, Long.toString(date));
+	}
+
+	@Override
+	public void addDateHeader(String name, long date) {
+		addHeader(name, Long.toString(date));
+	}
+
+	@Override
+	public boolean containsHeader(String name) {
+		return headers.containsKey(name.toLowerCase(Locale.ROOT));
+	}
+
+	@Override
+	public String getHeader(String name) {
+		var values = headers.get(name.toLowerCase(Locale.ROOT));
+		return null != values ? values.get(0) : null;
+	}
+
+	@Override
+	public Collection<String> getHeaders(String name) {
+		return headers.getOrDefault(name.toLowerCase(Locale.ROOT), List.of());
+	}
+
+	@Override
+	public Collection<String> getHeaderNames() {
+		return headers.keySet();
+	}
+
+	@Override
+	public void addCookie(Cookie cookie) {
+		// entries share the batch's response headers, which they do not write
+	}
+
+	@Override
+	public String encodeURL(String url) {
+		return url;
+	}
+
+	@Override
+	public String encodeRedirectURL(String url) {
+		return url;
+	}
+
+	@Override
+	public String getCharacterEncoding() {
+		return characterEncoding;
+	}
+
+	@Override
+	public void setCharacterEncoding(String charset) {
+		if (null == writer && null != charset) {
+			characterEncoding = charset;
+		}
+	}
+
+	@Override
+	public String getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public void setContentType(String type) {
+		contentType = type;
+	}
+
+	@Override
+	public void setContentLength(int len) {
+		setContentLengthLong(len);
+	}
+
+	@Override
+	public void setContentLengthLong(long len) {
+		// the batch answer carries its own length
+	}
+
+	@Override
+	public void setBufferSize(int size) {
+		// fully buffered
+	}
+
+	@Override
+	public int getBufferSize() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public void flushBuffer() {
+		if (null != writer) {
+			writer.flush();
+		}
+	}
+
+	@Override
+	public void resetBuffer() {
+		writer = null;
+		buffer.reset();
+	}
+
+	@Override
+	public boolean isCommitted() {
+		return false;
+	}
+
+	@Override
+	public void reset() {
+		resetBuffer();
+		headers.clear();
+		status = SC_OK;
+		contentType = null;
+		characterEncoding = StandardCharsets.UTF_8.name();
+	}
+
+	@Override
+	public void setLocale(Locale loc) {
+		// ignored
+	}
+
+	@Override
+	public Locale getLocale() {
+		return Locale.ROOT;
+	}
+}
@@ -0,0 +1,21 @@
+package com.pocdemo.http.web.servlet;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the serialized response of a {@code @GET} method, keyed by its bound
+ * parameter values. Only for methods that are pure functions of their
+ * {@code @QueryParam}, {@code @HeaderParam} and {@code @PathParam} inputs, of
+ * types that compare by value: scalars, strings, dates, enums, and records and
+ * lists of them.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CacheResponse {
+	long ttlSeconds();
+
+	int maxEntries() default 1024;
+}
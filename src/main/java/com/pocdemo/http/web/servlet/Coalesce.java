@@ -0,0 +1,28 @@
+package com.pocdemo.http.web.servlet;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets concurrent calls of a {@code @GET} method with the same bound parameter
+ * values share one invocation: the first runs it, the others wait for it and
+ * are sent the same serialized response, or the same error. Only for methods
+ * that are pure functions of their inputs, as for {@link CacheResponse}; with
+ * both, a cache miss is filled by one invocation.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Coalesce {
+	/**
+	 * Requests that may wait for one invocation; the next one starts another.
+	 */
+	int maxWaiters() default 256;
+
+	/**
+	 * Longest a request waits for another's invocation before it is answered
+	 * 503.
+	 */
+	long maxWaitMillis() default 30_000;
+}
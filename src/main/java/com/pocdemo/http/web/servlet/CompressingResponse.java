@@ -0,0 +1,359 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import jakarta.ws.rs.core.HttpHeaders;
+
+/**
+ * Holds back the first {@code minSize} bytes of the body to decide whether it
+ * is worth compressing, then streams it through a pooled Deflater. The
+ * Content-Length is only passed on when the body goes out uncompressed. A
+ * reset before the response is committed starts the decision over.
+ */
+final class CompressingResponse extends HttpServletResponseWrapper {
+
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	private final ResponseCompression config;
+	private final String coding;
+	private final CompressingStream stream;
+	private PrintWriter writer;
+	private boolean usingStream;
+	private long contentLength = -1;
+
+	CompressingResponse(HttpServletResponse response, ResponseCompression config, String coding) {
+		super(response);
+		this.config = config;
+		this.coding = coding;
+		this.stream = new CompressingStream(config.minSize());
+	}
+
+	private HttpServletResponse target() {
+		return (HttpServletResponse) getResponse();
+	}
+
+	/**
+	 * Sends the body as is from here on.
+	 */
+	private void passThrough() {
+		try {
+			stream.decide(false);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public void setContentType(String type) {
+		super.setContentType(type);
+		if (config.isExcluded(type)) {
+			passThrough();
+		}
+	}
+
+	@Override
+	public void setContentLength(int len) {
+		setContentLengthLong(len);
+	}
+
+	@Override
+	public void setContentLengthLong(long len) {
+		if (stream.mode == Mode.PLAIN || len < config.minSize()) {
+			passThrough();
+			super.setContentLengthLong(len);
+		} else if (stream.mode == Mode.BUFFERING) {
+			contentLength = len;
+		}
+	}
+
+	@Override
+	public void setStatus(int sc) {
+		super.setStatus(sc);
+		if (sc == SC_NO_CONTENT || sc == SC_NOT_MODIFIED || sc == SC_PARTIAL_CONTENT) {
+			passThrough();
+		}
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) && null != value) {
+			setContentLengthLong(Long.parseLong(value));
+		} else {
+			super.setHeader(name, header(name, value));
+		}
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) && null != value) {
+			setContentLengthLong(Long.parseLong(value));
+		} else {
+			super.addHeader(name, header(name, value));
+		}
+	}
+
+	private String header(String name, String value) {
+		if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+			// already encoded by the route
+			passThrough();
+		} else if (HttpHeaders.ETAG.equalsIgnoreCase(name) && null != value && !value.startsWith("W/")) {
+			// the encoded variant is not byte-identical, so the validator can only be weak
+			return "W/" + value;
+		}
+		return value;
+	}
+
+	/**
+	 * Completes the body once the route has returned, in case it left the
+	 * stream or writer open.
+	 */
+	void finish() throws IOException {
+		if (null != writer) {
+			writer.close();
+		} else {
+			stream.close();
+		}
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() {
+		if (null != writer) {
+			throw new IllegalStateException("getWriter() has already been called");
+		}
+		usingStream = true;
+		return stream;
+	}
+
+	@Override
+	public PrintWriter getWriter() {
+		if (usingStream) {
+			throw new IllegalStateException("getOutputStream() has already been called");
+		}
+		if (null == writer) {
+			writer = new PrintWriter(new OutputStreamWriter(stream, Charset.forName(getCharacterEncoding())));
+		}
+		return writer;
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		if (null != writer) {
+			writer.flush();
+		}
+		if (stream.mode == Mode.BUFFERING) {
+			stream.decide(false);
+		}
+		stream.flush();
+		super.flushBuffer();
+	}
+
+	@Override
+	public void resetBuffer() {
+		super.resetBuffer();
+		try {
+			stream.discard();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Also drops the chosen coding with the headers, so that the body written
+	 * afterwards is decided on again.
+	 */
+	@Override
+	public void reset() {
+		super.reset();
+		stream.undecide();
+		writer = null;
+		usingStream = false;
+		contentLength = -1;
+		target().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+	}
+
+	private enum Mode {
+		BUFFERING, PLAIN, COMPRESSING, CLOSED
+	}
+
+	private final class CompressingStream extends ServletOutputStream {
+		private final byte[] held;
+		private final byte[] out = new byte[8192];
+		private final CRC32 crc = new CRC32();
+		private ServletOutputStream target;
+		private Deflater deflater;
+		private Mode mode = Mode.BUFFERING;
+		private int count;
+		private long total;
+
+		CompressingStream(int minSize) {
+			this.held = new byte[Math.max(minSize, 1)];
+		}
+
+		void decide(boolean compress) throws IOException {
+			if (mode != Mode.BUFFERING) {
+				return;
+			}
+			if (compress) {
+				mode = Mode.COMPRESSING;
+				var rs = target();
+				rs.setHeader(HttpHeaders.CONTENT_ENCODING, coding);
+				deflater = config.borrow(coding);
+				target = rs.getOutputStream();
+				if (ResponseCompression.GZIP.equals(coding)) {
+					target.write(GZIP_HEADER);
+					crc.reset();
+				}
+				deflate(held, 0, count);
+			} else {
+				mode = Mode.PLAIN;
+				if (contentLength >= 0) {
+					target().setContentLengthLong(contentLength);
+				}
+				if (count > 0) {
+					target = target().getOutputStream();
+					target.write(held, 0, count);
+				}
+			}
+			count = 0;
+		}
+
+		/**
+		 * Drops the body written so far; a compressed body starts a new
+		 * stream under the Content-Encoding already sent.
+		 */
+		void discard() throws IOException {
+			count = 0;
+			if (mode == Mode.COMPRESSING) {
+				deflater.reset();
+				total = 0;
+				if (ResponseCompression.GZIP.equals(coding)) {
+					target.write(GZIP_HEADER);
+					crc.reset();
+				}
+			}
+		}
+
+		/**
+		 * Back to holding the body after the headers were reset.
+		 */
+		void undecide() {
+			if (null != deflater) {
+				config.release(coding, deflater);
+				deflater = null;
+			}
+			mode = Mode.BUFFERING;
+			target = null;
+			count = 0;
+			total = 0;
+		}
+
+		private ServletOutputStream plain() throws IOException {
+			if (null == target) {
+				target = target().getOutputStream();
+			}
+			return target;
+		}
+
+		private void deflate(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return;
+			}
+			if (ResponseCompression.GZIP.equals(coding)) {
+				crc.update(b, off, len);
+			}
+			total += len;
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) {
+				drain(Deflater.NO_FLUSH);
+			}
+		}
+
+		private int drain(int flush) throws IOException {
+			int n = deflater.deflate(out, 0, out.length, flush);
+			if (n > 0) {
+				target.write(out, 0, n);
+			}
+			return n;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			switch (mode) {
+				case PLAIN -> plain().write(b, off, len);
+				case COMPRESSING -> deflate(b, off, len);
+				case BUFFERING -> {
+					if (count + len <= held.length) {
+						System.arraycopy(b, off, held, count, len);
+						count += len;
+					} else {
+						decide(true);
+						deflate(b, off, len);
+					}
+				}
+				case CLOSED -> throw new IOException("Stream closed");
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (mode == Mode.COMPRESSING) {
+				while (drain(Deflater.SYNC_FLUSH) == out.length) {
+					// output buffer was full, more pending
+				}
+				target.flush();
+			} else if (mode == Mode.PLAIN) {
+				plain().flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (mode == Mode.CLOSED) {
+				return;
+			}
+			decide(false);
+			if (mode == Mode.COMPRESSING) {
+				try {
+					deflater.finish();
+					while (!deflater.finished()) {
+						drain(Deflater.NO_FLUSH);
+					}
+					if (ResponseCompression.GZIP.equals(coding)) {
+						long c = crc.getValue();
+						target.write(new byte[] { (byte) c, (byte) (c >> 8), (byte) (c >> 16), (byte) (c >> 24),
+								(byte) total, (byte) (total >> 8), (byte) (total >> 16), (byte) (total >> 24) });
+					}
+				} finally {
+					config.release(coding, deflater);
+					deflater = null;
+				}
+			}
+			mode = Mode.CLOSED;
+			plain().close();
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			throw new IllegalStateException("Compressed responses are written blocking");
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.PrintWriter;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.pocdemo.http.web.servlet.RPCServiceDispatcherServlet.ActionKey;
+
+/**
+ * Route statistics of one dispatcher, published as MXBeans under
+ * {@code com.pocdemo.http:type=Route} and as Prometheus text.
+ */
+public final class DispatcherMetrics {
+
+	private static final Logger LOGGER = System.getLogger(DispatcherMetrics.class.getName());
+
+	private final Map<ActionKey, RouteStats> routes = new ConcurrentHashMap<>();
+	private final Map<Integer, LongAdder> unmatched = new ConcurrentHashMap<>();
+	private final List<ObjectName> registered = new ArrayList<>();
+	private AdmissionControl admission;
+
+	RouteStats route(ActionKey key) {
+		return routes.computeIfAbsent(key, k -> new RouteStats(k.path(), k.httpMathod()));
+	}
+
+	void admission(AdmissionControl admission) {
+		this.admission = admission;
+	}
+
+	void unmatched(int status) {
+		unmatched.computeIfAbsent(status, s -> new LongAdder()).increment();
+	}
+
+	public Collection<RouteStats> routes() {
+		return routes.values();
+	}
+
+	synchronized void registerMBeans(String dispatcher) {
+		var server = ManagementFactory.getPlatformMBeanServer();
+		for (var stats : routes.values()) {
+			try {
+				var name = new ObjectName("com.pocdemo.http:type=Route,dispatcher=" + ObjectName.quote(dispatcher)
+						+ ",method=" + stats.getHttpMethod() + ",path=" + ObjectName.quote(stats.getPath()));
+				if (!server.isRegistered(name)) {
+					server.registerMBean(stats, name);
+					registered.add(name);
+				}
+			} catch (JMException e) {
+				LOGGER.log(Level.WARNING, "Cannot register route MBean", e);
+			}
+		}
+	}
+
+	synchronized void unregisterMBeans() {
+		var server = ManagementFactory.getPlatformMBeanServer();
+		for (var name : registered) {
+			try {
+				server.unregisterMBean(name);
+			} catch (JMException e) {
+				LOGGER.log(Level.DEBUG, "Route MBean already gone", e);
+			}
+		}
+		registered.clear();
+	}
+
+	/**
+	 * Writes all routes in the Prometheus text exposition format 0.0.4.
+	 */
+	public void writePrometheus(PrintWriter out) {
+		Map<String, RouteStats> sorted = new TreeMap<>();
+		routes.values().forEach(r -> sorted.put(r.labels(), r));
+
+		out.println("# HELP pocdemo_route_seconds Dispatcher latency by route and phase.");
+		out.println("# TYPE pocdemo_route_seconds histogram");
+		sorted.values().forEach(r -> r.writePhases(out, "pocdemo_route_seconds"));
+
+		out.println("# HELP pocdemo_route_in_flight Requests currently being served.");
+		out.println("# TYPE pocdemo_route_in_flight gauge");
+		sorted.values().forEach(r -> out.append("pocdemo_route_in_flight{").append(r.labels()).append("} ")
+				.println(r.getInFlight()));
+
+		out.println("# HELP pocdemo_route_errors_total Responses with an error status.");
+		out.println("# TYPE pocdemo_route_errors_total counter");
+		sorted.values().forEach(r -> r.writeErrors(out, "pocdemo_route_errors_total"));
+
+		out.println("# HELP pocdemo_route_rejected_total Requests shed with 503 by admission control.");
+		out.println("# TYPE pocdemo_route_rejected_total counter");
+		sorted.values().forEach(r -> out.append("pocdemo_route_rejected_total{").append(r.labels()).append("} ")
+				.println(r.getRejected()));
+
+		out.println("# HELP pocdemo_route_concurrency_limit Current limit of a route with an @Admission limit.");
+		out.println("# TYPE pocdemo_route_concurrency_limit gauge");
+		sorted.values().stream().filter(RouteStats::isLimited).forEach(r -> out
+				.append("pocdemo_route_concurrency_limit{").append(r.labels()).append("} ")
+				.println(r.getConcurrencyLimit()));
+
+		out.println("# HELP pocdemo_route_queue_depth Requests waiting for a slot of a limited route.");
+		out.println("# TYPE pocdemo_route_queue_depth gauge");
+		sorted.values().stream().filter(RouteStats::isLimited).forEach(r -> out
+				.append("pocdemo_route_queue_depth{").append(r.labels()).append("} ").println(r.getQueueDepth()));
+
+		out.println("# HELP pocdemo_route_coalesced_total Requests sent the response of an identical in-flight request.");
+		out.println("# TYPE pocdemo_route_coalesced_total counter");
+		sorted.values().stream().filter(RouteStats::isCoalesced).forEach(r -> out
+				.append("pocdemo_route_coalesced_total{").append(r.labels()).append("} ").println(r.getCoalesced()));
+
+		if (null != admission) {
+			admission.writePrometheus(out);
+		}
+
+		out.println("# HELP pocdemo_unmatched_total Requests that matched no route or method.");
+		out.println("# TYPE pocdemo_unmatched_total counter");
+		new TreeMap<>(unmatched).forEach((status, n) -> out.append("pocdemo_unmatched_total{status=\"")
+				.append(status.toString()).append("\"} ").println(n.sum()));
+	}
+}
@@ -0,0 +1,261 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.catalina.Globals;
+
+import jakarta.servlet.ServletRequestWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Writes {@link File}, {@link Path} and {@link ByteBuffer} results. Answers
+ * conditional requests with 304, serves single and multiple byte ranges, and
+ * hands whole files to Tomcat's sendfile when the connector supports it,
+ * otherwise copies with {@link FileChannel#transferTo}.
+ */
+final class FileResponses {
+
+	private static final String BOUNDARY = "POCDEMO_BYTERANGE_BOUNDARY";
+
+	private static final int MAX_RANGES = 16;
+
+	private record Body(Path path, ByteBuffer buffer, long length, long lastModified, String etag) {
+	}
+
+	private FileResponses() {
+	}
+
+	static boolean isFileBody(Object ret) {
+		return ret instanceof File || ret instanceof Path || ret instanceof ByteBuffer;
+	}
+
+	static void write(Object ret, HttpServletRequest rq, HttpServletResponse rs) throws IOException {
+		Body body;
+		try {
+			body = body(ret);
+		} catch (NoSuchFileException e) {
+			throw new WebException(HttpServletResponse.SC_NOT_FOUND, "File not found");
+		}
+		rs.setHeader("Accept-Ranges", "bytes");
+		if (null != body.etag()) {
+			rs.setHeader(HttpHeaders.ETAG, body.etag());
+			rs.setDateHeader(HttpHeaders.LAST_MODIFIED, body.lastModified());
+			if (notModified(rq, body)) {
+				rs.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+		}
+		if (null != body.path()) {
+			rs.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+					"attachment; filename=\"" + body.path().getFileName() + "\"");
+		}
+
+		var ranges = ifRangeMatches(rq, body) ? ranges(rq.getHeader("Range"), body.length()) : null;
+		if (null != ranges && ranges.isEmpty()) {
+			rs.setHeader("Content-Range", "bytes */" + body.length());
+			rs.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			return;
+		}
+		if (null == ranges) {
+			rs.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+			rs.setContentLengthLong(body.length());
+			if (!sendfile(rq, body, 0, body.length())) {
+				copy(body, 0, body.length(), rs);
+			}
+		} else if (ranges.size() == 1) {
+			long start = ranges.get(0)[0];
+			long end = ranges.get(0)[1];
+			rs.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			rs.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+			rs.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + body.length());
+			rs.setContentLengthLong(end - start + 1);
+			if (!sendfile(rq, body, start, end + 1)) {
+				copy(body, start, end + 1, rs);
+			}
+		} else {
+			rs.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			rs.setContentType("multipart/byteranges; boundary=" + BOUNDARY);
+			try (var os = rs.getOutputStream()) {
+				for (long[] range : ranges) {
+					os.write(("\r\n--" + BOUNDARY + "\r\nContent-Type: " + MediaType.APPLICATION_OCTET_STREAM
+							+ "\r\nContent-Range: bytes " + range[0] + "-" + range[1] + "/" + body.length()
+							+ "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+					transfer(body, range[0], range[1] + 1, os);
+				}
+				os.write(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1));
+			}
+		}
+	}
+
+	private static Body body(Object ret) throws IOException {
+		if (ret instanceof ByteBuffer buf) {
+			return new Body(null, buf, buf.remaining(), -1, null);
+		}
+		var path = ret instanceof File file ? file.toPath() : (Path) ret;
+		var attrs = Files.readAttributes(path, BasicFileAttributes.class);
+		long lastModified = attrs.lastModifiedTime().toMillis();
+		return new Body(path, null, attrs.size(), lastModified,
+				"W/\"" + attrs.size() + "-" + lastModified + "\"");
+	}
+
+	private static boolean notModified(HttpServletRequest rq, Body body) {
+		var inm = rq.getHeader(HttpHeaders.IF_NONE_MATCH);
+		if (null != inm) {
+			for (var tag : inm.split(",")) {
+				tag = tag.trim();
+				if ("*".equals(tag) || weakMatch(tag, body.etag())) {
+					return true;
+				}
+			}
+			return false;
+		}
+		long ims = dateHeader(rq, HttpHeaders.IF_MODIFIED_SINCE);
+		return ims >= 0 && body.lastModified() / 1000 <= ims / 1000;
+	}
+
+	private static boolean ifRangeMatches(HttpServletRequest rq, Body body) {
+		var ifRange = rq.getHeader("If-Range");
+		if (null == ifRange) {
+			return true;
+		}
+		if (null == body.etag()) {
+			return false;
+		}
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			// If-Range needs a strong match, our validators are weak
+			return false;
+		}
+		long since = dateHeader(rq, "If-Range");
+		return since >= 0 && body.lastModified() / 1000 == since / 1000;
+	}
+
+	private static boolean weakMatch(String a, String b) {
+		return a.startsWith("W/") ? a.substring(2).equals(b.substring(2)) : a.equals(b.substring(2));
+	}
+
+	private static long dateHeader(HttpServletRequest rq, String name) {
+		try {
+			return rq.getDateHeader(name);
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return inclusive [start, end] pairs; null to serve the whole body, empty
+	 *         when nothing is satisfiable
+	 */
+	static List<long[]> ranges(String header, long length) {
+		if (null == header || !header.startsWith("bytes=")) {
+			return null;
+		}
+		var specs = header.substring("bytes=".length()).split(",");
+		if (specs.length > MAX_RANGES) {
+			return null;
+		}
+		List<long[]> res = new ArrayList<>(specs.length);
+		for (var spec : specs) {
+			spec = spec.trim();
+			int dash = spec.indexOf('-');
+			if (dash < 0) {
+				return null;
+			}
+			try {
+				if (dash == 0) {
+					long suffix = Long.parseLong(spec.substring(1));
+					if (suffix > 0 && length > 0) {
+						res.add(new long[] { Math.max(0, length - suffix), length - 1 });
+					}
+				} else {
+					long start = Long.parseLong(spec.substring(0, dash));
+					long end = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+					if (end < start) {
+						return null;
+					}
+					if (start < length) {
+						res.add(new long[] { start, Math.min(end, length - 1) });
+					}
+				}
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Only for the container's own request: the connector reads the sendfile
+	 * attributes from it, never from a wrapper such as a batch entry.
+	 */
+	private static boolean sendfile(HttpServletRequest rq, Body body, long start, long end) {
+		if (null == body.path() || rq instanceof ServletRequestWrapper || rq.isAsyncStarted()
+				|| !Boolean.TRUE.equals(rq.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))
+				|| body.path().getFileSystem() != FileSystems.getDefault()) {
+			return false;
+		}
+		rq.setAttribute(Globals.SENDFILE_FILENAME_ATTR, body.path().toAbsolutePath().toString());
+		rq.setAttribute(Globals.SENDFILE_FILE_START_ATTR, Long.valueOf(start));
+		rq.setAttribute(Globals.SENDFILE_FILE_END_ATTR, Long.valueOf(end));
+		return true;
+	}
+
+	private static void copy(Body body, long start, long end, HttpServletResponse rs) throws IOException {
+		try (var os = rs.getOutputStream()) {
+			transfer(body, start, end, os);
+		}
+	}
+
+	private static void transfer(Body body, long start, long end, OutputStream os) throws IOException {
+		WritableByteChannel out = Channels.newChannel(os);
+		if (null != body.buffer()) {
+			var slice = body.buffer().duplicate();
+			int from = slice.position() + (int) start;
+			slice.position(from).limit(from + (int) (end - start));
+			while (slice.hasRemaining()) {
+				out.write(slice);
+			}
+			return;
+		}
+		try (SeekableByteChannel in = Files.newByteChannel(body.path())) {
+			if (in instanceof FileChannel fc) {
+				for (long pos = start; pos < end;) {
+					long n = fc.transferTo(pos, end - pos, out);
+					if (n <= 0) {
+						break;
+					}
+					pos += n;
+				}
+			} else {
+				in.position(start);
+				var buf = ByteBuffer.allocate(8192);
+				for (long left = end - start; left > 0;) {
+					buf.clear().limit((int) Math.min(buf.capacity(), left));
+					int n = in.read(buf);
+					if (n < 0) {
+						break;
+					}
+					left -= n;
+					out.write(buf.flip());
+				}
+			}
+		}
+	}
+}
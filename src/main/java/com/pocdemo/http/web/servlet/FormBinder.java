@@ -0,0 +1,338 @@
+package com.pocdemo.http.web.servlet;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Populates a DTO directly from form fields. Each type is analysed once into
+ * per-field setters and converters; keys address nested fields as
+ * {@code address.city} and list elements as {@code tags}, repeated, or
+ * {@code items[0].name}. A type with any field this cannot bind, or with Gson
+ * annotations such as {@code @SerializedName}, gets no binder at all, so the
+ * caller keeps binding it through Gson.
+ */
+final class FormBinder {
+
+	private static final Map<Class<?>, FormBinder> binders = new HashMap<>();
+
+	/** types registered by the running {@link #of} and its nested calls */
+	private static final List<Class<?>> analysing = new ArrayList<>();
+
+	private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final Object SKIP = new Object();
+
+	private static final int MAX_INDEX = 10_000;
+
+	private record Property(MethodHandle getter, MethodHandle setter, Function<String, Object> converter,
+			FormBinder nested, Supplier<Collection<Object>> collection) {
+	}
+
+	private final Class<?> type;
+	private final MethodHandle ctor;
+	private final Map<String, Property> properties = new HashMap<>();
+
+	private FormBinder(Class<?> type, MethodHandle ctor) {
+		this.type = type;
+		this.ctor = ctor;
+	}
+
+	/**
+	 * @return the binder for the type, or null when the type or one of its
+	 *         fields cannot be bound field by field (no no-arg constructor,
+	 *         records, maps, UUIDs, ...)
+	 */
+	static FormBinder of(Class<?> type) {
+		synchronized (binders) {
+			if (binders.containsKey(type)) {
+				return binders.get(type);
+			}
+			var ctor = constructor(type);
+			var binder = null != ctor ? new FormBinder(type, ctor) : null;
+			// registered before analysis so that self-referencing types resolve
+			binders.put(type, binder);
+			if (null == binder) {
+				return null;
+			}
+			boolean outermost = analysing.isEmpty();
+			analysing.add(type);
+			boolean bound = false;
+			try {
+				bound = binder.analyze();
+			} finally {
+				if (outermost) {
+					if (!bound) {
+						// a type analysed meanwhile may refer back to this one
+						analysing.forEach(binders::remove);
+					}
+					analysing.clear();
+				}
+				if (!bound) {
+					binders.put(type, null);
+				}
+			}
+			return bound ? binder : null;
+		}
+	}
+
+	private static MethodHandle constructor(Class<?> type) {
+		// JDK classes such as Date or Object keep their state out of reach
+		if (type.isInterface() || type.isRecord() || type.isEnum() || type.isArray() || type.isPrimitive()
+				|| type.getPackageName().startsWith("java.")
+				|| Modifier.isAbstract(type.getModifiers()) || null != converter(type)
+				|| Map.class.isAssignableFrom(type) || Collection.class.isAssignableFrom(type)) {
+			return null;
+		}
+		try {
+			var c = type.getDeclaredConstructor();
+			c.setAccessible(true);
+			return MethodHandles.lookup().unreflectConstructor(c).asType(MethodType.methodType(Object.class));
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return false when a field cannot be bound
+	 */
+	private boolean analyze() {
+		for (Class<?> c = type; null != c && Object.class != c; c = c.getSuperclass()) {
+			if (gsonAnnotated(c.getAnnotations())) {
+				return false;
+			}
+			for (Field f : c.getDeclaredFields()) {
+				int mod = f.getModifiers();
+				if (Modifier.isStatic(mod) || Modifier.isTransient(mod) || f.isSynthetic()
+						|| properties.containsKey(f.getName())) {
+					continue;
+				}
+				if (Modifier.isFinal(mod) || gsonAnnotated(f.getAnnotations())) {
+					return false;
+				}
+				var prop = property(f);
+				if (null == prop) {
+					return false;
+				}
+				properties.put(f.getName(), prop);
+			}
+		}
+		return true;
+	}
+
+	/** Gson renames, adapts or excludes such fields, which only it knows how to */
+	private static boolean gsonAnnotated(Annotation[] annotations) {
+		for (var a : annotations) {
+			if (a.annotationType().getPackageName().equals(SerializedName.class.getPackageName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Property property(Field f) {
+		Class<?> ft = f.getType();
+		Function<String, Object> conv = null;
+		FormBinder nested = null;
+		Supplier<Collection<Object>> coll = null;
+		if (Collection.class.isAssignableFrom(ft)) {
+			if (ft.isAssignableFrom(ArrayList.class)) {
+				coll = ArrayList::new;
+			} else if (ft.isAssignableFrom(LinkedHashSet.class)) {
+				coll = LinkedHashSet::new;
+			} else {
+				return null;
+			}
+			Class<?> et = elementType(f.getGenericType());
+			conv = null != et ? converter(et) : null;
+			nested = null != et && null == conv && List.class.isAssignableFrom(ft) ? of(et) : null;
+		} else {
+			conv = converter(ft);
+			nested = null == conv ? of(ft) : null;
+		}
+		if (null == conv && null == nested) {
+			return null;
+		}
+		try {
+			f.setAccessible(true);
+			var lookup = MethodHandles.lookup();
+			return new Property(lookup.unreflectGetter(f).asType(GETTER), lookup.unreflectSetter(f).asType(SETTER),
+					conv, nested, coll);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static Class<?> elementType(Type generic) {
+		if (generic instanceof ParameterizedType pt && pt.getActualTypeArguments()[0] instanceof Class<?> c) {
+			return c;
+		}
+		return null;
+	}
+
+	/**
+	 * @return converter from the form value, or null when the type is not a
+	 *         scalar. Blank values convert to null for anything but String.
+	 */
+	static Function<String, Object> converter(Class<?> type) {
+		Function<String, Object> conv;
+		if (String.class == type) {
+			return v -> v;
+		} else if (Integer.class == type || int.class == type) {
+			conv = Integer::valueOf;
+		} else if (Long.class == type || long.class == type) {
+			conv = Long::valueOf;
+		} else if (Short.class == type || short.class == type) {
+			conv = Short::valueOf;
+		} else if (Byte.class == type || byte.class == type) {
+			conv = Byte::valueOf;
+		} else if (Float.class == type || float.class == type) {
+			conv = Float::valueOf;
+		} else if (Double.class == type || double.class == type) {
+			conv = Double::valueOf;
+		} else if (Boolean.class == type || boolean.class == type) {
+			conv = Boolean::valueOf;
+		} else if (BigDecimal.class == type) {
+			conv = BigDecimal::new;
+		} else if (BigInteger.class == type) {
+			conv = BigInteger::new;
+		} else if (LocalDate.class == type) {
+			conv = v -> LocalDate.parse(v, DateTimeFormatter.ISO_DATE);
+		} else if (LocalDateTime.class == type) {
+			conv = v -> LocalDateTime.parse(v, DateTimeFormatter.ISO_DATE_TIME);
+		} else if (type.isEnum()) {
+			conv = v -> enumValue(type, v);
+		} else {
+			return null;
+		}
+		var primitive = type.isPrimitive();
+		return v -> null == v || v.isBlank() ? (primitive ? SKIP : null) : conv.apply(v.trim());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object enumValue(Class<?> type, String v) {
+		return Enum.valueOf((Class<? extends Enum>) type, v);
+	}
+
+	Object newInstance() {
+		try {
+			return (Object) ctor.invokeExact();
+		} catch (Throwable e) {
+			throw new IllegalStateException("Cannot instantiate " + type, e);
+		}
+	}
+
+	/**
+	 * Binds the values of one form key onto the target. Unknown keys are
+	 * ignored; collection values are appended.
+	 */
+	void set(Object target, String key, String[] values) {
+		try {
+			set(target, key, 0, values);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException("Cannot bind " + key + " on " + type, e);
+		}
+	}
+
+	private void set(Object target, String key, int from, String[] values) throws Throwable {
+		int end = from;
+		while (end < key.length() && key.charAt(end) != '.' && key.charAt(end) != '[') {
+			end++;
+		}
+		var prop = properties.get(from == 0 && end == key.length() ? key : key.substring(from, end));
+		if (null == prop || null == values || values.length == 0) {
+			return;
+		}
+		int index = -1;
+		if (end < key.length() && key.charAt(end) == '[') {
+			int close = key.indexOf(']', end);
+			if (close < 0 || null == prop.collection()) {
+				return;
+			}
+			index = Integer.parseInt(key, end + 1, close, 10);
+			if (index < 0 || index > MAX_INDEX) {
+				throw new IllegalArgumentException("Index out of range: " + key);
+			}
+			end = close + 1;
+		}
+		boolean leaf = end >= key.length();
+		if (null != prop.converter()) {
+			if (!leaf) {
+				return;
+			}
+			if (null == prop.collection()) {
+				var value = prop.converter().apply(values[0]);
+				if (SKIP != value) {
+					prop.setter().invokeExact(target, value);
+				}
+			} else {
+				var coll = collection(target, prop);
+				for (var v : values) {
+					if (index >= 0 && coll instanceof List<Object> list) {
+						setAt(list, index, prop.converter().apply(v));
+					} else {
+						coll.add(prop.converter().apply(v));
+					}
+				}
+			}
+		} else if (!leaf && key.charAt(end) == '.') {
+			Object child;
+			if (null == prop.collection()) {
+				child = (Object) prop.getter().invokeExact(target);
+				if (null == child) {
+					child = prop.nested().newInstance();
+					prop.setter().invokeExact(target, child);
+				}
+			} else if (index >= 0 && collection(target, prop) instanceof List<Object> list) {
+				child = index < list.size() ? list.get(index) : null;
+				if (null == child) {
+					child = prop.nested().newInstance();
+					setAt(list, index, child);
+				}
+			} else {
+				return;
+			}
+			prop.nested().set(child, key, end + 1, values);
+		}
+	}
+
+	private static Collection<Object> collection(Object target, Property prop) throws Throwable {
+		@SuppressWarnings("unchecked")
+		var coll = (Collection<Object>) (Object) prop.getter().invokeExact(target);
+		if (null == coll) {
+			coll = prop.collection().get();
+			prop.setter().invokeExact(target, (Object) coll);
+		}
+		return coll;
+	}
+
+	private static void setAt(List<Object> list, int index, Object value) {
+		while (list.size() <= index) {
+			list.add(null);
+		}
+		list.set(index, value);
+	}
+}
@@ -0,0 +1,99 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two buckets from about a microsecond to 17 seconds.
+ * Recording is a leading-zero count and two or three LongAdder increments.
+ */
+final class LatencyHistogram {
+
+	private static final int MIN_SHIFT = 10;
+
+	private static final int BUCKETS = 25;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKETS + 1];
+	private final LongAdder sum = new LongAdder();
+
+	LatencyHistogram() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	void record(long nanos) {
+		int idx = nanos <= 1L << MIN_SHIFT ? 0 : 64 - Long.numberOfLeadingZeros(nanos - 1) - MIN_SHIFT;
+		buckets[Math.min(idx, BUCKETS)].increment();
+		sum.add(nanos);
+	}
+
+	/**
+	 * @return the bucket counts, the last one being the overflow bucket
+	 */
+	long[] snapshot() {
+		long[] counts = new long[buckets.length];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = buckets[i].sum();
+		}
+		return counts;
+	}
+
+	long count() {
+		long n = 0;
+		for (var b : buckets) {
+			n += b.sum();
+		}
+		return n;
+	}
+
+	long sumNanos() {
+		return sum.sum();
+	}
+
+	/**
+	 * @return the upper bound of the bucket holding the given quantile, in
+	 *         nanoseconds, or 0 if nothing was recorded
+	 */
+	long quantile(double q) {
+		long[] counts = snapshot();
+		long total = 0;
+		for (long c : counts) {
+			total += c;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(q * total);
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return i < BUCKETS ? upperBound(i) : Long.MAX_VALUE;
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+
+	private static long upperBound(int bucket) {
+		return 1L << (MIN_SHIFT + bucket);
+	}
+
+	/**
+	 * Writes the cumulative {@code _bucket}, {@code _sum} and {@code _count}
+	 * samples of a Prometheus histogram, in seconds.
+	 */
+	void writePrometheus(PrintWriter out, String name, String labels) {
+		long[] counts = snapshot();
+		long cumulative = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			cumulative += counts[i];
+			out.append(name).append("_bucket{").append(labels).append(",le=\"")
+					.append(Double.toString(upperBound(i) / 1e9)).append("\"} ").println(cumulative);
+		}
+		cumulative += counts[BUCKETS];
+		out.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ").println(cumulative);
+		out.append(name).append("_sum{").append(labels).append("} ").println(Double.toString(sum.sum() / 1e9));
+		out.append(name).append("_count{").append(labels).append("} ").println(cumulative);
+	}
+}
@@ -0,0 +1,36 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves the route metrics of a dispatcher as Prometheus text.
+ */
+public class MetricsServlet extends HttpServlet {
+
+	private final transient DispatcherMetrics metrics;
+
+	public MetricsServlet(DispatcherMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+		response.setContentType("text/plain; version=0.0.4");
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		// the exposition format wants \n whatever the platform separator is
+		try (PrintWriter out = new PrintWriter(response.getWriter()) {
+			@Override
+			public void println() {
+				write('\n');
+			}
+		}) {
+			metrics.writePrometheus(out);
+		}
+	}
+}
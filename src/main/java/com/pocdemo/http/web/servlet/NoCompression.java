@@ -0,0 +1,16 @@
+package com.pocdemo.http.web.servlet;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sends the responses of a route uncompressed even when the dispatcher has
+ * {@link ResponseCompression} configured, e.g. for bodies that are already
+ * compressed or must be flushed without delay.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface NoCompression {
+}
@@ -0,0 +1,141 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tomcat.util.http.fileupload.impl.SizeException;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.Part;
+
+/**
+ * Multipart parts handed to service methods as streams. Parts below the
+ * {@code fileSizeThreshold} of the servlet's MultipartConfigElement are read
+ * from memory and larger ones from their temp file, so a method can consume an
+ * upload incrementally. The streams are closed when the request completes.
+ */
+final class PartStreams {
+
+	private static final Logger LOGGER = System.getLogger(PartStreams.class.getName());
+
+	private static final String OPEN = PartStreams.class.getName() + ".open";
+
+	private PartStreams() {
+	}
+
+	/**
+	 * @return the part's content, or null when the request has no such part
+	 */
+	static InputStream open(HttpServletRequest rq, String name) throws IOException, ServletException {
+		var part = rq.getPart(name);
+		if (null == part) {
+			return null;
+		}
+		var is = part.getInputStream();
+		@SuppressWarnings("unchecked")
+		var open = (List<Closeable>) rq.getAttribute(OPEN);
+		if (null == open) {
+			open = new ArrayList<>(2);
+			rq.setAttribute(OPEN, open);
+		}
+		open.add(is);
+		return is;
+	}
+
+	static ReadableByteChannel channel(HttpServletRequest rq, String name) throws IOException, ServletException {
+		var is = open(rq, name);
+		return null != is ? Channels.newChannel(is) : null;
+	}
+
+	/**
+	 * Text of a small part such as a form field, in the charset the part
+	 * declares, UTF-8 otherwise.
+	 */
+	static String text(Part part) throws IOException {
+		try (var is = part.getInputStream()) {
+			return new String(is.readAllBytes(), charset(part.getContentType()));
+		}
+	}
+
+	static Charset charset(String contentType) {
+		if (null != contentType) {
+			for (var param : contentType.split(";")) {
+				var p = param.trim();
+				if (p.regionMatches(true, 0, "charset=", 0, 8)) {
+					try {
+						return Charset.forName(p.substring(8).replace("\"", "").trim());
+					} catch (IllegalArgumentException e) {
+						// unknown charset, fall back
+					}
+				}
+			}
+		}
+		return StandardCharsets.UTF_8;
+	}
+
+	/**
+	 * @return whether the failure is a part or request over the multipart
+	 *         limits
+	 */
+	static boolean isTooLarge(Throwable e) {
+		for (var t = e; null != t; t = t.getCause()) {
+			if (t instanceof SizeException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static void close(ServletRequest rq) {
+		@SuppressWarnings("unchecked")
+		var open = (List<Closeable>) rq.getAttribute(OPEN);
+		if (null == open) {
+			return;
+		}
+		rq.removeAttribute(OPEN);
+		for (var c : open) {
+			try {
+				c.close();
+			} catch (IOException e) {
+				LOGGER.log(Level.DEBUG, "Could not close part stream", e);
+			}
+		}
+	}
+
+	static AsyncListener closeOnComplete(ServletRequest rq) {
+		return new AsyncListener() {
+			@Override
+			public void onComplete(AsyncEvent event) {
+				close(rq);
+			}
+
+			@Override
+			public void onTimeout(AsyncEvent event) {
+				// onComplete follows
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+				// onComplete follows
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+				// not re-dispatched
+			}
+		};
+	}
+}
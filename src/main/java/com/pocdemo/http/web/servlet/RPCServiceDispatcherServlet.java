@@ -1,36 +1,61 @@
 package com.pocdemo.http.web.servlet;
 
-import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.math.BigDecimal;
-import java.nio.file.Files;
+import java.math.BigInteger;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.apache.tomcat.util.http.fileupload.IOUtils;
+import org.apache.tomcat.util.buf.UDecoder;
 
 import com.pocdemo.http.common.lambda.Lambdas;
 import com.pocdemo.http.common.lambda.Lambdas.UncheckedBiFunction;
+import com.pocdemo.http.config.Codecs;
 import com.pocdemo.http.config.JSONUtil;
-
+import com.pocdemo.http.web.servlet.RouteIndex.Caching;
+import com.pocdemo.http.web.servlet.RouteIndex.Coalescing;
+import com.pocdemo.http.web.servlet.RouteIndex.Limits;
+import com.pocdemo.http.web.servlet.RouteIndex.Param;
+import com.pocdemo.http.web.servlet.RouteIndex.Route;
+import com.pocdemo.http.web.servlet.RouteIndex.Source;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
@@ -40,9 +65,11 @@ import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.FormParam;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.HttpHeaders;
@@ -52,7 +79,10 @@ public class RPCServiceDispatcherServlet extends HttpServlet {
 
 	private static final Logger LOGGER = System.getLogger(RPCServiceDispatcherServlet.class.getName());
 
-	static record Service(BiConsumer<HttpServletRequest, HttpServletResponse> function) {
+	static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+	static record Service(BiConsumer<HttpServletRequest, HttpServletResponse> function, RouteStats stats,
+			boolean compressible, RouteLimiter limiter) {
 
 	}
 
@@ -60,110 +90,230 @@ public class RPCServiceDispatcherServlet extends HttpServlet {
 
 	}
 
-	final Map<ActionKey, Service> mappings = new HashMap<>();
+	final RouteTrie<Map<String, Service>> routes = new RouteTrie<>();
+
+	final Map<String, ResponseCache> caches = new HashMap<>();
+
+	final DispatcherMetrics metrics = new DispatcherMetrics();
+
+	private ResponseCompression compression;
+
+	private RequestBatching batching;
+
+	private AdmissionControl admission;
 
 	static final UncheckedBiFunction<String, HttpServletRequest, Part> partExtractor = (n, r) -> r.getPart(n);
 
 	static final Function<Part, String> partToString = p -> null != p
-			? Lambdas.closing(p::getInputStream, is -> new String(is.readAllBytes()))
+			? Lambdas.apply(p, PartStreams::text)
 			: null;
 
+	private record WebMethod(Method method, Route route) {
+	}
+
 	public RPCServiceDispatcherServlet(Set<Object> services) {
+		for (Object instance : services) {
+			for (var web : webMethods(instance.getClass())) {
+				var mthd = web.method();
+				var route = web.route();
+				String actionPath = route.path();
+				var types = route.parameterTypes();
+				// the declared generics, only read by body parameters
+				var generics = mthd.getGenericParameterTypes();
+				List<Function<HttpServletRequest, Object>> readers = new ArrayList<>(types.length);
+				for (int i = 0; i < types.length; i++) {
+					readers.add(createReader(route.params().get(i), types[i], generics[i], actionPath));
+				}
+				var methods = routes.computeIfAbsent(actionPath, HashMap::new);
+				route.httpMethods().forEach(webMethod -> {
+					var key = new ActionKey(actionPath, webMethod);
+					var stats = metrics.route(key);
+					var limiter = RouteLimiter.of(route.limits());
+					stats.limitedBy(limiter);
+					var srv = new Service(createInvoker(instance, mthd, route, readers, stats), stats,
+							route.compress(), limiter);
+					methods.put(webMethod, srv);
+				});
+			}
+		}
+	}
+
+	/**
+	 * Web methods of a service class, from its generated {@link RouteIndex} if
+	 * there is one, otherwise by scanning its public methods and their
+	 * annotations.
+	 */
+	private static List<WebMethod> webMethods(Class<?> type) {
+		var index = RouteIndex.of(type);
+		if (null != index) {
+			List<WebMethod> found = new ArrayList<>();
+			for (var route : index.routes()) {
+				try {
+					found.add(new WebMethod(type.getMethod(route.name(), route.parameterTypes()), route));
+				} catch (NoSuchMethodException e) {
+					throw new IllegalStateException("Stale route index for " + type.getName(), e);
+				}
+			}
+			return found;
+		}
+
 		@SuppressWarnings("unchecked")
 		Class<? extends Annotation>[] webAnnotations = new Class[] { GET.class, POST.class, PUT.class, DELETE.class };
 		Predicate<Method> isWebMethod = method -> Stream.of(webAnnotations)
-				.map(method::isAnnotationPresent)
-				.findAny().isPresent();
+				.anyMatch(method::isAnnotationPresent);
 		Function<Method, List<String>> httpMethodGetter = method -> Stream.of(webAnnotations)
 				.filter(method::isAnnotationPresent)
 				.map(Class::getSimpleName)
 				.collect(Collectors.toList());
 
-		for (Object instance : services) {
-			Class<?> type = instance.getClass();
-			String domainPath = type.getAnnotation(Path.class).value();
-			Stream.of(type.getMethods()).filter(isWebMethod).forEach(mthd -> {
-				String actionPath = domainPath
+		String domainPath = type.getAnnotation(Path.class).value();
+		return Stream.of(type.getMethods()).filter(isWebMethod)
+				.map(mthd -> new WebMethod(mthd, describe(mthd, domainPath
 						+ (null != mthd.getAnnotation(Path.class)
 								? mthd.getAnnotation(Path.class).value()
-								: "");
-				int paramCount = mthd.getParameters().length;
-				List<Function<HttpServletRequest, Object>> readers = new ArrayList<>(paramCount);
-				for (var prm : mthd.getParameters()) {
-					readers.add(createReader(prm));
-				}
-				var action = createInvoker(instance, mthd, readers);
-				httpMethodGetter.apply(mthd)
-						.forEach(webMethod -> mappings.put(
-								new ActionKey(actionPath, webMethod),
-								new Service(action)));
-			});
+								: ""),
+						httpMethodGetter.apply(mthd))))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * The route of a scanned method, read from its annotations as
+	 * {@link RouteIndexProcessor} reads them at compile time.
+	 */
+	private static Route describe(Method mthd, String path, List<String> httpMethods) {
+		List<Param> params = new ArrayList<>();
+		for (var prm : mthd.getParameters()) {
+			if (prm.isAnnotationPresent(HeaderParam.class)) {
+				params.add(new Param(Source.HEADER, prm.getAnnotation(HeaderParam.class).value()));
+			} else if (prm.isAnnotationPresent(PathParam.class)) {
+				params.add(new Param(Source.PATH, prm.getAnnotation(PathParam.class).value()));
+			} else if (prm.isAnnotationPresent(QueryParam.class)) {
+				params.add(new Param(Source.QUERY, prm.getAnnotation(QueryParam.class).value()));
+			} else if (prm.isAnnotationPresent(FormParam.class)) {
+				params.add(new Param(Source.FORM, prm.getAnnotation(FormParam.class).value()));
+			} else {
+				params.add(new Param(Source.BODY, null));
+			}
 		}
+		var produces = mthd.getAnnotation(Produces.class);
+		var timeout = mthd.getAnnotation(AsyncTimeout.class);
+		var cache = mthd.getAnnotation(CacheResponse.class);
+		var coalesce = mthd.getAnnotation(Coalesce.class);
+		var admission = mthd.getAnnotation(Admission.class);
+		return new Route(path, mthd.getName(), mthd.getParameterTypes(), httpMethods, params,
+				null != produces && produces.value().length > 0 ? produces.value()[0] : null,
+				!mthd.isAnnotationPresent(NoCompression.class), null != timeout ? timeout.value() : -1,
+				null != cache ? new Caching(cache.ttlSeconds(), cache.maxEntries()) : null,
+				null != coalesce ? new Coalescing(coalesce.maxWaiters(), coalesce.maxWaitMillis()) : null,
+				null != admission
+						? new Limits(admission.limit(), admission.queue(), admission.maxWaitMillis(),
+								admission.adaptive(), admission.maxLimit(), admission.priority(),
+								admission.retryAfterSeconds())
+						: null);
 	}
 
-	static BiConsumer<HttpServletRequest, HttpServletResponse> createParameterReaderFn(Method mthd, Object[] params,
+	static BiFunction<HttpServletRequest, HttpServletResponse, Object[]> createParameterReaderFn(Method mthd,
 			List<Function<HttpServletRequest, Object>> readers) {
+		var prms = mthd.getParameters();
+		@SuppressWarnings("unchecked")
+		UncheckedBiFunction<HttpServletRequest, HttpServletResponse, Object>[] argReaders = new UncheckedBiFunction[prms.length];
+		for (int i = 0; i < prms.length; i++) {
+			var reader = readers.get(i);
+			var typ = prms[i].getType();
+			if (null != reader) {
+				argReaders[i] = (rq, rs) -> reader.apply(rq);
+			} else if (HttpServletRequest.class.isAssignableFrom(typ)) {
+				argReaders[i] = (rq, rs) -> rq;
+			} else if (HttpServletResponse.class.isAssignableFrom(typ)) {
+				argReaders[i] = (rq, rs) -> rs;
+			} else if (OutputStream.class.isAssignableFrom(typ)) {
+				argReaders[i] = (rq, rs) -> rs.getOutputStream();
+			} else if (InputStream.class.isAssignableFrom(typ)) {
+				argReaders[i] = (rq, rs) -> rq.getInputStream();
+			} else {
+				argReaders[i] = (rq, rs) -> null;
+			}
+		}
 		return (rq, rs) -> {
+			// every request gets its own argument frame, only the compiled handle is shared
+			Object[] params = new Object[argReaders.length];
 			try {
 				for (int i = 0; i < params.length; i++) {
-					var reader = readers.get(i);
-					if (null == reader) {
-						var typ = mthd.getParameters()[i].getType();
-						if (HttpServletRequest.class.isAssignableFrom(typ)) {
-							params[i] = rq;
-						} else if (HttpServletResponse.class.isAssignableFrom(typ)) {
-							params[i] = rs;
-						} else if (OutputStream.class.isAssignableFrom(typ)) {
-							params[i] = rs.getOutputStream();
-						} else if (InputStream.class.isAssignableFrom(typ)) {
-							params[i] = rq.getInputStream();
-						}
-					} else {
-						params[i] = readers.get(i).apply(rq);
-					}
+					params[i] = argReaders[i].apply(rq, rs);
 				}
 			} catch (Exception e) {
-				e.printStackTrace();
+				if (PartStreams.isTooLarge(e)) {
+					throw new WebException(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Request too large");
+				}
 				LOGGER.log(Level.ERROR, "failed to parse method parameters", e);
 				throw new WebException(HttpServletResponse.SC_BAD_REQUEST, "Bad request");
 			}
+			return params;
 		};
 	}
 
-	static BiConsumer<HttpServletRequest, HttpServletResponse> createMethodInvokerFn(Object service, Method mthd,
-			Object[] params) {
-		var ann = mthd.getAnnotation(Produces.class);
-		return (rq, rs) -> {
-			Object ret = null;
+	static MethodHandle compileMethodHandle(Object service, Method mthd) {
+		try {
+			MethodHandle handle = MethodHandles.lookup().unreflect(mthd);
+			if (!Modifier.isStatic(mthd.getModifiers())) {
+				handle = handle.bindTo(service);
+			}
+			// (Object[])Object, so that every route is called through the same invokeExact site
+			return handle.asSpreader(Object[].class, mthd.getParameterCount())
+					.asType(MethodType.methodType(Object.class, Object[].class));
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Method not accessible: " + mthd, e);
+		}
+	}
+
+	static Function<Object[], Object> createMethodInvokerFn(Object service, Method mthd) {
+		var handle = compileMethodHandle(service, mthd);
+		return params -> {
+			try {
+				return (Object) handle.invokeExact(params);
+			} catch (RuntimeException ex) {
+				throw ex;
+			} catch (Throwable ex) {
+				LOGGER.log(Level.ERROR, "Internal excep", ex);
+				throw new WebException("Unexpected failure");
+			}
+		};
+	}
+
+	@FunctionalInterface
+	interface ResponseWriter {
+		void write(Object ret, HttpServletRequest rq, HttpServletResponse rs);
+	}
+
+	/**
+	 * @param produces the route's first {@code @Produces} value, or null
+	 */
+	static ResponseWriter createResponseWriterFn(String produces) {
+		return (ret, rq, rs) -> {
 			try {
-				ret = mthd.invoke(service, params);
 				if (null != ret) {
-					if (File.class.isAssignableFrom(mthd.getReturnType())) {
-						var file = File.class.cast(ret);
-						rs.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-						rs.setHeader(HttpHeaders.CONTENT_DISPOSITION,
-								"attachment; filename=\"" + file.getName() + "\"");
-						try (var os = rs.getOutputStream(); var is = Files.newInputStream(file.toPath())) {
-							IOUtils.copyLarge(is, os);
-						}
-					} else if (ret instanceof String && null != ann && MediaType.TEXT_PLAIN.equals(ann.value()[0])) {
+					if (FileResponses.isFileBody(ret)) {
+						FileResponses.write(ret, rq, rs);
+					} else if (ret instanceof Iterator<?> || ret instanceof Stream<?>) {
+						writeRows(ret, rq, rs);
+					} else if (ret instanceof String && MediaType.TEXT_PLAIN.equals(produces)) {
 						rs.setContentType(MediaType.TEXT_PLAIN);
-						var value = ret;
-						Lambdas.takeAndClose(rs::getWriter, w -> w.println(value));
+						Lambdas.takeAndClose(rs::getWriter, w -> w.println(ret));
 					} else {
-						var jsn = JSONUtil.toJson(ret);
-						rs.setContentType(MediaType.APPLICATION_JSON);
-						Lambdas.takeAndClose(rs::getWriter, w -> w.write(jsn));
+						rs.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+						var codec = Codecs.forAccept(rq.getHeader(HttpHeaders.ACCEPT));
+						if (null != codec) {
+							rs.setContentType(codec.mediaType());
+							Lambdas.takeAndClose(rs::getOutputStream, os -> codec.write(ret, os));
+						} else {
+							rs.setContentType(MediaType.APPLICATION_JSON);
+							rs.setCharacterEncoding(StandardCharsets.UTF_8.name());
+							Lambdas.takeAndClose(rs::getOutputStream, os -> JSONUtil.toJson(ret, os));
+						}
 					}
 				}
-			} catch (InvocationTargetException ie) {
-				var ex = ie.getCause();
-				if (ex instanceof RuntimeException) {
-					throw (RuntimeException) ex;
-				} else {
-					LOGGER.log(Level.ERROR, "Internal excep", ex);
-					throw new WebException("Unexpected failure");
-				}
+			} catch (WebException e) {
+				throw e;
 			} catch (Exception e) {
 				LOGGER.log(Level.ERROR, "Internal excep", e);
 				throw new WebException("Unexpected error");
@@ -171,74 +321,415 @@ public class RPCServiceDispatcherServlet extends HttpServlet {
 		};
 	}
 
-	BiConsumer<HttpServletRequest, HttpServletResponse> createInvoker(Object service, Method mthd,
-			List<Function<HttpServletRequest, Object>> readers) {
-		Object[] params = new Object[mthd.getParameters().length];
-		BiConsumer<HttpServletRequest, HttpServletResponse> paramReader = createParameterReaderFn(mthd, params,
-				readers);
+	/**
+	 * Streams an Iterator or Stream result element by element, as NDJSON when
+	 * the client accepts it, otherwise as a JSON array. AutoCloseable results,
+	 * such as a RowCursor, are closed afterwards.
+	 */
+	static void writeRows(Object ret, HttpServletRequest rq, HttpServletResponse rs) throws Exception {
+		var stream = ret instanceof Stream<?> s ? s : null;
+		Iterator<?> rows = null != stream ? stream.iterator() : (Iterator<?>) ret;
+		var accept = rq.getHeader(HttpHeaders.ACCEPT);
+		boolean ndjson = null != accept && accept.contains(APPLICATION_NDJSON);
+		rs.setContentType(ndjson ? APPLICATION_NDJSON : MediaType.APPLICATION_JSON);
+		rs.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		try (var os = rs.getOutputStream()) {
+			if (ndjson) {
+				JSONUtil.toJsonLines(rows, os);
+			} else {
+				JSONUtil.toJsonArray(rows, os);
+			}
+		} finally {
+			if (null != stream) {
+				stream.close();
+			} else if (rows instanceof AutoCloseable closeable) {
+				closeable.close();
+			}
+		}
+	}
 
-		BiConsumer<HttpServletRequest, HttpServletResponse> invoker = createMethodInvokerFn(service, mthd, params);
-		return paramReader.andThen(invoker);
+	BiConsumer<HttpServletRequest, HttpServletResponse> createInvoker(Object service, Method mthd, Route route,
+			List<Function<HttpServletRequest, Object>> readers, RouteStats stats) {
+		var bind = createParameterReaderFn(mthd, readers);
+		var invoke = createMethodInvokerFn(service, mthd);
+		var write = createResponseWriterFn(route.produces());
+		BiFunction<HttpServletRequest, HttpServletResponse, Object[]> paramReader = (rq, rs) -> {
+			long start = System.nanoTime();
+			try {
+				return bind.apply(rq, rs);
+			} finally {
+				stats.binding.record(System.nanoTime() - start);
+			}
+		};
+		Function<Object[], Object> invoker = params -> {
+			long start = System.nanoTime();
+			try {
+				return invoke.apply(params);
+			} finally {
+				stats.invocation.record(System.nanoTime() - start);
+			}
+		};
+		ResponseWriter writer = (ret, rq, rs) -> {
+			long start = System.nanoTime();
+			try {
+				write.write(ret, rq, rs);
+			} finally {
+				stats.serialization.record(System.nanoTime() - start);
+			}
+		};
+		if (CompletionStage.class.isAssignableFrom(mthd.getReturnType())) {
+			if (null != route.coalescing()) {
+				throw new IllegalStateException("@Coalesce needs a synchronous method: " + mthd);
+			}
+			long timeoutMillis = route.asyncTimeoutMillis();
+			return (rq, rs) -> writeAsync(invoker.apply(paramReader.apply(rq, rs)), rq, rs, writer, timeoutMillis);
+		}
+		var cacheable = route.caching();
+		var coalesce = route.coalescing();
+		if (null != cacheable || null != coalesce) {
+			if (null != cacheable) {
+				checkCacheable(mthd, route, CacheResponse.class);
+			}
+			if (null != coalesce) {
+				checkCacheable(mthd, route, Coalesce.class);
+			}
+			var cache = null == cacheable ? null
+					: caches.computeIfAbsent(route.path(),
+							p -> new ResponseCache(cacheable.ttlSeconds(), cacheable.maxEntries()));
+			var flights = null == coalesce ? null
+					: new SingleFlight(coalesce.maxWaiters(), coalesce.maxWaitMillis());
+			stats.coalescedBy(flights);
+			var produces = route.produces();
+			return (rq, rs) -> {
+				Object[] params = paramReader.apply(rq, rs);
+				if (null != Codecs.forAccept(rq.getHeader(HttpHeaders.ACCEPT))) {
+					// only the JSON rendering is cached or shared
+					writer.write(invoker.apply(params), rq, rs);
+					return;
+				}
+				var key = ResponseCache.key(params);
+				var hit = null != cache ? cache.get(key) : null;
+				try {
+					if (null == hit) {
+						Supplier<Object> call = () -> render(invoker.apply(params), produces);
+						var res = null != flights ? flights.execute(key, call) : call.get();
+						if (!(res instanceof RenderedResponse rendered)) {
+							writer.write(res, rq, rs);
+							return;
+						}
+						hit = rendered;
+						if (null != cache) {
+							cache.put(key, hit);
+						}
+					}
+					if (!hit.contentType().startsWith(MediaType.TEXT_PLAIN)) {
+						// as the writer does for the JSON it renders
+						rs.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+					}
+					long start = System.nanoTime();
+					hit.write(rq, rs, null != cache ? cache.cacheControl() : null);
+					stats.serialization.record(System.nanoTime() - start);
+				} catch (IOException e) {
+					LOGGER.log(Level.ERROR, "Internal excep", e);
+					throw new WebException("Unexpected error");
+				}
+			};
+		}
+		return (rq, rs) -> writer.write(invoker.apply(paramReader.apply(rq, rs)), rq, rs);
 	}
 
-	private Function<HttpServletRequest, Object> createReader(Parameter prm) {
-		Function<String, Object> caster = v -> cast(v, prm.getType());
+	/**
+	 * The serialized result, or the result itself if it is streamed.
+	 */
+	private static Object render(Object ret, String produces) {
+		try {
+			var rendered = RenderedResponse.render(ret, produces);
+			return null != rendered ? rendered : ret;
+		} catch (IOException e) {
+			LOGGER.log(Level.ERROR, "Internal excep", e);
+			throw new WebException("Unexpected error");
+		}
+	}
+
+	/**
+	 * A cached or shared response must depend only on the bound parameter
+	 * values, so only GET methods without request, response or stream
+	 * parameters qualify. The values are the key, so each must be equal to
+	 * the one bound from the same input.
+	 */
+	private static void checkCacheable(Method mthd, Route route, Class<? extends Annotation> by) {
+		var name = "@" + by.getSimpleName();
+		if (!route.httpMethods().contains(HttpMethod.GET)) {
+			throw new IllegalStateException(name + " needs a @GET method: " + mthd);
+		}
+		var generics = mthd.getGenericParameterTypes();
+		for (int i = 0; i < generics.length; i++) {
+			var typ = route.parameterTypes()[i];
+			if (HttpServletRequest.class.isAssignableFrom(typ) || HttpServletResponse.class.isAssignableFrom(typ)
+					|| InputStream.class.isAssignableFrom(typ) || OutputStream.class.isAssignableFrom(typ)
+					|| ReadableByteChannel.class.isAssignableFrom(typ) || Part.class.isAssignableFrom(typ)) {
+				throw new IllegalStateException(name + " method reads the raw request: " + mthd);
+			}
+			if (!hasValueEquals(generics[i])) {
+				throw new IllegalStateException(name + " needs parameters that compare by value, not "
+						+ generics[i].getTypeName() + ": " + mthd);
+			}
+		}
+	}
+
+	/**
+	 * Scalars, enums, strings, java.time values, and records and lists of
+	 * them; a DTO or an array equals only itself.
+	 */
+	private static boolean hasValueEquals(Type type) {
+		if (type instanceof ParameterizedType pt) {
+			return List.class == pt.getRawType() && hasValueEquals(pt.getActualTypeArguments()[0]);
+		}
+		if (!(type instanceof Class<?> c)) {
+			return false;
+		}
+		// java.lang covers String and the boxes; atomics are Numbers equal only to themselves
+		if (c.isPrimitive() || c.isEnum()
+				|| c.getPackageName().equals("java.lang") && Comparable.class.isAssignableFrom(c)
+				|| BigDecimal.class == c || BigInteger.class == c || UUID.class == c
+				|| c.getPackageName().equals("java.time")) {
+			return true;
+		}
+		if (c.isRecord()) {
+			for (var component : c.getRecordComponents()) {
+				if (!hasValueEquals(component.getGenericType())) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Drops every cached response of the route registered under
+	 * {@code path}, e.g. after a write that changes what it returns.
+	 */
+	public void invalidateCache(String path) {
+		var cache = caches.get(path);
+		if (null != cache) {
+			cache.invalidateAll();
+		}
+	}
+
+	/**
+	 * Drops the cached response for one set of parameter values, given in
+	 * declaration order.
+	 */
+	public void invalidateCache(String path, Object... params) {
+		var cache = caches.get(path);
+		if (null != cache) {
+			cache.invalidate(ResponseCache.key(params));
+		}
+	}
+
+	public void invalidateCache() {
+		caches.values().forEach(ResponseCache::invalidateAll);
+	}
+
+	public Map<String, ResponseCache.Stats> cacheStats() {
+		Map<String, ResponseCache.Stats> stats = new HashMap<>();
+		caches.forEach((path, cache) -> stats.put(path, cache.stats()));
+		return stats;
+	}
+
+	/**
+	 * Releases the container thread and writes the result once the stage
+	 * completes, or answers 503 if the timeout elapses first.
+	 */
+	static void writeAsync(Object ret, HttpServletRequest rq, HttpServletResponse rs,
+			ResponseWriter writer, long timeoutMillis) {
+		if (null == ret) {
+			return;
+		}
+		if (!rq.isAsyncSupported()) {
+			// e.g. a batch entry, which already runs off the container thread
+			await((CompletionStage<?>) ret, rq, rs, writer, timeoutMillis);
+			return;
+		}
+		var async = rq.startAsync(rq, rs);
+		if (timeoutMillis >= 0) {
+			async.setTimeout(timeoutMillis);
+		}
+		var done = new AtomicBoolean();
+		async.addListener(new AsyncListener() {
+			@Override
+			public void onTimeout(AsyncEvent event) {
+				if (done.compareAndSet(false, true)) {
+					LOGGER.log(Level.WARNING, "Async request timed out: {0}", rq.getRequestURI());
+					writeError(rs, new WebException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request timed out"));
+					async.complete();
+				}
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+				if (done.compareAndSet(false, true)) {
+					async.complete();
+				}
+			}
+
+			@Override
+			public void onComplete(AsyncEvent event) {
+				// nothing to release
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+				// not re-dispatched
+			}
+		});
+		((CompletionStage<?>) ret).whenComplete((value, err) -> {
+			if (!done.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				if (null != err) {
+					writeFailure(rs, err);
+				} else {
+					writer.write(value, rq, rs);
+				}
+			} catch (Exception ex) {
+				writeError(rs, ex);
+			} finally {
+				async.complete();
+			}
+		});
+	}
+
+	private static void await(CompletionStage<?> stage, HttpServletRequest rq, HttpServletResponse rs,
+			ResponseWriter writer, long timeoutMillis) {
+		try {
+			var future = stage.toCompletableFuture();
+			writer.write(timeoutMillis >= 0 ? future.get(timeoutMillis, TimeUnit.MILLISECONDS) : future.get(), rq, rs);
+		} catch (TimeoutException e) {
+			LOGGER.log(Level.WARNING, "Async request timed out: {0}", rq.getRequestURI());
+			writeError(rs, new WebException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request timed out"));
+		} catch (ExecutionException e) {
+			writeFailure(rs, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			writeError(rs, new WebException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request interrupted"));
+		}
+	}
+
+	private static void writeFailure(HttpServletResponse rs, Throwable err) {
+		var cause = (err instanceof CompletionException || err instanceof ExecutionException) && null != err.getCause()
+				? err.getCause()
+				: err;
+		if (cause instanceof RuntimeException rx) {
+			writeError(rs, rx);
+		} else {
+			LOGGER.log(Level.ERROR, "Internal excep", cause);
+			writeError(rs, new WebException("Unexpected failure"));
+		}
+	}
+
+	/**
+	 * @param type    the erased parameter type
+	 * @param generic the declared one, for bodies of generic types
+	 */
+	private Function<HttpServletRequest, Object> createReader(Param prm, Class<?> type, Type generic,
+			String actionPath) {
+		Function<String, Object> caster = v -> cast(v, type);
 
 		Function<HttpServletRequest, Object> fromText = r -> Lambdas.closing(r::getInputStream,
 				is -> new String(is.readAllBytes()));
 
 		Function<HttpServletRequest, Object> fromJson = r -> Lambdas.closing(r::getInputStream,
-				is -> JSONUtil.fromJson(is, prm.getType()));
+				is -> JSONUtil.fromJson(is, type));
 
-		Function<HttpServletRequest, Object> fromParams = r -> {
-			Map<String, String> map = new HashMap<>();
-			r.getParameterMap().forEach((k, v) -> map.put(k, v[0]));
-			return JSONUtil.fromJson(JSONUtil.toJson(map), prm.getType());
+		Function<HttpServletRequest, Object> fromCodec = r -> {
+			var codec = Codecs.forContentType(r.getContentType());
+			if (null == codec) {
+				throw new WebException(400, "Unexpected content type: " + r.getContentType());
+			}
+			return Lambdas.closing(r::getInputStream, is -> codec.read(is, generic));
 		};
 
-		Function<HttpServletRequest, Object> fromParts = r -> {
-			Map<String, String> map = new HashMap<>();
-			Lambdas.apply(r, HttpServletRequest::getParts).forEach(p -> map.put(p.getName(), partToString.apply(p)));
-			return JSONUtil.fromJson(JSONUtil.toJson(map), prm.getType());
-		};
+		var binder = FormBinder.of(type);
+
+		Function<HttpServletRequest, Object> fromParams = null != binder
+				? r -> {
+					var obj = binder.newInstance();
+					r.getParameterMap().forEach((k, v) -> binder.set(obj, k, v));
+					return obj;
+				}
+				: r -> {
+					Map<String, String> map = new HashMap<>();
+					r.getParameterMap().forEach((k, v) -> map.put(k, v[0]));
+					return JSONUtil.fromJson(JSONUtil.toJson(map), type);
+				};
+
+		Function<HttpServletRequest, Object> fromParts = null != binder
+				? r -> {
+					var obj = binder.newInstance();
+					Lambdas.apply(r, HttpServletRequest::getParts)
+							.forEach(p -> binder.set(obj, p.getName(), new String[] { partToString.apply(p) }));
+					return obj;
+				}
+				: r -> {
+					Map<String, String> map = new HashMap<>();
+					Lambdas.apply(r, HttpServletRequest::getParts)
+							.forEach(p -> map.put(p.getName(), partToString.apply(p)));
+					return JSONUtil.fromJson(JSONUtil.toJson(map), type);
+				};
 
 		Function<HttpServletRequest, String> requestToString;
 		Function<HttpServletRequest, Object> reader;
 
-		if (prm.isAnnotationPresent(HeaderParam.class)) {
-			requestToString = r -> r.getHeader(prm.getAnnotation(HeaderParam.class).value());
+		if (Source.HEADER == prm.source()) {
+			requestToString = r -> r.getHeader(prm.name());
 			reader = requestToString.andThen(caster);
 
-		} else if (prm.isAnnotationPresent(QueryParam.class)) {
-			requestToString = r -> r.getParameter(prm.getAnnotation(QueryParam.class).value());
+		} else if (Source.PATH == prm.source()) {
+			int segIdx = pathParamIndex(actionPath, prm.name());
+			requestToString = r -> {
+				var seg = RouteTrie.segment(r.getRequestURI(), r.getContextPath().length(), segIdx);
+				return null != seg && seg.indexOf('%') >= 0 ? UDecoder.URLDecode(seg, StandardCharsets.UTF_8) : seg;
+			};
 			reader = requestToString.andThen(caster);
 
-		} else if (prm.isAnnotationPresent(FormParam.class)) {
+		} else if (Source.QUERY == prm.source()) {
+			requestToString = r -> r.getParameter(prm.name());
+			reader = requestToString.andThen(caster);
+
+		} else if (Source.FORM == prm.source()) {
 			// form
-			String partName = prm.getAnnotation(FormParam.class).value();
-			if (Part.class.isAssignableFrom(prm.getType())) {
+			String partName = prm.name();
+			if (Part.class.isAssignableFrom(type)) {
 				reader = r -> Lambdas.get(() -> r.getPart(partName));
 
-			} else if (Boolean.TRUE.equals(isBasicType(prm.getType()))) {
+			} else if (InputStream.class.isAssignableFrom(type)) {
+				reader = r -> Lambdas.get(() -> PartStreams.open(r, partName));
+
+			} else if (ReadableByteChannel.class.isAssignableFrom(type)) {
+				reader = r -> Lambdas.get(() -> PartStreams.channel(r, partName));
+
+			} else if (Boolean.TRUE.equals(isBasicType(type))) {
 				requestToString = r -> MediaType.APPLICATION_FORM_URLENCODED.equals(r.getContentType())
 						? r.getParameter(partName)
 						: partExtractor.andThen(partToString).apply(partName, r);
 				reader = requestToString.andThen(caster);
 			} else {
-				// assuming json part
-				requestToString = r -> Lambdas.closing(
+				// assuming json part, parsed straight from the stream
+				reader = r -> Lambdas.closing(
 						() -> r.getPart(partName).getInputStream(),
-						is -> new String(is.readAllBytes()));
-				reader = requestToString.andThen(v -> JSONUtil.fromJson(v, prm.getType()));
+						is -> JSONUtil.fromJson(is, generic));
 			}
-		} else if (HttpServletRequest.class.isAssignableFrom(prm.getType())) {
+		} else if (HttpServletRequest.class.isAssignableFrom(type)) {
 			reader = r -> r;
 
-		} else if (InputStream.class.isAssignableFrom(prm.getType())) {
+		} else if (InputStream.class.isAssignableFrom(type)) {
 			reader = r -> Lambdas.apply(r, HttpServletRequest::getInputStream);
 
-		} else if (OutputStream.class.isAssignableFrom(prm.getType())
-				|| HttpServletResponse.class.isAssignableFrom(prm.getType())) {
+		} else if (OutputStream.class.isAssignableFrom(type)
+				|| HttpServletResponse.class.isAssignableFrom(type)) {
 			reader = null;
 
 		} else {
@@ -247,13 +738,24 @@ public class RPCServiceDispatcherServlet extends HttpServlet {
 				case MediaType.APPLICATION_JSON -> fromJson.apply(r);
 				case MediaType.APPLICATION_FORM_URLENCODED -> fromParams.apply(r);
 				case MediaType.MULTIPART_FORM_DATA -> fromParts.apply(r);
-				default -> throw new WebException(400, "Unexpected content type: " + r.getContentType());
+				default -> fromCodec.apply(r);
 			};
 		}
 		return reader;
 	}
 
-	private Boolean isBasicType(Class<?> type) {
+	private static int pathParamIndex(String actionPath, String name) {
+		var segs = RouteTrie.segments(actionPath);
+		for (int i = 0; i < segs.length; i++) {
+			if (RouteTrie.isVariable(segs[i])
+					&& name.equals(segs[i].substring(1, segs[i].length() - 1).split(":")[0].trim())) {
+				return i;
+			}
+		}
+		throw new IllegalStateException("Path param {" + name + "} not found in " + actionPath);
+	}
+
+	static Boolean isBasicType(Class<?> type) {
 		Set<Class<?>> fieldTypes = Set.of(Integer.class, Long.class,
 				Float.class, Double.class, BigDecimal.class,
 				LocalDate.class, LocalDateTime.class,
@@ -261,7 +763,7 @@ public class RPCServiceDispatcherServlet extends HttpServlet {
 		return fieldTypes.stream().anyMatch(c -> c.isAssignableFrom(type));
 	}
 
-	private <T> T cast(String value, Class<T> type) {
+	static <T> T cast(String value, Class<T> type) {
 		Object rawVal;
 		if (null == value) {
 			rawVal = null;
@@ -289,33 +791,126 @@ public class RPCServiceDispatcherServlet extends HttpServlet {
 
 	@Override
 	public void service(HttpServletRequest request, HttpServletResponse response) throws ServletException {
-		var mappingKey = getMappingKey(request);
-		Service srv = mappings.get(mappingKey);
-		if (null == srv) {
-			LOGGER.log(Level.INFO, "Mapping not found: {0}", mappingKey);
+		long start = System.nanoTime();
+		var uri = request.getRequestURI();
+		Map<String, Service> methods = routes.find(uri, request.getContextPath().length());
+		Service srv = null != methods ? methods.get(request.getMethod()) : null;
+		if (null == methods) {
+			LOGGER.log(Level.INFO, "Mapping not found: {0}", uri);
+			metrics.unmatched(HttpServletResponse.SC_NOT_FOUND);
+			response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+		} else if (null == srv) {
+			LOGGER.log(Level.INFO, "Method not allowed: {0} {1}", request.getMethod(), uri);
+			metrics.unmatched(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+			response.setHeader(HttpHeaders.ALLOW, String.join(", ", methods.keySet()));
 			response.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
 		} else {
+			var stats = srv.stats();
+			stats.routing.record(System.nanoTime() - start);
+			stats.enter();
+			var rs = null != compression && srv.compressible() ? compression.wrap(request, response) : response;
+			var limiter = srv.limiter();
+			var global = admission;
+			if (!limiter.acquire(global)) {
+				LOGGER.log(Level.DEBUG, "Shed: {0} {1}", request.getMethod(), uri);
+				rs.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(limiter.retryAfterSeconds()));
+				writeError(rs, new WebException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server busy"));
+				finish(rs);
+				stats.exit(start, response.getStatus());
+				return;
+			}
+			long admitted = System.nanoTime();
 			try {
-				srv.function().accept(request, response);
-			} catch (WebException wx) {
-				response.setStatus(wx.getHttpCode());
-				response.setContentType(MediaType.TEXT_PLAIN);
-				Lambdas.takeAndClose(response::getWriter, w -> w.print(wx.getMessage()));
+				srv.function().accept(request, rs);
 			} catch (Exception ex) {
-				LOGGER.log(Level.ERROR, "Method invocation failed", ex);
-				response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+				writeError(rs, ex);
+			} finally {
+				if (request.isAsyncStarted()) {
+					request.getAsyncContext().addListener(limiter.releaseOnComplete(global, admitted));
+					request.getAsyncContext().addListener(stats.exitOnComplete(start));
+					request.getAsyncContext().addListener(PartStreams.closeOnComplete(request));
+				} else {
+					finish(rs);
+					PartStreams.close(request);
+					limiter.release(global, System.nanoTime() - admitted, response.getStatus());
+					stats.exit(start, response.getStatus());
+				}
 			}
 		}
 	}
 
-	private ActionKey getMappingKey(HttpServletRequest request) {
-		var uri = request.getRequestURI();
-		var toks = uri.split("\\/");
-		var sep = "/";
-		String servicePath = sep + toks[1];
-		if (toks.length > 2) {
-			servicePath += sep + toks[2];
+	private static void finish(HttpServletResponse rs) {
+		if (rs instanceof CompressingResponse compressing) {
+			try {
+				compressing.finish();
+			} catch (IOException e) {
+				LOGGER.log(Level.DEBUG, "Could not complete compressed response", e);
+			}
+		}
+	}
+
+	/**
+	 * Compresses responses for clients that accept gzip or deflate, except on
+	 * routes marked {@link NoCompression}. Set before the servlet is started.
+	 */
+	public void setCompression(ResponseCompression compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * Accepts {@link RequestBatching} POSTs at {@code path}, relative to the
+	 * servlet like any route. Set before the servlet is started.
+	 */
+	public void setBatching(String path, RequestBatching batching) {
+		this.batching = batching;
+		var key = new ActionKey(path, "POST");
+		var stats = metrics.route(key);
+		var limiter = RouteLimiter.of(null);
+		stats.limitedBy(limiter);
+		var srv = new Service((rq, rs) -> batching.handle(rq, rs, this), stats, true, limiter);
+		routes.computeIfAbsent(path, HashMap::new).put("POST", srv);
+	}
+
+	/**
+	 * Sheds requests beyond the dispatcher-wide limit by route priority, see
+	 * {@link Admission}. Set before the servlet is started.
+	 */
+	public void setAdmissionControl(AdmissionControl admission) {
+		this.admission = admission;
+		metrics.admission(admission);
+	}
+
+	@Override
+	public void init() throws ServletException {
+		super.init();
+		metrics.registerMBeans(getServletName());
+	}
+
+	@Override
+	public void destroy() {
+		metrics.unregisterMBeans();
+		if (null != batching) {
+			batching.shutdown();
+		}
+		super.destroy();
+	}
+
+	/**
+	 * Per-route latency, in-flight and error statistics, e.g. for a
+	 * {@link MetricsServlet}.
+	 */
+	public DispatcherMetrics metrics() {
+		return metrics;
+	}
+
+	static void writeError(HttpServletResponse response, Exception ex) {
+		if (ex instanceof WebException wx) {
+			response.setStatus(wx.getHttpCode());
+			response.setContentType(MediaType.TEXT_PLAIN);
+			Lambdas.takeAndClose(response::getWriter, w -> w.print(wx.getMessage()));
+		} else {
+			LOGGER.log(Level.ERROR, "Method invocation failed", ex);
+			response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
 		}
-		return new ActionKey(servicePath, request.getMethod());
 	}
 }
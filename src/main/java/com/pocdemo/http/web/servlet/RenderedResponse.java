@@ -0,0 +1,63 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import com.pocdemo.http.config.JSONUtil;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * A response body serialized once so it can be written many times.
+ */
+record RenderedResponse(byte[] body, String contentType, String etag) {
+
+	/**
+	 * @param produces the route's first {@code @Produces} value, or null
+	 * @return the rendered result, or null for results that are streamed
+	 *         rather than serialized (files, row cursors, async stages)
+	 */
+	static RenderedResponse render(Object ret, String produces) throws IOException {
+		byte[] body;
+		String contentType;
+		if (null == ret || FileResponses.isFileBody(ret) || ret instanceof java.util.Iterator<?>
+				|| ret instanceof java.util.stream.BaseStream<?, ?>
+				|| ret instanceof java.util.concurrent.CompletionStage<?>) {
+			return null;
+		} else if (ret instanceof String text && MediaType.TEXT_PLAIN.equals(produces)) {
+			body = (text + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+			contentType = MediaType.TEXT_PLAIN + ";charset=UTF-8";
+		} else {
+			var bos = new ByteArrayOutputStream();
+			JSONUtil.toJson(ret, bos);
+			body = bos.toByteArray();
+			contentType = MediaType.APPLICATION_JSON + ";charset=UTF-8";
+		}
+		var crc = new CRC32();
+		crc.update(body);
+		return new RenderedResponse(body, contentType,
+				"\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"");
+	}
+
+	void write(HttpServletRequest rq, HttpServletResponse rs, String cacheControl) throws IOException {
+		rs.setHeader(HttpHeaders.ETAG, etag);
+		if (null != cacheControl) {
+			rs.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+		}
+		var inm = rq.getHeader(HttpHeaders.IF_NONE_MATCH);
+		if (null != inm && (inm.contains(etag) || "*".equals(inm.trim()))) {
+			rs.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		rs.setContentType(contentType);
+		rs.setContentLength(body.length);
+		try (var os = rs.getOutputStream()) {
+			os.write(body);
+		}
+	}
+}
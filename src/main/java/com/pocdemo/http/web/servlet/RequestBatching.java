@@ -0,0 +1,200 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
+import com.pocdemo.http.config.JSONUtil;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Many dispatcher calls in one POST. The body is a JSON array of
+ * {@code {"method", "path", "params", "body"}} entries, where {@code path} is
+ * relative to the servlet and may carry a query string, {@code params} maps
+ * names to a value or an array of values, and {@code body} is the JSON request
+ * body. Each entry goes through the same routes as a plain request and the
+ * answer is an array of {@code {"status", "body"}} in request order.
+ * <p>
+ * Entries run concurrently on a pool of {@code parallelism} threads. Once the
+ * pool and its queue are full the request thread runs entries itself, so a
+ * large batch slows down rather than piling up work. After {@link #shutdown()}
+ * batches are answered 503.
+ */
+public final class RequestBatching {
+
+	private static final Logger LOGGER = System.getLogger(RequestBatching.class.getName());
+
+	public static final int DEFAULT_MAX_ENTRIES = 50;
+
+	record Entry(String method, String path, Map<String, JsonElement> params, JsonElement body) {
+	}
+
+	/**
+	 * An entry handed to the pool, completed when it has run or could not.
+	 */
+	private static final class Task implements Runnable {
+		final CompletableFuture<Void> done = new CompletableFuture<>();
+		final Runnable call;
+
+		Task(Runnable call) {
+			this.call = call;
+		}
+
+		@Override
+		public void run() {
+			try {
+				call.run();
+				done.complete(null);
+			} catch (RuntimeException | Error e) {
+				done.completeExceptionally(e);
+			}
+		}
+
+		void reject() {
+			done.completeExceptionally(new RejectedExecutionException("Batching is shut down"));
+		}
+	}
+
+	private final int maxEntries;
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * @param maxEntries  largest batch accepted, bigger ones get 413
+	 * @param parallelism threads running the entries of all batches
+	 */
+	public RequestBatching(int maxEntries, int parallelism) {
+		if (maxEntries < 1 || parallelism < 1) {
+			throw new IllegalArgumentException("maxEntries and parallelism must be positive");
+		}
+		this.maxEntries = maxEntries;
+		var threads = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(maxEntries), r -> {
+					var t = new Thread(r, "rpc-batch-" + threads.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}, (r, pool) -> {
+					// caller runs, unless the pool is shut down
+					if (pool.isShutdown()) {
+						((Task) r).reject();
+					} else {
+						r.run();
+					}
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Up to 50 entries, one thread per processor.
+	 */
+	public RequestBatching() {
+		this(DEFAULT_MAX_ENTRIES, Runtime.getRuntime().availableProcessors());
+	}
+
+	void handle(HttpServletRequest rq, HttpServletResponse rs, RPCServiceDispatcherServlet dispatcher) {
+		if (rq instanceof BatchEntryRequest) {
+			throw new WebException(HttpServletResponse.SC_BAD_REQUEST, "Batches cannot be nested");
+		}
+		Entry[] entries;
+		try (var is = rq.getInputStream()) {
+			entries = (Entry[]) JSONUtil.fromJson(is, Entry[].class);
+		} catch (IOException | RuntimeException e) {
+			throw new WebException(HttpServletResponse.SC_BAD_REQUEST, "Malformed batch");
+		}
+		if (null == entries) {
+			throw new WebException(HttpServletResponse.SC_BAD_REQUEST, "Empty batch");
+		}
+		if (entries.length > maxEntries) {
+			throw new WebException(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+					"Batch exceeds " + maxEntries + " entries");
+		}
+		var headers = BatchEntryRequest.headers(rq);
+		var results = new BatchEntryResponse[entries.length];
+		var pending = new CompletableFuture<?>[Math.max(entries.length - 1, 0)];
+		for (int i = 0; i < entries.length; i++) {
+			results[i] = new BatchEntryResponse();
+			var entry = entries[i];
+			var result = results[i];
+			Runnable call = () -> call(dispatcher, rq, headers, entry, result);
+			if (i < pending.length) {
+				var task = new Task(call);
+				executor.execute(task);
+				pending[i] = task.done;
+			} else {
+				// the last entry runs here instead of waiting idle
+				call.run();
+			}
+		}
+		try {
+			CompletableFuture.allOf(pending).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RejectedExecutionException) {
+				throw new WebException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server shutting down");
+			}
+			throw e;
+		}
+		write(results, rs);
+	}
+
+	private static void call(RPCServiceDispatcherServlet dispatcher, HttpServletRequest rq,
+			Map<String, List<String>> headers, Entry entry, BatchEntryResponse rs) {
+		if (null == entry || null == entry.path() || !entry.path().startsWith("/")) {
+			RPCServiceDispatcherServlet.writeError(rs,
+					new WebException(HttpServletResponse.SC_BAD_REQUEST, "Entry needs an absolute path"));
+			return;
+		}
+		try {
+			dispatcher.service(new BatchEntryRequest(rq, headers, entry), rs);
+		} catch (Exception e) {
+			LOGGER.log(Level.ERROR, "Batch entry failed: " + entry.path(), e);
+			rs.reset();
+			rs.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	private static void write(BatchEntryResponse[] results, HttpServletResponse rs) {
+		rs.setContentType(MediaType.APPLICATION_JSON);
+		rs.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		try (var w = new JsonWriter(new OutputStreamWriter(rs.getOutputStream(), StandardCharsets.UTF_8))) {
+			w.beginArray();
+			for (var result : results) {
+				w.beginObject().name("status").value(result.getStatus());
+				if (result.size() > 0) {
+					w.name("body");
+					var type = result.getContentType();
+					if (null != type && type.startsWith(MediaType.APPLICATION_JSON)) {
+						// already JSON, embedded as is
+						w.jsonValue(result.text());
+					} else {
+						w.value(result.text());
+					}
+				}
+				w.endObject();
+			}
+			w.endArray();
+		} catch (IOException e) {
+			LOGGER.log(Level.ERROR, "Internal excep", e);
+			throw new WebException("Unexpected error");
+		}
+	}
+
+	void shutdown() {
+		executor.shutdownNow().forEach(r -> ((Task) r).reject());
+	}
+}
@@ -0,0 +1,84 @@
+package com.pocdemo.http.web.servlet;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-route LRU of rendered responses with a fixed time to live. Keys are the
+ * bound parameter values of a request.
+ */
+public final class ResponseCache {
+
+	public record Stats(long hits, long misses, long evictions, long expirations, int size) {
+	}
+
+	private record Entry(RenderedResponse response, long expiresAt) {
+	}
+
+	private final long ttlNanos;
+	private final String cacheControl;
+	private final LinkedHashMap<List<Object>, Entry> entries;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+
+	ResponseCache(long ttlSeconds, int maxEntries) {
+		this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+		this.cacheControl = "max-age=" + ttlSeconds;
+		this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+				if (size() > maxEntries) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	static List<Object> key(Object[] params) {
+		return Arrays.asList(params.clone());
+	}
+
+	String cacheControl() {
+		return cacheControl;
+	}
+
+	synchronized RenderedResponse get(List<Object> key) {
+		var entry = entries.get(key);
+		if (null == entry) {
+			misses.increment();
+			return null;
+		}
+		if (entry.expiresAt() - System.nanoTime() <= 0) {
+			entries.remove(key);
+			expirations.increment();
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return entry.response();
+	}
+
+	synchronized void put(List<Object> key, RenderedResponse response) {
+		entries.put(key, new Entry(response, System.nanoTime() + ttlNanos));
+	}
+
+	synchronized void invalidate(List<Object> key) {
+		entries.remove(key);
+	}
+
+	synchronized void invalidateAll() {
+		entries.clear();
+	}
+
+	synchronized Stats stats() {
+		return new Stats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), entries.size());
+	}
+}
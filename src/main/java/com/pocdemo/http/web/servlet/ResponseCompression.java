@@ -0,0 +1,137 @@
+package com.pocdemo.http.web.servlet;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.core.HttpHeaders;
+
+/**
+ * Negotiated gzip or deflate compression of dispatcher responses. Bodies
+ * smaller than {@code minSize}, and content types starting with one of the
+ * excluded prefixes, go out unchanged. Deflaters are pooled and reset between
+ * responses.
+ */
+public final class ResponseCompression {
+
+	public static final Set<String> DEFAULT_EXCLUDED_TYPES = Set.of("application/octet-stream",
+			"multipart/byteranges", "image/", "audio/", "video/", "application/zip", "application/gzip");
+
+	static final String GZIP = "gzip";
+
+	static final String DEFLATE = "deflate";
+
+	private static final int POOL_SIZE = 64;
+
+	private final int minSize;
+	private final int level;
+	private final Set<String> excludedTypes;
+	private final BlockingQueue<Deflater> gzipPool = new ArrayBlockingQueue<>(POOL_SIZE);
+	private final BlockingQueue<Deflater> deflatePool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+	/**
+	 * @param minSize       smallest body in bytes worth compressing
+	 * @param level         {@link Deflater} level, 1 (fastest) to 9
+	 * @param excludedTypes content type prefixes never compressed
+	 */
+	public ResponseCompression(int minSize, int level, Set<String> excludedTypes) {
+		this.minSize = minSize;
+		this.level = level;
+		this.excludedTypes = Set.copyOf(excludedTypes);
+	}
+
+	/**
+	 * Level 1, from 1 KB up: on JSON lists it comes within a tenth of the size
+	 * level 6 reaches for about a third of the CPU, see CompressionBenchmark.
+	 */
+	public ResponseCompression() {
+		this(1024, Deflater.BEST_SPEED, DEFAULT_EXCLUDED_TYPES);
+	}
+
+	int minSize() {
+		return minSize;
+	}
+
+	/**
+	 * @return the response, wrapped when the client accepts gzip or deflate
+	 */
+	HttpServletResponse wrap(HttpServletRequest rq, HttpServletResponse rs) {
+		var coding = negotiate(rq.getHeader(HttpHeaders.ACCEPT_ENCODING));
+		rs.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		return null == coding ? rs : new CompressingResponse(rs, this, coding);
+	}
+
+	/**
+	 * @return gzip or deflate, whichever the client prefers, gzip on a tie, or
+	 *         null if it accepts neither
+	 */
+	static String negotiate(String acceptEncoding) {
+		if (null == acceptEncoding) {
+			return null;
+		}
+		double gzip = -1;
+		double deflate = -1;
+		double any = 0;
+		for (var token : acceptEncoding.split(",")) {
+			var parts = token.trim().split(";");
+			var coding = parts[0].trim().toLowerCase(Locale.ROOT);
+			double q = 1;
+			for (int i = 1; i < parts.length; i++) {
+				var param = parts[i].trim();
+				if (param.startsWith("q=")) {
+					try {
+						q = Double.parseDouble(param.substring(2));
+					} catch (NumberFormatException e) {
+						q = 0;
+					}
+				}
+			}
+			switch (coding) {
+				case GZIP, "x-gzip" -> gzip = Math.max(gzip, q);
+				case DEFLATE -> deflate = Math.max(deflate, q);
+				case "*" -> any = q;
+				default -> {
+					// identity and codings we do not produce
+				}
+			}
+		}
+		// codings not listed get the q-value of *, if any
+		gzip = gzip < 0 ? any : gzip;
+		deflate = deflate < 0 ? any : deflate;
+		if (gzip <= 0 && deflate <= 0) {
+			return null;
+		}
+		return gzip >= deflate ? GZIP : DEFLATE;
+	}
+
+	boolean isExcluded(String contentType) {
+		if (null == contentType) {
+			return false;
+		}
+		var type = contentType.toLowerCase(Locale.ROOT);
+		for (var prefix : excludedTypes) {
+			if (type.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	Deflater borrow(String coding) {
+		var pool = GZIP.equals(coding) ? gzipPool : deflatePool;
+		var deflater = pool.poll();
+		// gzip frames raw deflate data itself, deflate is the zlib format
+		return null != deflater ? deflater : new Deflater(level, GZIP.equals(coding));
+	}
+
+	void release(String coding, Deflater deflater) {
+		deflater.reset();
+		if (!(GZIP.equals(coding) ? gzipPool : deflatePool).offer(deflater)) {
+			deflater.end();
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package com.pocdemo.http.web.servlet;
+
+import java.util.List;
+
+import com.pocdemo.http.web.servlet.AdmissionControl.Priority;
+
+/**
+ * Web methods of one service class, generated at compile time by
+ * {@link RouteIndexProcessor} as {@code <service binary name>_Routes}, with
+ * what the dispatcher needs to bind them: where each parameter comes from and
+ * the values of the method's dispatcher annotations. With an index the
+ * dispatcher looks up just the listed methods and reads none of their
+ * annotations; without one it scans every public method and reads the same
+ * from its annotations.
+ */
+public interface RouteIndex {
+
+	String SUFFIX = "_Routes";
+
+	/**
+	 * Where a parameter is bound from. BODY covers the request body as well
+	 * as request, response and stream parameters, told apart by type.
+	 */
+	enum Source {
+		HEADER, PATH, QUERY, FORM, BODY
+	}
+
+	/**
+	 * @param name header, path variable, query or form field; null for BODY
+	 */
+	record Param(Source source, String name) {
+	}
+
+	/** the values of a {@link CacheResponse} */
+	record Caching(long ttlSeconds, int maxEntries) {
+	}
+
+	/** the values of a {@link Coalesce} */
+	record Coalescing(int maxWaiters, long maxWaitMillis) {
+	}
+
+	/** the values of an {@link Admission} */
+	record Limits(int limit, int queue, long maxWaitMillis, boolean adaptive, int maxLimit, Priority priority,
+			int retryAfterSeconds) {
+	}
+
+	/**
+	 * @param path               class and method {@code @Path} joined
+	 * @param name               Java method name
+	 * @param parameterTypes     erased parameter types
+	 * @param httpMethods        GET, POST, PUT or DELETE
+	 * @param params             one per parameter
+	 * @param produces           first {@code @Produces} value, or null
+	 * @param compress           false with {@link NoCompression}
+	 * @param asyncTimeoutMillis the {@link AsyncTimeout}, or -1
+	 * @param caching            null without {@link CacheResponse}
+	 * @param coalescing         null without {@link Coalesce}
+	 * @param limits             null without {@link Admission}
+	 */
+	record Route(String path, String name, Class<?>[] parameterTypes, List<String> httpMethods, List<Param> params,
+			String produces, boolean compress, long asyncTimeoutMillis, Caching caching, Coalescing coalescing,
+			Limits limits) {
+	}
+
+	List<Route> routes();
+
+	/**
+	 * @return the generated index of the class, or null if it was compiled
+	 *         without the processor
+	 */
+	static RouteIndex of(Class<?> type) {
+		Class<?> index;
+		try {
+			index = Class.forName(type.getName() + SUFFIX, true, type.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+		try {
+			return (RouteIndex) index.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalStateException("Unusable route index " + index.getName(), e);
+		}
+	}
+}
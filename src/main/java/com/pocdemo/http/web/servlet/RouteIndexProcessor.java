@@ -0,0 +1,247 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Writes a {@link RouteIndex} next to every {@code @Path} class, listing its
+ * {@code @GET}, {@code @POST}, {@code @PUT} and {@code @DELETE} methods the way
+ * the dispatcher's scan would find them, with the sources of their parameters
+ * and the values of their dispatcher annotations, defaults included. Enable
+ * it with {@code -processor com.pocdemo.http.web.servlet.RouteIndexProcessor}.
+ * <p>
+ * Annotations are matched by name, so the processor needs nothing but the JDK
+ * on its path.
+ */
+@SupportedAnnotationTypes(RouteIndexProcessor.PATH)
+public class RouteIndexProcessor extends AbstractProcessor {
+
+	static final String PATH = "jakarta.ws.rs.Path";
+
+	private static final String RS = "jakarta.ws.rs.";
+
+	private static final String SERVLET = RouteIndexProcessor.class.getPackageName() + ".";
+
+	private static final List<String> HTTP_METHODS = List.of("GET", "POST", "PUT", "DELETE");
+
+	/** parameter annotations in the order the dispatcher's scan checks them */
+	private static final Map<String, String> SOURCES = new LinkedHashMap<>();
+
+	static {
+		SOURCES.put(RS + "HeaderParam", "HEADER");
+		SOURCES.put(RS + "PathParam", "PATH");
+		SOURCES.put(RS + "QueryParam", "QUERY");
+		SOURCES.put(RS + "FormParam", "FORM");
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		var path = processingEnv.getElementUtils().getTypeElement(PATH);
+		if (null == path) {
+			return false;
+		}
+		for (var element : roundEnv.getElementsAnnotatedWith(path)) {
+			if (element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.PRIVATE)
+					&& !element.getModifiers().contains(Modifier.ABSTRACT)) {
+				write((TypeElement) element);
+			}
+		}
+		return false;
+	}
+
+	private void write(TypeElement type) {
+		var elements = processingEnv.getElementUtils();
+		var types = processingEnv.getTypeUtils();
+		var domainPath = pathOf(type);
+		List<String> routes = new ArrayList<>();
+		for (ExecutableElement mthd : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+			if (!mthd.getModifiers().contains(Modifier.PUBLIC)) {
+				continue;
+			}
+			var httpMethods = HTTP_METHODS.stream()
+					.filter(m -> null != annotation(mthd, RS + m))
+					.map(m -> '"' + m + '"')
+					.collect(Collectors.joining(", "));
+			if (httpMethods.isEmpty()) {
+				continue;
+			}
+			var methodPath = pathOf(mthd);
+			var parameterTypes = mthd.getParameters().stream()
+					.map(p -> types.erasure(p.asType()).toString() + ".class")
+					.collect(Collectors.joining(", "));
+			var params = mthd.getParameters().stream()
+					.map(this::param)
+					.collect(Collectors.joining(", "));
+			var produces = annotation(mthd, RS + "Produces");
+			var producesValues = null != produces ? (List<?>) value(produces, "value") : List.of();
+			var timeout = annotation(mthd, SERVLET + "AsyncTimeout");
+			routes.add("new Route(" + literal(domainPath + (null != methodPath ? methodPath : "")) + ", "
+					+ literal(mthd.getSimpleName().toString()) + ",\n"
+					+ "                        new Class<?>[] { " + parameterTypes + " },\n"
+					+ "                        List.of(" + httpMethods + "),\n"
+					+ "                        List.of(" + params + "),\n"
+					+ "                        " + (producesValues.isEmpty() ? "null"
+							: literal((String) ((AnnotationValue) producesValues.get(0)).getValue())) + ", "
+					+ (null == annotation(mthd, SERVLET + "NoCompression")) + ", "
+					+ (null != timeout ? value(timeout, "value") : -1) + "L,\n"
+					+ "                        " + values(mthd, "CacheResponse", "Caching", "ttlSeconds", "maxEntries")
+					+ ",\n                        "
+					+ values(mthd, "Coalesce", "Coalescing", "maxWaiters", "maxWaitMillis") + ",\n"
+					+ "                        " + values(mthd, "Admission", "Limits", "limit", "queue",
+							"maxWaitMillis", "adaptive", "maxLimit", "priority", "retryAfterSeconds")
+					+ ")");
+		}
+
+		var pkg = elements.getPackageOf(type);
+		var packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+		var binaryName = elements.getBinaryName(type).toString();
+		var simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+				+ RouteIndex.SUFFIX;
+		try (var out = new PrintWriter(processingEnv.getFiler()
+				.createSourceFile(packageName.isEmpty() ? simpleName : packageName + "." + simpleName, type)
+				.openWriter())) {
+			if (!packageName.isEmpty()) {
+				out.println("package " + packageName + ";");
+				out.println();
+			}
+			out.println("import java.util.List;");
+			out.println();
+			out.println("import " + RouteIndex.class.getName() + ";");
+			out.println();
+			out.println("/**");
+			out.println(" * Routes of {@link " + type.getQualifiedName() + "}.");
+			out.println(" */");
+			out.println("@javax.annotation.processing.Generated(\"" + RouteIndexProcessor.class.getName() + "\")");
+			out.println("public final class " + simpleName + " implements RouteIndex {");
+			out.println();
+			out.println("    @Override");
+			out.println("    public List<Route> routes() {");
+			out.println("        return List.of(" + (routes.isEmpty() ? "" : "\n                ")
+					+ String.join(",\n                ", routes) + ");");
+			out.println("    }");
+			out.println("}");
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Cannot write route index: " + e.getMessage(), type);
+		}
+	}
+
+	/**
+	 * @return the {@link RouteIndex.Param} of a method parameter, as source
+	 */
+	private String param(VariableElement prm) {
+		for (var en : SOURCES.entrySet()) {
+			var mirror = annotation(prm, en.getKey());
+			if (null != mirror) {
+				return "new Param(Source." + en.getValue() + ", " + literal((String) value(mirror, "value")) + ")";
+			}
+		}
+		return "new Param(Source.BODY, null)";
+	}
+
+	/**
+	 * @return a new {@code record} of the named values of the dispatcher
+	 *         annotation, as source, or null if the method lacks it
+	 */
+	private String values(Element element, String annotation, String record, String... names) {
+		var mirror = annotation(element, SERVLET + annotation);
+		if (null == mirror) {
+			return "null";
+		}
+		List<String> args = new ArrayList<>();
+		for (var name : names) {
+			var v = value(mirror, name);
+			if (v instanceof VariableElement constant) {
+				// an enum constant
+				args.add(((TypeElement) constant.getEnclosingElement()).getQualifiedName() + "."
+						+ constant.getSimpleName());
+			} else if (v instanceof Long l) {
+				args.add(l + "L");
+			} else {
+				args.add(String.valueOf(v));
+			}
+		}
+		return "new " + record + "(" + String.join(", ", args) + ")";
+	}
+
+	/**
+	 * @return the value of the annotation element, or its default
+	 */
+	private Object value(AnnotationMirror mirror, String name) {
+		for (var en : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+			if (en.getKey().getSimpleName().contentEquals(name)) {
+				return en.getValue().getValue();
+			}
+		}
+		return null;
+	}
+
+	private static AnnotationMirror annotation(Element element, String name) {
+		for (var mirror : element.getAnnotationMirrors()) {
+			if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the {@code @Path} value of the element, or null
+	 */
+	private static String pathOf(Element element) {
+		var mirror = annotation(element, PATH);
+		if (null == mirror) {
+			return null;
+		}
+		for (var en : mirror.getElementValues().entrySet()) {
+			if (en.getKey().getSimpleName().contentEquals("value")) {
+				return (String) ((AnnotationValue) en.getValue()).getValue();
+			}
+		}
+		return null;
+	}
+
+	private static String literal(String s) {
+		var sb = new StringBuilder("\"");
+		for (char c : s.toCharArray()) {
+			switch (c) {
+				case '"' -> sb.append("\\\"");
+				case '\\' -> sb.append("\\\\");
+				default -> {
+					if (c < 0x20 || c > 0x7e) {
+						sb.append(String.format("\\u%04x", (int) c));
+					} else {
+						sb.append(c);
+					}
+				}
+			}
+		}
+		return sb.append('"').toString();
+	}
+}
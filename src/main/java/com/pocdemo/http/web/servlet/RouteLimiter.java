@@ -0,0 +1,232 @@
+package com.pocdemo.http.web.servlet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.pocdemo.http.web.servlet.AdmissionControl.Priority;
+import com.pocdemo.http.web.servlet.RouteIndex.Limits;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admission of one route as configured by its {@link Admission}: the route's
+ * own concurrency limit and wait queue, then the dispatcher's
+ * {@link AdmissionControl} share of its priority.
+ */
+final class RouteLimiter {
+
+	/** latency over this multiple of the usual latency counts as congestion */
+	private static final double TOLERANCE = 2.0;
+	private static final double BACKOFF = 0.9;
+	/** weight of a new sample in the usual latency */
+	private static final double SMOOTHING = 0.01;
+
+	private final boolean limited;
+	private final int queue;
+	private final long maxWaitNanos;
+	private final boolean adaptive;
+	private final int maxLimit;
+	private final Priority priority;
+	private final int retryAfterSeconds;
+	private final LongAdder rejected = new LongAdder();
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+	private double limit;
+	private int inFlight;
+	private int waiting;
+	private double usualNanos = -1;
+	private long lastBackoff;
+
+	private RouteLimiter(int limit, int queue, long maxWaitMillis, boolean adaptive, int maxLimit,
+			Priority priority, int retryAfterSeconds) {
+		this.limited = limit > 0;
+		this.limit = limit;
+		this.queue = queue;
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+		this.adaptive = adaptive;
+		this.maxLimit = maxLimit > 0 ? maxLimit : 4 * limit;
+		this.priority = priority;
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	/**
+	 * @param admission the route's {@link Admission} values, or null
+	 */
+	static RouteLimiter of(Limits admission) {
+		if (null == admission) {
+			return new RouteLimiter(0, 0, 0, false, 0, Priority.NORMAL, 1);
+		}
+		if (admission.limit() < 0 || admission.queue() < 0 || admission.maxWaitMillis() < 0
+				|| admission.retryAfterSeconds() < 0) {
+			throw new IllegalStateException("Negative @Admission setting");
+		}
+		return new RouteLimiter(admission.limit(), admission.queue(), admission.maxWaitMillis(),
+				admission.adaptive(), admission.maxLimit(), admission.priority(), admission.retryAfterSeconds());
+	}
+
+	/**
+	 * Takes a slot of the route and of the dispatcher, waiting for the former
+	 * if the queue has room.
+	 *
+	 * @param global the dispatcher's limit, or null
+	 * @return false if the request is to be shed
+	 */
+	boolean acquire(AdmissionControl global) {
+		if (limited && !acquireRoute()) {
+			rejected.increment();
+			return false;
+		}
+		if (null != global && !global.tryAcquire(priority)) {
+			if (limited) {
+				releaseRoute(-1, false);
+			}
+			rejected.increment();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @param latencyNanos time the request held its slot
+	 * @param status       final status; 503 and 504 back off an adaptive limit
+	 */
+	void release(AdmissionControl global, long latencyNanos, int status) {
+		if (null != global) {
+			global.release();
+		}
+		if (limited) {
+			releaseRoute(latencyNanos, status == HttpServletResponse.SC_SERVICE_UNAVAILABLE
+					|| status == HttpServletResponse.SC_GATEWAY_TIMEOUT);
+		}
+	}
+
+	AsyncListener releaseOnComplete(AdmissionControl global, long startNanos) {
+		return new AsyncListener() {
+			@Override
+			public void onComplete(AsyncEvent event) {
+				release(global, System.nanoTime() - startNanos,
+						((HttpServletResponse) event.getSuppliedResponse()).getStatus());
+			}
+
+			@Override
+			public void onTimeout(AsyncEvent event) {
+				// onComplete follows
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+				// onComplete follows
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+				// not re-dispatched
+			}
+		};
+	}
+
+	private boolean acquireRoute() {
+		lock.lock();
+		try {
+			if (inFlight < (int) limit) {
+				inFlight++;
+				return true;
+			}
+			if (waiting >= queue) {
+				return false;
+			}
+			waiting++;
+			try {
+				long nanos = maxWaitNanos;
+				while (inFlight >= (int) limit) {
+					if (nanos <= 0) {
+						return false;
+					}
+					nanos = released.awaitNanos(nanos);
+				}
+				inFlight++;
+				return true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			} finally {
+				waiting--;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void releaseRoute(long latencyNanos, boolean overloaded) {
+		lock.lock();
+		try {
+			inFlight--;
+			int before = (int) limit;
+			if (adaptive && latencyNanos >= 0) {
+				adapt(latencyNanos, overloaded);
+			}
+			for (int i = Math.max(1, (int) limit - before); i > 0; i--) {
+				released.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Additive increase while latency stays near its usual level and the limit
+	 * is being used, multiplicative decrease at most once per usual latency
+	 * when it is not.
+	 */
+	private void adapt(long latencyNanos, boolean overloaded) {
+		if (usualNanos < 0) {
+			usualNanos = latencyNanos;
+		}
+		boolean congested = overloaded || latencyNanos > TOLERANCE * usualNanos;
+		usualNanos += (latencyNanos - usualNanos) * SMOOTHING;
+		if (congested) {
+			long now = System.nanoTime();
+			if (now - lastBackoff > usualNanos) {
+				lastBackoff = now;
+				limit = Math.max(1, limit * BACKOFF);
+			}
+		} else if (inFlight + 1 >= limit / 2) {
+			limit = Math.min(maxLimit, limit + 1 / limit);
+		}
+	}
+
+	int retryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+	boolean isLimited() {
+		return limited;
+	}
+
+	long rejected() {
+		return rejected.sum();
+	}
+
+	int limit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	int waiting() {
+		lock.lock();
+		try {
+			return waiting;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Latency per phase, in-flight count and errors by status of one route.
+ */
+public final class RouteStats implements RouteStatsMXBean {
+
+	final LatencyHistogram routing = new LatencyHistogram();
+	final LatencyHistogram binding = new LatencyHistogram();
+	final LatencyHistogram invocation = new LatencyHistogram();
+	final LatencyHistogram serialization = new LatencyHistogram();
+	final LatencyHistogram total = new LatencyHistogram();
+
+	private final String path;
+	private final String httpMethod;
+	private final LongAdder inFlight = new LongAdder();
+	private final Map<Integer, LongAdder> errors = new ConcurrentHashMap<>();
+	private RouteLimiter limiter;
+	private SingleFlight flights;
+
+	RouteStats(String path, String httpMethod) {
+		this.path = path;
+		this.httpMethod = httpMethod;
+	}
+
+	void limitedBy(RouteLimiter limiter) {
+		this.limiter = limiter;
+	}
+
+	void coalescedBy(SingleFlight flights) {
+		this.flights = flights;
+	}
+
+	boolean isCoalesced() {
+		return null != flights;
+	}
+
+	boolean isLimited() {
+		return null != limiter && limiter.isLimited();
+	}
+
+	void enter() {
+		inFlight.increment();
+	}
+
+	void exit(long startNanos, int status) {
+		total.record(System.nanoTime() - startNanos);
+		inFlight.decrement();
+		if (status >= 400) {
+			errors.computeIfAbsent(status, s -> new LongAdder()).increment();
+		}
+	}
+
+	/**
+	 * Completes the measurement of a request that went async.
+	 */
+	AsyncListener exitOnComplete(long startNanos) {
+		return new AsyncListener() {
+			@Override
+			public void onComplete(AsyncEvent event) {
+				exit(startNanos, ((HttpServletResponse) event.getSuppliedResponse()).getStatus());
+			}
+
+			@Override
+			public void onTimeout(AsyncEvent event) {
+				// onComplete follows
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+				// onComplete follows
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+				// not re-dispatched
+			}
+		};
+	}
+
+	@Override
+	public String getPath() {
+		return path;
+	}
+
+	@Override
+	public String getHttpMethod() {
+		return httpMethod;
+	}
+
+	@Override
+	public long getCount() {
+		return total.count();
+	}
+
+	@Override
+	public long getInFlight() {
+		return inFlight.sum();
+	}
+
+	@Override
+	public Map<String, Long> getErrors() {
+		Map<String, Long> res = new TreeMap<>();
+		errors.forEach((status, n) -> res.put(status.toString(), n.sum()));
+		return res;
+	}
+
+	@Override
+	public long getRejected() {
+		return null != limiter ? limiter.rejected() : 0;
+	}
+
+	@Override
+	public int getConcurrencyLimit() {
+		return isLimited() ? limiter.limit() : 0;
+	}
+
+	@Override
+	public int getQueueDepth() {
+		return isLimited() ? limiter.waiting() : 0;
+	}
+
+	@Override
+	public long getCoalesced() {
+		return isCoalesced() ? flights.coalesced() : 0;
+	}
+
+	@Override
+	public double getMeanMicros() {
+		long n = total.count();
+		return n == 0 ? 0 : total.sumNanos() / 1e3 / n;
+	}
+
+	@Override
+	public long getP50Micros() {
+		return micros(total.quantile(0.5));
+	}
+
+	@Override
+	public long getP99Micros() {
+		return micros(total.quantile(0.99));
+	}
+
+	@Override
+	public long getRoutingP99Micros() {
+		return micros(routing.quantile(0.99));
+	}
+
+	@Override
+	public long getBindingP99Micros() {
+		return micros(binding.quantile(0.99));
+	}
+
+	@Override
+	public long getInvocationP99Micros() {
+		return micros(invocation.quantile(0.99));
+	}
+
+	@Override
+	public long getSerializationP99Micros() {
+		return micros(serialization.quantile(0.99));
+	}
+
+	private static long micros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+
+	String labels() {
+		return "method=\"" + httpMethod + "\",path=\"" + escape(path) + "\"";
+	}
+
+	void writePhases(PrintWriter out, String name) {
+		var labels = labels();
+		routing.writePrometheus(out, name, labels + ",phase=\"routing\"");
+		binding.writePrometheus(out, name, labels + ",phase=\"binding\"");
+		invocation.writePrometheus(out, name, labels + ",phase=\"invocation\"");
+		serialization.writePrometheus(out, name, labels + ",phase=\"serialization\"");
+		total.writePrometheus(out, name, labels + ",phase=\"total\"");
+	}
+
+	void writeErrors(PrintWriter out, String name) {
+		var labels = labels();
+		new TreeMap<>(errors).forEach((status, n) -> out.append(name).append('{').append(labels)
+				.append(",status=\"").append(status.toString()).append("\"} ").println(n.sum()));
+	}
+
+	static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -0,0 +1,54 @@
+package com.pocdemo.http.web.servlet;
+
+import java.util.Map;
+
+/**
+ * JMX view of one dispatcher route. Latencies are bucket upper bounds in
+ * microseconds.
+ */
+public interface RouteStatsMXBean {
+
+	String getPath();
+
+	String getHttpMethod();
+
+	long getCount();
+
+	long getInFlight();
+
+	Map<String, Long> getErrors();
+
+	/**
+	 * Requests shed with 503 by the route or dispatcher limit.
+	 */
+	long getRejected();
+
+	/**
+	 * Current {@link Admission} limit, 0 if the route has none.
+	 */
+	int getConcurrencyLimit();
+
+	/**
+	 * Requests waiting for a slot of the route.
+	 */
+	int getQueueDepth();
+
+	/**
+	 * Requests sent the response or error of an identical request's invocation.
+	 */
+	long getCoalesced();
+
+	double getMeanMicros();
+
+	long getP50Micros();
+
+	long getP99Micros();
+
+	long getRoutingP99Micros();
+
+	long getBindingP99Micros();
+
+	long getInvocationP99Micros();
+
+	long getSerializationP99Micros();
+}
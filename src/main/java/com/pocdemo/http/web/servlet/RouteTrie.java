@@ -0,0 +1,189 @@
+package com.pocdemo.http.web.servlet;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Segment tree over {@code @Path} templates. Literal segments are kept sorted
+ * per node and matched in place against the request URI, so a lookup does not
+ * split or copy the path. A <code>{var}</code> segment matches any non-empty
+ * segment, a <code>{var:regex}</code> segment one that the regex matches in
+ * full. Literals win over regex variables, which win over plain ones, with
+ * backtracking. A regex cannot span segments.
+ */
+final class RouteTrie<T> {
+
+	static final class Node<T> {
+		String[] literals = new String[0];
+		@SuppressWarnings("unchecked")
+		Node<T>[] children = new Node[0];
+		Pattern[] patterns = new Pattern[0];
+		@SuppressWarnings("unchecked")
+		Node<T>[] patterned = new Node[0];
+		Node<T> variable;
+		T value;
+	}
+
+	private final Node<T> root = new Node<>();
+
+	T computeIfAbsent(String template, Supplier<T> supplier) {
+		Node<T> node = root;
+		for (String seg : segments(template)) {
+			if (!isVariable(seg) && (seg.indexOf('{') >= 0 || seg.indexOf('}') >= 0)) {
+				throw new IllegalStateException("Unsupported path template " + template);
+			} else if (isVariable(seg) && null != regex(seg)) {
+				node = patterned(node, regex(seg), template);
+			} else if (isVariable(seg)) {
+				if (null == node.variable) {
+					node.variable = new Node<>();
+				}
+				node = node.variable;
+			} else {
+				int idx = Arrays.binarySearch(node.literals, seg);
+				if (idx < 0) {
+					idx = -idx - 1;
+					node.literals = insert(node.literals, idx, seg);
+					node.children = insert(node.children, idx, new Node<>());
+				}
+				node = node.children[idx];
+			}
+		}
+		if (null == node.value) {
+			node.value = supplier.get();
+		}
+		return node.value;
+	}
+
+	private static <T> Node<T> patterned(Node<T> node, String regex, String template) {
+		for (int i = 0; i < node.patterns.length; i++) {
+			if (node.patterns[i].pattern().equals(regex)) {
+				return node.patterned[i];
+			}
+		}
+		Pattern pattern;
+		try {
+			pattern = Pattern.compile(regex);
+		} catch (PatternSyntaxException e) {
+			throw new IllegalStateException("Invalid regex in path template " + template, e);
+		}
+		int idx = node.patterns.length;
+		node.patterns = insert(node.patterns, idx, pattern);
+		node.patterned = insert(node.patterned, idx, new Node<>());
+		return node.patterned[idx];
+	}
+
+	/**
+	 * @return value registered for the path starting at {@code from}, or null
+	 */
+	T find(String path, int from) {
+		return find(root, path, skipSlashes(path, from));
+	}
+
+	private static <T> T find(Node<T> node, String path, int pos) {
+		if (pos >= path.length()) {
+			return node.value;
+		}
+		int end = path.indexOf('/', pos);
+		if (end < 0) {
+			end = path.length();
+		}
+		int next = skipSlashes(path, end);
+		int idx = search(node.literals, path, pos, end);
+		if (idx >= 0) {
+			T found = find(node.children[idx], path, next);
+			if (null != found) {
+				return found;
+			}
+		}
+		for (int i = 0; i < node.patterns.length; i++) {
+			if (node.patterns[i].matcher(path).region(pos, end).matches()) {
+				T found = find(node.patterned[i], path, next);
+				if (null != found) {
+					return found;
+				}
+			}
+		}
+		return null != node.variable ? find(node.variable, path, next) : null;
+	}
+
+	private static int search(String[] literals, String path, int start, int end) {
+		int lo = 0;
+		int hi = literals.length - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int cmp = compare(literals[mid], path, start, end);
+			if (cmp < 0) {
+				lo = mid + 1;
+			} else if (cmp > 0) {
+				hi = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	private static int compare(String literal, String path, int start, int end) {
+		int len = Math.min(literal.length(), end - start);
+		for (int i = 0; i < len; i++) {
+			int d = literal.charAt(i) - path.charAt(start + i);
+			if (d != 0) {
+				return d;
+			}
+		}
+		return literal.length() - (end - start);
+	}
+
+	private static int skipSlashes(String path, int pos) {
+		while (pos < path.length() && path.charAt(pos) == '/') {
+			pos++;
+		}
+		return pos;
+	}
+
+	static boolean isVariable(String seg) {
+		return seg.length() > 2 && seg.charAt(0) == '{' && seg.charAt(seg.length() - 1) == '}';
+	}
+
+	/**
+	 * @return the regex of a <code>{var:regex}</code> segment, or null
+	 */
+	static String regex(String seg) {
+		int colon = seg.indexOf(':');
+		if (colon < 0) {
+			return null;
+		}
+		var regex = seg.substring(colon + 1, seg.length() - 1).trim();
+		return regex.isEmpty() ? null : regex;
+	}
+
+	static String[] segments(String template) {
+		return Arrays.stream(template.split("/")).filter(s -> !s.isEmpty()).toArray(String[]::new);
+	}
+
+	/**
+	 * @return the {@code index}-th non-empty segment of the path starting at
+	 *         {@code from}, or null
+	 */
+	static String segment(String path, int from, int index) {
+		int pos = skipSlashes(path, from);
+		for (int i = 0; i < index && pos < path.length(); i++) {
+			int end = path.indexOf('/', pos);
+			pos = end < 0 ? path.length() : skipSlashes(path, end);
+		}
+		if (pos >= path.length()) {
+			return null;
+		}
+		int end = path.indexOf('/', pos);
+		return path.substring(pos, end < 0 ? path.length() : end);
+	}
+
+	private static <E> E[] insert(E[] arr, int idx, E e) {
+		E[] res = Arrays.copyOf(arr, arr.length + 1);
+		System.arraycopy(arr, idx, res, idx + 1, arr.length - idx);
+		res[idx] = e;
+		return res;
+	}
+}
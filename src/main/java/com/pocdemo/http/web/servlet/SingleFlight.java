@@ -0,0 +1,110 @@
+package com.pocdemo.http.web.servlet;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * In-flight invocations of one route, keyed by the bound parameter values of
+ * a request. Only {@link RenderedResponse} and null results are shared; a
+ * caller handed anything else, e.g. a streamed result, runs its own
+ * invocation.
+ */
+final class SingleFlight {
+
+	private static final Logger LOGGER = System.getLogger(SingleFlight.class.getName());
+
+	private static final class Flight {
+		final CompletableFuture<Object> result = new CompletableFuture<>();
+		/** guarded by the map entry */
+		int waiters;
+	}
+
+	private final int maxWaiters;
+	private final long maxWaitMillis;
+	private final ConcurrentHashMap<List<Object>, Flight> flights = new ConcurrentHashMap<>();
+	private final LongAdder coalesced = new LongAdder();
+
+	SingleFlight(int maxWaiters, long maxWaitMillis) {
+		if (maxWaiters < 1) {
+			throw new IllegalStateException("@Coalesce maxWaiters must be positive");
+		}
+		if (maxWaitMillis < 1) {
+			throw new IllegalStateException("@Coalesce maxWaitMillis must be positive");
+		}
+		this.maxWaiters = maxWaiters;
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	/**
+	 * Runs {@code call} unless an invocation for {@code key} is in flight and
+	 * has room for another waiter, in which case its outcome is returned or
+	 * thrown instead. A caller that waits longer than {@code maxWaitMillis}
+	 * gets a 503.
+	 */
+	Object execute(List<Object> key, Supplier<Object> call) {
+		var mine = new Flight();
+		var flight = flights.compute(key, (k, f) -> {
+			if (null != f && f.waiters < maxWaiters) {
+				f.waiters++;
+				return f;
+			}
+			return mine;
+		});
+		if (flight != mine) {
+			var res = await(flight);
+			if (null == res || res instanceof RenderedResponse) {
+				coalesced.increment();
+				return res;
+			}
+			return call.get();
+		}
+		try {
+			var res = call.get();
+			flights.remove(key, mine);
+			mine.result.complete(res);
+			return res;
+		} catch (RuntimeException | Error e) {
+			flights.remove(key, mine);
+			mine.result.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private Object await(Flight flight) {
+		try {
+			return flight.result.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			coalesced.increment();
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			if (e.getCause() instanceof Error err) {
+				throw err;
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (TimeoutException e) {
+			LOGGER.log(Level.WARNING, "Gave up waiting for a coalesced call after {0} ms", maxWaitMillis);
+			throw new WebException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request timed out");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WebException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request interrupted");
+		}
+	}
+
+	/**
+	 * Requests answered with the response or error of another's invocation.
+	 */
+	long coalesced() {
+		return coalesced.sum();
+	}
+}
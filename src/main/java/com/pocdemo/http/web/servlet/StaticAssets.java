@@ -0,0 +1,206 @@
+package com.pocdemo.http.web.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.core.HttpHeaders;
+
+/**
+ * Classpath assets held in memory with a precomputed gzip variant and strong
+ * ETags. The cache is LRU, bounded by total bytes and entry count. Missing
+ * paths are remembered in a small LRU of their own, so that repeated 404s skip
+ * the classpath lookup while random ones cannot evict real assets.
+ */
+public final class StaticAssets {
+
+	public static final String CACHE_FOREVER = "public, max-age=31536000";
+
+	public static final String REVALIDATE = "no-cache";
+
+	private static final int MAX_ENTRIES = 4096;
+
+	private static final int MAX_MISSES = 256;
+
+	private static final Map<String, String> MIME_TYPES = Map.of(
+			"html", "text/html;charset=UTF-8",
+			"css", "text/css;charset=UTF-8",
+			"js", "text/javascript;charset=UTF-8",
+			"json", "application/json",
+			"map", "application/json",
+			"svg", "image/svg+xml",
+			"png", "image/png",
+			"ico", "image/x-icon");
+
+	public record Asset(byte[] bytes, byte[] gzip, String etag, String contentType) {
+		long size() {
+			return bytes.length + (null != gzip ? gzip.length : 0);
+		}
+	}
+
+	private final String root;
+	private final long maxBytes;
+	private long usedBytes;
+	private final LinkedHashMap<String, Asset> cache = new LinkedHashMap<>(64, 0.75f, true);
+	private final LinkedHashMap<String, Boolean> misses = new LinkedHashMap<>(64, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+			return size() > MAX_MISSES;
+		}
+	};
+
+	public StaticAssets(String root, long maxBytes) {
+		this.root = root;
+		this.maxBytes = maxBytes;
+	}
+
+	public StaticAssets(String root) {
+		this(root, 32L * 1024 * 1024);
+	}
+
+	/**
+	 * @return the asset under the root, or null if there is none
+	 */
+	public Asset get(String path) throws IOException {
+		var asset = cached(path);
+		if (null == asset && !missing(path)) {
+			try (InputStream is = StaticAssets.class.getResourceAsStream(root + path)) {
+				if (null != is) {
+					asset = asset(path, is.readAllBytes());
+					put(path, asset);
+				} else {
+					miss(path);
+				}
+			}
+		}
+		return asset;
+	}
+
+	/**
+	 * Applies a text transformation to a cached asset for one response, e.g. a
+	 * page templated with the request's host. The result is not cached, so
+	 * values taken from the request cannot fill the cache.
+	 */
+	public Asset render(String path, UnaryOperator<String> transform) throws IOException {
+		var source = get(path);
+		if (null == source) {
+			return null;
+		}
+		var text = transform.apply(new String(source.bytes(), StandardCharsets.UTF_8));
+		return asset(path, text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return false when the path does not exist
+	 */
+	public boolean serve(String path, HttpServletRequest rq, HttpServletResponse rs) throws IOException {
+		var asset = get(path);
+		if (null != asset) {
+			write(asset, rq, rs, CACHE_FOREVER);
+		}
+		return null != asset;
+	}
+
+	public static void write(Asset asset, HttpServletRequest rq, HttpServletResponse rs, String cacheControl)
+			throws IOException {
+		boolean gzip = null != asset.gzip() && acceptsGzip(rq.getHeader(HttpHeaders.ACCEPT_ENCODING));
+		var etag = gzip ? asset.etag().substring(0, asset.etag().length() - 1) + "-gz\"" : asset.etag();
+		rs.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+		rs.setHeader(HttpHeaders.ETAG, etag);
+		if (null != asset.gzip()) {
+			rs.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		}
+		var inm = rq.getHeader(HttpHeaders.IF_NONE_MATCH);
+		if (null != inm && (inm.contains(etag) || "*".equals(inm.trim()))) {
+			rs.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+		var bytes = gzip ? asset.gzip() : asset.bytes();
+		if (null != asset.contentType()) {
+			rs.setContentType(asset.contentType());
+		}
+		if (gzip) {
+			rs.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		rs.setContentLength(bytes.length);
+		try (var os = rs.getOutputStream()) {
+			os.write(bytes);
+		}
+	}
+
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (null == acceptEncoding) {
+			return false;
+		}
+		for (var token : acceptEncoding.split(",")) {
+			var parts = token.trim().split(";");
+			if ("gzip".equalsIgnoreCase(parts[0].trim()) || "*".equals(parts[0].trim())) {
+				return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+
+	private synchronized Asset cached(String key) {
+		return cache.get(key);
+	}
+
+	private synchronized boolean missing(String path) {
+		return null != misses.get(path);
+	}
+
+	private synchronized void miss(String path) {
+		misses.put(path, Boolean.TRUE);
+	}
+
+	private synchronized void put(String key, Asset asset) {
+		if (asset.size() > maxBytes / 4) {
+			// too large to keep, served from the freshly loaded bytes only
+			return;
+		}
+		var old = cache.put(key, asset);
+		usedBytes += asset.size() - (null != old ? old.size() : 0);
+		var it = cache.values().iterator();
+		while ((usedBytes > maxBytes || cache.size() > MAX_ENTRIES) && it.hasNext()) {
+			usedBytes -= it.next().size();
+			it.remove();
+		}
+	}
+
+	private static Asset asset(String path, byte[] bytes) throws IOException {
+		var crc = new CRC32();
+		crc.update(bytes);
+		var etag = "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(bytes.length) + "\"";
+		var contentType = contentType(path);
+		byte[] gzip = null;
+		if (bytes.length > 256 && isCompressible(contentType)) {
+			var bos = new ByteArrayOutputStream(bytes.length / 2);
+			try (var gz = new GZIPOutputStream(bos)) {
+				gz.write(bytes);
+			}
+			// only worth a variant when it saves at least a tenth
+			gzip = bos.size() < bytes.length * 0.9 ? bos.toByteArray() : null;
+		}
+		return new Asset(bytes, gzip, etag, contentType);
+	}
+
+	private static String contentType(String path) {
+		int dot = path.lastIndexOf('.');
+		var type = dot >= 0 ? MIME_TYPES.get(path.substring(dot + 1).toLowerCase()) : null;
+		return null != type ? type : URLConnection.guessContentTypeFromName(path);
+	}
+
+	private static boolean isCompressible(String contentType) {
+		return null != contentType && (contentType.startsWith("text/") || contentType.contains("json")
+				|| contentType.contains("javascript") || contentType.contains("xml"));
+	}
+}
@@ -1,7 +1,5 @@
 package com.pocdemo.http.web.servlet;
 
-import org.apache.tomcat.util.http.fileupload.IOUtils;
-
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -9,22 +7,30 @@ import jakarta.servlet.http.HttpServletResponse;
 //@WebServlet(urlPatterns = "/swagger-ui/*", loadOnStartup = 3)
 public class SwaggerUIServlet extends HttpServlet {
 
+    private final transient StaticAssets assets = new StaticAssets("/swagger-ui");
+
     @Override
     public void service(HttpServletRequest request, HttpServletResponse response) {
 
-        try (var is = getClass().getResourceAsStream("/swagger-ui" + request.getPathInfo())) {
-            if (null != is && request.getPathInfo().endsWith("index.html")) {
-                var page = new String(is.readAllBytes());
-                page = page.replace("${host}", "" + request.getServerName());
-                page = page.replace("${port}", "" + request.getServerPort());
-                page = page.replace("${ctxPath}", "/openapi");
-                try (var writer = response.getWriter()) {
-                    writer.write(page);
-                }
-            } else {
-                try (var os = response.getOutputStream()) {
-                    IOUtils.copy(is, os);
+        try {
+            var pathInfo = request.getPathInfo();
+            if (null == pathInfo) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            } else if (pathInfo.endsWith("index.html")) {
+                var host = request.getServerName();
+                var port = request.getServerPort();
+                // the host comes from the client, so the page is rendered per request
+                var page = assets.render(pathInfo,
+                        p -> p.replace("${host}", "" + host)
+                                .replace("${port}", "" + port)
+                                .replace("${ctxPath}", "/openapi"));
+                if (null == page) {
+                    response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                } else {
+                    StaticAssets.write(page, request, response, StaticAssets.REVALIDATE);
                 }
+            } else if (!assets.serve(pathInfo, request, response)) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
             }
 
         } catch (Exception ex) {
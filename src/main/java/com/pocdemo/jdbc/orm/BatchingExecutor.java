@@ -0,0 +1,242 @@
+package com.pocdemo.jdbc.orm;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.sql.DataSource;
+
+/**
+ * Group commit for small writes. Statements submitted by concurrent callers are
+ * collected for up to {@code windowMicros} or {@code maxBatchSize} entries and
+ * run in one transaction, each run of consecutive statements with the same SQL
+ * text as one addBatch/executeBatch, so statements execute in submission
+ * order. If a statement fails, the others are retried one by one on the same
+ * connection so that every caller gets its own update count or error. If the
+ * connection cannot be had or the commit fails, every statement of the batch
+ * fails, since a failed commit may still have been applied.
+ */
+public class BatchingExecutor implements AutoCloseable {
+    private static final Logger LOGGER = System.getLogger(BatchingExecutor.class.getName());
+
+    private record Entry(String sql, Object[] params, CompletableFuture<Integer> result) {
+    }
+
+    private final DataSource dataSource;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread worker;
+    /** submitters hold the read lock, stopping takes the write lock */
+    private final ReadWriteLock state = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    public BatchingExecutor(DataSource dataSource, long windowMicros, int maxBatchSize) {
+        this.dataSource = dataSource;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.worker = new Thread(this::run, "jdbc-group-commit");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * @return the update count of the statement once its batch has committed
+     */
+    public CompletableFuture<Integer> submit(String sql, Object... params) {
+        var result = new CompletableFuture<Integer>();
+        state.readLock().lock();
+        try {
+            if (running) {
+                queue.add(new Entry(sql, params, result));
+                return result;
+            }
+        } finally {
+            state.readLock().unlock();
+        }
+        result.completeExceptionally(new RejectedExecutionException("Executor is closed"));
+        return result;
+    }
+
+    /**
+     * Stops accepting statements; those already queued are still run unless
+     * the worker was interrupted.
+     */
+    private void stop() {
+        state.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            state.writeLock().unlock();
+        }
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (null == first) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || left <= 0) {
+                        break;
+                    }
+                    var next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (null == next) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stop();
+                batch.forEach(en -> en.result().completeExceptionally(e));
+                break;
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.ERROR, "Group commit failed", e);
+                batch.forEach(en -> en.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        Entry left;
+        while (null != (left = queue.poll())) {
+            left.result().completeExceptionally(new RejectedExecutionException("Executor is closed"));
+        }
+    }
+
+    private void flush(List<Entry> batch) {
+        Connection c;
+        try {
+            c = dataSource.getConnection();
+        } catch (SQLException e) {
+            batch.forEach(en -> en.result().completeExceptionally(e));
+            return;
+        }
+        try (c) {
+            c.setAutoCommit(false);
+            int[] counts = new int[batch.size()];
+            try {
+                executeInOrder(c, batch, counts);
+            } catch (SQLException e) {
+                rollback(c);
+                if (batch.size() == 1 || isConnectionError(e)) {
+                    throw e;
+                }
+                LOGGER.log(Level.DEBUG, "Batch of {0} failed, retrying statements one by one", batch.size());
+                retryOneByOne(c, batch);
+                return;
+            }
+            c.commit();
+            for (int i = 0; i < counts.length; i++) {
+                batch.get(i).result().complete(counts[i]);
+            }
+        } catch (SQLException e) {
+            batch.forEach(en -> en.result().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Runs each run of consecutive entries with the same SQL as one batch.
+     */
+    private static void executeInOrder(Connection c, List<Entry> batch, int[] counts) throws SQLException {
+        for (int from = 0; from < batch.size();) {
+            var sql = batch.get(from).sql();
+            int to = from + 1;
+            while (to < batch.size() && sql.equals(batch.get(to).sql())) {
+                to++;
+            }
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                for (int i = from; i < to; i++) {
+                    bind(ps, batch.get(i).params());
+                    ps.addBatch();
+                }
+                int[] res = ps.executeBatch();
+                for (int i = from; i < to; i++) {
+                    counts[i] = i - from < res.length ? res[i - from] : PreparedStatement.SUCCESS_NO_INFO;
+                }
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Runs every entry in a transaction of its own, in submission order, until
+     * the connection fails.
+     */
+    private static void retryOneByOne(Connection c, List<Entry> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            var en = batch.get(i);
+            try {
+                int count;
+                try (PreparedStatement ps = c.prepareStatement(en.sql())) {
+                    bind(ps, en.params());
+                    count = ps.executeUpdate();
+                } catch (SQLException e) {
+                    rollback(c);
+                    throw e;
+                }
+                c.commit();
+                en.result().complete(count);
+            } catch (SQLException e) {
+                en.result().completeExceptionally(e);
+                if (isConnectionError(e)) {
+                    batch.subList(i + 1, batch.size()).forEach(rest -> rest.result().completeExceptionally(e));
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void rollback(Connection c) {
+        try {
+            c.rollback();
+        } catch (SQLException e) {
+            LOGGER.log(Level.DEBUG, "Rollback failed", e);
+        }
+    }
+
+    private static boolean isConnectionError(SQLException e) {
+        return e instanceof SQLNonTransientConnectionException || e instanceof SQLTransientConnectionException
+                || null != e.getSQLState() && e.getSQLState().startsWith("08");
+    }
+
+    private static void bind(PreparedStatement ps, Object[] params) throws SQLException {
+        for (int i = 0; null != params && i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+        }
+    }
+
+    /**
+     * Stops accepting statements and waits for the queued ones to finish.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        stop();
+        worker.join();
+        Entry left;
+        while (null != (left = queue.poll())) {
+            left.result().completeExceptionally(new RejectedExecutionException("Executor is closed"));
+        }
+    }
+}
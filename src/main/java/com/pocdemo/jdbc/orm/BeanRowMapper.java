@@ -0,0 +1,245 @@
+package com.pocdemo.jdbc.orm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps rows onto a DTO or record through a plan built once per class and
+ * column shape: column indices are resolved up front ({@code created_at}
+ * matches {@code createdAt}), each column gets a typed getter, and values are
+ * assigned through MethodHandles. Plans are kept in a bounded LRU cache.
+ * <p>
+ * An instance remembers the plan for the ResultSet it last saw, so use one
+ * instance per query, as {@link ORMHelper#query(Class, String, Object...)}
+ * does.
+ */
+public final class BeanRowMapper<T> implements RowMapper<T> {
+
+    private static final int MAX_PLANS = 256;
+
+    private static final Map<PlanKey, Plan> plans = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PlanKey, Plan> eldest) {
+            return size() > MAX_PLANS;
+        }
+    };
+
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet rs, int column) throws SQLException;
+    }
+
+    private record PlanKey(Class<?> type, String shape) {
+    }
+
+    /**
+     * For records {@code ctor} takes the component values as an Object[],
+     * for classes it takes nothing and {@code setters} assign the fields.
+     */
+    private record Plan(MethodHandle ctor, MethodHandle[] setters, int[] columns, ColumnReader[] readers,
+            Object[] defaults) {
+
+        Object map(ResultSet rs) throws Throwable {
+            if (null == setters) {
+                Object[] args = defaults.clone();
+                for (int i = 0; i < columns.length; i++) {
+                    if (columns[i] > 0) {
+                        var value = readers[i].read(rs, columns[i]);
+                        if (null != value) {
+                            args[i] = value;
+                        }
+                    }
+                }
+                return (Object) ctor.invokeExact(args);
+            }
+            Object obj = (Object) ctor.invokeExact();
+            for (int i = 0; i < columns.length; i++) {
+                var value = readers[i].read(rs, columns[i]);
+                if (null != value || null == defaults[i]) {
+                    setters[i].invokeExact(obj, value);
+                }
+            }
+            return obj;
+        }
+    }
+
+    private final Class<T> type;
+    private ResultSet current;
+    private Plan plan;
+
+    private BeanRowMapper(Class<T> type) {
+        this.type = type;
+    }
+
+    public static <T> BeanRowMapper<T> of(Class<T> type) {
+        return new BeanRowMapper<>(type);
+    }
+
+    @Override
+    public T map(ResultSet rs) throws SQLException {
+        if (rs != current) {
+            plan = plan(type, rs.getMetaData());
+            current = rs;
+        }
+        try {
+            return type.cast(plan.map(rs));
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SQLException("Cannot map row to " + type.getName(), e);
+        }
+    }
+
+    private static Plan plan(Class<?> type, ResultSetMetaData md) throws SQLException {
+        Map<String, Integer> byName = new HashMap<>();
+        var shape = new StringBuilder();
+        for (int i = 1; i <= md.getColumnCount(); i++) {
+            var label = md.getColumnLabel(i);
+            byName.putIfAbsent(normalize(label), i);
+            shape.append(label).append(',');
+        }
+        var key = new PlanKey(type, shape.toString());
+        synchronized (plans) {
+            var cached = plans.get(key);
+            if (null != cached) {
+                return cached;
+            }
+        }
+        Plan built;
+        try {
+            built = type.isRecord() ? recordPlan(type, byName) : beanPlan(type, byName);
+        } catch (ReflectiveOperationException e) {
+            throw new SQLException("Cannot map rows to " + type.getName(), e);
+        }
+        synchronized (plans) {
+            plans.put(key, built);
+        }
+        return built;
+    }
+
+    private static Plan recordPlan(Class<?> type, Map<String, Integer> byName) throws ReflectiveOperationException {
+        var components = type.getRecordComponents();
+        var types = new Class<?>[components.length];
+        int[] columns = new int[components.length];
+        var readers = new ColumnReader[components.length];
+        var defaults = new Object[components.length];
+        for (int i = 0; i < components.length; i++) {
+            types[i] = components[i].getType();
+            columns[i] = byName.getOrDefault(normalize(components[i].getName()), 0);
+            readers[i] = reader(types[i]);
+            defaults[i] = defaultValue(types[i]);
+        }
+        var ctor = type.getDeclaredConstructor(types);
+        ctor.setAccessible(true);
+        var handle = MethodHandles.lookup().unreflectConstructor(ctor)
+                .asSpreader(Object[].class, components.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        return new Plan(handle, null, columns, readers, defaults);
+    }
+
+    private static Plan beanPlan(Class<?> type, Map<String, Integer> byName) throws ReflectiveOperationException {
+        var lookup = MethodHandles.lookup();
+        var ctor = type.getDeclaredConstructor();
+        ctor.setAccessible(true);
+        List<MethodHandle> setters = new ArrayList<>();
+        List<Integer> columns = new ArrayList<>();
+        List<ColumnReader> readers = new ArrayList<>();
+        List<Object> defaults = new ArrayList<>();
+        for (Class<?> c = type; null != c && Object.class != c; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                int mod = f.getModifiers();
+                var column = byName.get(normalize(f.getName()));
+                if (null == column || Modifier.isStatic(mod) || Modifier.isFinal(mod) || columns.contains(column)) {
+                    continue;
+                }
+                f.setAccessible(true);
+                setters.add(lookup.unreflectSetter(f)
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class)));
+                columns.add(column);
+                readers.add(reader(f.getType()));
+                defaults.add(defaultValue(f.getType()));
+            }
+        }
+        return new Plan(lookup.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class)),
+                setters.toArray(MethodHandle[]::new), columns.stream().mapToInt(Integer::intValue).toArray(),
+                readers.toArray(ColumnReader[]::new), defaults.toArray());
+    }
+
+    private static ColumnReader reader(Class<?> type) {
+        if (long.class == type) {
+            return ResultSet::getLong;
+        } else if (int.class == type) {
+            return ResultSet::getInt;
+        } else if (double.class == type) {
+            return ResultSet::getDouble;
+        } else if (boolean.class == type) {
+            return ResultSet::getBoolean;
+        } else if (short.class == type) {
+            return ResultSet::getShort;
+        } else if (float.class == type) {
+            return ResultSet::getFloat;
+        } else if (byte.class == type) {
+            return ResultSet::getByte;
+        } else if (Long.class == type) {
+            return nullable(ResultSet::getLong);
+        } else if (Integer.class == type) {
+            return nullable(ResultSet::getInt);
+        } else if (Double.class == type) {
+            return nullable(ResultSet::getDouble);
+        } else if (Boolean.class == type) {
+            return nullable(ResultSet::getBoolean);
+        } else if (String.class == type) {
+            return ResultSet::getString;
+        } else if (BigDecimal.class == type) {
+            return ResultSet::getBigDecimal;
+        } else if (LocalDate.class == type || LocalDateTime.class == type || LocalTime.class == type
+                || OffsetDateTime.class == type || Instant.class == type) {
+            return (rs, i) -> rs.getObject(i, type);
+        } else if (type.isEnum()) {
+            return (rs, i) -> {
+                var name = rs.getString(i);
+                return null == name ? null : enumValue(type, name);
+            };
+        }
+        return (rs, i) -> rs.getObject(i, type);
+    }
+
+    private static ColumnReader nullable(ColumnReader reader) {
+        return (rs, i) -> {
+            var value = reader.read(rs, i);
+            return rs.wasNull() ? null : value;
+        };
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object enumValue(Class<?> type, String name) {
+        return Enum.valueOf((Class<? extends Enum>) type, name);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        return type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+}
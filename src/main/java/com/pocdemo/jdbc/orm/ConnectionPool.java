@@ -0,0 +1,509 @@
+package com.pocdemo.jdbc.orm;
+
+import java.io.PrintWriter;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+/**
+ * Bounded JDBC connection pool. Connections handed out are proxies: close()
+ * returns them to the pool, and prepareStatement(String) is served from a
+ * per-connection LRU cache whose statements survive close(). Other statements
+ * are closed when the connection is returned. Idle connections are validated
+ * before reuse, leases held longer than the leak threshold are logged with the
+ * stack that acquired them. Once the pool is closed, leased connections are
+ * closed as they are returned.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+    private static final Logger LOGGER = System.getLogger(ConnectionPool.class.getName());
+
+    /** open statements of a lease above which closed ones are dropped from tracking */
+    private static final int TRACKED_STATEMENTS = 64;
+
+    public record Metrics(int inUse, int idle, long acquired, long timeouts, long totalWaitNanos,
+            long maxWaitNanos) {
+    }
+
+    private final class Pooled {
+        final Connection real;
+        final Map<String, CachedStatement> statements;
+        long lastUsed = System.nanoTime();
+
+        Pooled(Connection real) {
+            this.real = real;
+            // in access order, evicted by Lease.prepare which knows whose statements are open
+            this.statements = new LinkedHashMap<>(16, 0.75f, true);
+        }
+    }
+
+    private static final class CachedStatement {
+        final PreparedStatement real;
+        boolean inUse;
+        /** dropped from the cache while in use, closed rather than reset */
+        boolean evicted;
+
+        CachedStatement(PreparedStatement real) {
+            this.real = real;
+        }
+    }
+
+    private final class Lease implements InvocationHandler {
+        final Pooled pooled;
+        final long acquiredAt = System.nanoTime();
+        final Throwable origin;
+        final Connection proxy;
+        /** statements outside the cache, closed on release */
+        final List<Statement> statements = new ArrayList<>();
+        volatile boolean closed;
+        boolean reported;
+
+        Lease(Pooled pooled) {
+            this.pooled = pooled;
+            this.origin = leakThresholdMillis > 0 ? new Throwable("Connection acquired here") : null;
+            this.proxy = (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.real;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+            if ("prepareStatement".equals(method.getName()) && args.length == 1 && statementCacheSize > 0) {
+                return prepare((String) args[0]);
+            }
+            var res = delegate(pooled.real, method, args);
+            if (res instanceof Statement stmt) {
+                return wrap(track(stmt));
+            }
+            return res;
+        }
+
+        /**
+         * The statement with {@code getConnection()} answering this lease's
+         * proxy rather than the physical connection.
+         */
+        private Statement wrap(Statement real) {
+            Class<?> iface = real instanceof CallableStatement ? CallableStatement.class
+                    : real instanceof PreparedStatement ? PreparedStatement.class
+                    : Statement.class;
+            return (Statement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { iface }, (stmtProxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getConnection":
+                                return proxy;
+                            case "equals":
+                                return stmtProxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(stmtProxy);
+                            default:
+                                return delegate(real, method, args);
+                        }
+                    });
+        }
+
+        private <S extends Statement> S track(S stmt) {
+            if (statements.size() >= TRACKED_STATEMENTS) {
+                statements.removeIf(ConnectionPool::isClosed);
+            }
+            statements.add(stmt);
+            return stmt;
+        }
+
+        private PreparedStatement prepare(String sql) throws SQLException {
+            var cached = pooled.statements.get(sql);
+            if (null == cached) {
+                cached = new CachedStatement(pooled.real.prepareStatement(sql));
+                pooled.statements.put(sql, cached);
+                evict();
+            } else if (cached.inUse) {
+                // same SQL already open on this connection, hand out a plain one
+                return (PreparedStatement) wrap(track(pooled.real.prepareStatement(sql)));
+            }
+            cached.inUse = true;
+            var stmt = cached;
+            return (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, new InvocationHandler() {
+                        boolean stmtClosed;
+
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            switch (method.getName()) {
+                                case "close":
+                                    if (!stmtClosed) {
+                                        stmtClosed = true;
+                                        if (closed) {
+                                            // already reset when the connection went back to the pool
+                                            return null;
+                                        }
+                                        if (stmt.evicted) {
+                                            quietly(stmt.real::close);
+                                        } else {
+                                            reset(stmt);
+                                        }
+                                    }
+                                    return null;
+                                case "isClosed":
+                                    return stmtClosed;
+                                case "getConnection":
+                                    return Lease.this.proxy;
+                                case "equals":
+                                    return proxy == args[0];
+                                case "hashCode":
+                                    return System.identityHashCode(proxy);
+                                default:
+                                    break;
+                            }
+                            if (stmtClosed || closed) {
+                                throw new SQLException("Statement is closed");
+                            }
+                            return delegate(stmt.real, method, args);
+                        }
+                    });
+        }
+
+        /**
+         * Closes the least recently used statements over the cache size. One
+         * still open under this lease leaves the cache but stays usable
+         * until it is closed or the lease is released.
+         */
+        private void evict() {
+            for (var it = pooled.statements.values().iterator(); pooled.statements.size() > statementCacheSize;) {
+                var eldest = it.next();
+                it.remove();
+                if (eldest.inUse) {
+                    eldest.evicted = true;
+                    track(eldest.real);
+                } else {
+                    quietly(eldest.real::close);
+                }
+            }
+        }
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Pooled> idle = new ConcurrentLinkedDeque<>();
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    private long acquireTimeoutMillis = 30_000;
+    private long validationIntervalMillis = 5_000;
+    private int validationTimeoutSeconds = 2;
+    private long leakThresholdMillis = 0;
+    private int statementCacheSize = 64;
+    private ScheduledExecutorService leakDetector;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    public void setAcquireTimeoutMillis(long acquireTimeoutMillis) {
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    /**
+     * Idle connections unused for longer than this are checked with
+     * {@link Connection#isValid(int)} before being handed out.
+     */
+    public void setValidationIntervalMillis(long validationIntervalMillis) {
+        this.validationIntervalMillis = validationIntervalMillis;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Logs connections held for longer than the threshold; 0 disables it.
+     */
+    public synchronized void setLeakThresholdMillis(long leakThresholdMillis) {
+        this.leakThresholdMillis = leakThresholdMillis;
+        if (null != leakDetector) {
+            leakDetector.shutdownNow();
+            leakDetector = null;
+        }
+        if (leakThresholdMillis > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+                var t = new Thread(r, "pool-leak-detector");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(leakThresholdMillis / 2, 100);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Prepared statements cached per connection; 0 disables the cache.
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLTransientConnectionException("Timed out after " + acquireTimeoutMillis
+                        + "ms waiting for a connection, pool size " + maxSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        acquired.increment();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        try {
+            var pooled = borrow();
+            if (closed) {
+                discard(pooled);
+                throw new SQLException("Pool is closed");
+            }
+            var lease = new Lease(pooled);
+            leases.add(lease);
+            return lease.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Pooled borrow() throws SQLException {
+        Pooled pooled;
+        while (null != (pooled = idle.pollFirst())) {
+            long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pooled.lastUsed);
+            if (idleMillis < validationIntervalMillis || isValid(pooled)) {
+                return pooled;
+            }
+            LOGGER.log(Level.INFO, "Discarding invalid pooled connection");
+            discard(pooled);
+        }
+        return new Pooled(DriverManager.getConnection(url, user, password));
+    }
+
+    private boolean isValid(Pooled pooled) {
+        try {
+            return pooled.real.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(Lease lease) {
+        leases.remove(lease);
+        var pooled = lease.pooled;
+        try {
+            lease.statements.forEach(stmt -> quietly(stmt::close));
+            if (closed) {
+                discard(pooled);
+                return;
+            }
+            for (var stmt : pooled.statements.values()) {
+                if (stmt.inUse) {
+                    reset(stmt);
+                }
+            }
+            if (!pooled.real.getAutoCommit()) {
+                pooled.real.rollback();
+                pooled.real.setAutoCommit(true);
+            }
+            pooled.lastUsed = System.nanoTime();
+            idle.offerFirst(pooled);
+            if (closed && idle.remove(pooled)) {
+                // close() drained the idle connections in the meantime
+                discard(pooled);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Discarding connection that failed to reset", e);
+            discard(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void reset(CachedStatement stmt) {
+        quietly(() -> {
+            var rs = stmt.real.getResultSet();
+            if (null != rs) {
+                rs.close();
+            }
+        });
+        quietly(stmt.real::clearParameters);
+        quietly(stmt.real::clearBatch);
+        stmt.inUse = false;
+    }
+
+    private static boolean isClosed(Statement stmt) {
+        try {
+            return stmt.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private void discard(Pooled pooled) {
+        pooled.statements.values().forEach(s -> quietly(s.real::close));
+        quietly(pooled.real::close);
+    }
+
+    private void detectLeaks() {
+        long now = System.nanoTime();
+        for (var lease : leases) {
+            if (!lease.reported && TimeUnit.NANOSECONDS.toMillis(now - lease.acquiredAt) > leakThresholdMillis) {
+                lease.reported = true;
+                LOGGER.log(Level.WARNING, "Possible connection leak, held for more than "
+                        + leakThresholdMillis + "ms", lease.origin);
+            }
+        }
+    }
+
+    public Metrics metrics() {
+        return new Metrics(leases.size(), idle.size(), acquired.sum(), timeouts.sum(), totalWaitNanos.sum(),
+                maxWaitNanos.get());
+    }
+
+    /**
+     * Closes the idle connections and fails later {@link #getConnection()}
+     * calls. Leased connections are closed when they are returned.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (null != leakDetector) {
+            leakDetector.shutdownNow();
+            leakDetector = null;
+        }
+        Pooled pooled;
+        while (null != (pooled = idle.pollFirst())) {
+            discard(pooled);
+        }
+    }
+
+    private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
+    private static void quietly(SqlAction action) {
+        try {
+            action.run();
+        } catch (SQLException e) {
+            LOGGER.log(Level.DEBUG, "Ignored failure while releasing resources", e);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pool credentials are fixed");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        // logs through System.Logger
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
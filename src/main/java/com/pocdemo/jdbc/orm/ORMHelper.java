@@ -1,14 +1,65 @@
 package com.pocdemo.jdbc.orm;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.util.Map;
 
 public class ORMHelper {
+    private static volatile ConnectionPool pool;
+
+    private ORMHelper() {
+    }
+
+    /**
+     * Replaces the pool behind {@link #conn()}. The previous one is closed:
+     * its idle connections at once, those still leased when they are returned.
+     */
+    public static synchronized void configure(ConnectionPool newPool) {
+        var old = pool;
+        pool = newPool;
+        if (null != old) {
+            old.close();
+        }
+    }
+
+    public static ConnectionPool pool() {
+        var p = pool;
+        if (null == p) {
+            synchronized (ORMHelper.class) {
+                if (null == pool) {
+                    pool = new ConnectionPool("jdbc:aa/bb", "aa", "dd", 20);
+                }
+                p = pool;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * @return a pooled connection, closing it returns it to the pool
+     */
     public static Connection conn() throws Exception {
-        return DriverManager.getConnection("jdbc:aa/bb", "aa", "dd");
+        return pool().getConnection();
     }
 
     public static void exec(String s) throws Exception {
-        conn().createStatement().execute(s + " where 1 = 1");
+        try (var c = conn(); var st = c.createStatement()) {
+            st.execute(s + " where 1 = 1");
+        }
+    }
+
+    /**
+     * @return a cursor that runs the query when first iterated; close it, or
+     *         iterate it to the end, to release the connection
+     */
+    public static RowCursor<Map<String, Object>> query(String sql, Object... params) {
+        return new RowCursor<>(pool(), sql, params, RowMapper.columnMap());
+    }
+
+    /**
+     * Like {@link #query(String, Object...)}, mapping each row onto the type
+     * through a {@link BeanRowMapper}.
+     */
+    public static <T> RowCursor<T> query(Class<T> type, String sql, Object... params) {
+        return new RowCursor<>(pool(), sql, params, BeanRowMapper.of(type));
     }
 }
@@ -0,0 +1,121 @@
+package com.pocdemo.jdbc.orm;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.sql.DataSource;
+
+/**
+ * Lazily evaluated query result. Nothing is executed until the first call to
+ * {@link #hasNext()}; rows are then fetched from a forward-only ResultSet in
+ * chunks of the fetch size and mapped one at a time, so a service method can
+ * return it and the dispatcher streams it without holding all rows. The
+ * connection is released when the rows are exhausted or on close().
+ */
+public class RowCursor<T> implements Iterator<T>, AutoCloseable {
+    private static final Logger LOGGER = System.getLogger(RowCursor.class.getName());
+
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    private final DataSource dataSource;
+    private final String sql;
+    private final Object[] params;
+    private final RowMapper<T> mapper;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    private Connection conn;
+    private PreparedStatement ps;
+    private ResultSet rs;
+    private Boolean hasRow;
+    private boolean closed;
+
+    public RowCursor(DataSource dataSource, String sql, Object[] params, RowMapper<T> mapper) {
+        this.dataSource = dataSource;
+        this.sql = sql;
+        this.params = params;
+        this.mapper = mapper;
+    }
+
+    public RowCursor<T> fetchSize(int size) {
+        this.fetchSize = size;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (null == hasRow) {
+            try {
+                if (null == rs) {
+                    open();
+                }
+                hasRow = rs.next();
+            } catch (SQLException e) {
+                close();
+                throw new IllegalStateException("Query failed: " + sql, e);
+            }
+            if (!hasRow) {
+                close();
+            }
+        }
+        return hasRow;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasRow = null;
+        try {
+            return mapper.map(rs);
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException("Row mapping failed: " + sql, e);
+        }
+    }
+
+    private void open() throws SQLException {
+        conn = dataSource.getConnection();
+        // some drivers, e.g. PostgreSQL, only honour the fetch size inside a transaction
+        conn.setAutoCommit(false);
+        ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(fetchSize);
+        for (int i = 0; null != params && i < params.length; i++) {
+            ps.setObject(i + 1, params[i]);
+        }
+        rs = ps.executeQuery();
+        rs.setFetchSize(fetchSize);
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        hasRow = false;
+        try (var c = conn; var s = ps; var r = rs) {
+            // closed in reverse order
+        } catch (SQLException e) {
+            LOGGER.log(Level.DEBUG, "Failed to close cursor", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.pocdemo.jdbc.orm;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@FunctionalInterface
+public interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException;
+
+    /**
+     * Maps each row to its column labels, resolved once on the first row.
+     */
+    static RowMapper<Map<String, Object>> columnMap() {
+        return new RowMapper<>() {
+            private String[] labels;
+
+            @Override
+            public Map<String, Object> map(ResultSet rs) throws SQLException {
+                if (null == labels) {
+                    var md = rs.getMetaData();
+                    labels = new String[md.getColumnCount()];
+                    for (int i = 0; i < labels.length; i++) {
+                        labels[i] = md.getColumnLabel(i + 1);
+                    }
+                }
+                Map<String, Object> row = new LinkedHashMap<>(labels.length * 2);
+                for (int i = 0; i < labels.length; i++) {
+                    row.put(labels[i], rs.getObject(i + 1));
+                }
+                return row;
+            }
+        };
+    }
+}